@@ -1,28 +1,51 @@
 package emanuelrichieri.mutantdetector.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
 import emanuelrichieri.mutantdetector.io.DnaDTO;
 import emanuelrichieri.mutantdetector.io.ResponseDTO;
 import emanuelrichieri.mutantdetector.io.ResponseEntityBuilder;
+import emanuelrichieri.mutantdetector.service.IDnaMetricsService;
+import emanuelrichieri.mutantdetector.service.IDnaSearchService;
 import emanuelrichieri.mutantdetector.service.IDnaService;
+import emanuelrichieri.mutantdetector.service.IDnaStreamService;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.parser.DnaJsonParser;
 
 @RestController
 @RequestMapping("")
 public class MutantRestController {
 	
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+	
 	@Autowired
 	private IDnaService service;
 	
+	@Autowired
+	private IDnaSearchService searchService;
+	
+	@Autowired
+	private IDnaStreamService streamService;
+	
+	@Autowired
+	private IDnaMetricsService metricsService;
+	
 	@PostMapping("/mutant")
 	public ResponseEntity<ResponseDTO> isMutant(@RequestBody DnaDTO dnaDTO) {
 		try {
@@ -38,6 +61,78 @@ public class MutantRestController {
 		} 
 	}
 	
+	/**
+	 * Same as POST /mutant, but the body is parsed straight into a packed {@link DnaMatrix},
+	 * without building Strings. The DNA is not echoed back in the response.
+	 */
+	@PostMapping("/mutant/compact")
+	public ResponseEntity<ResponseDTO> isMutantCompact(InputStream body) {
+		try {
+			DnaMatrix matrix;
+			try {
+				matrix = DnaJsonParser.parse(body);
+			} catch (InvalidDnaException ex) {
+				// rejected before reaching the service, which counts the rest of the invalid DNA
+				this.metricsService.recordRejected();
+				throw ex;
+			}
+			Boolean isMutant = this.service.isMutantMatrix(matrix);
+			if (isMutant) {
+				return ResponseDTO.ok(DnaClassification.MUTANT.name()).build();
+			} 
+			return ResponseDTO.forbidden(DnaClassification.HUMAN.name(), null).build();
+		} catch (InvalidDnaException ex) {
+			return ResponseDTO.badRequest(ex).build();
+		} catch (RepositoryException ex) {
+			return ResponseDTO.internalServerError(ex.getMessage(), ex.getException()).build();
+		} catch (IOException ex) {
+			return ResponseDTO.internalServerError(ex).build();
+		}
+	}
+	
+	/**
+	 * Classifies a list of DNA (same body as POST /mutant, one per element).
+	 * Returns the classification of each DNA in the given order; invalid DNA get an error 
+	 * instead of failing the whole batch.
+	 */
+	@PostMapping("/mutant/batch")
+	public ResponseEntity<?> isMutantBatch(@RequestBody List<DnaDTO> dnaDTOs) {
+		try {
+			return ResponseEntityBuilder.ok(this.service.isMutantBatch(dnaDTOs));
+		} catch (InvalidDnaException ex) {
+			return ResponseDTO.badRequest(ex).build();
+		} catch (RepositoryException ex) {
+			return ResponseDTO.internalServerError(ex.getMessage(), ex.getException()).build();
+		} catch (Exception ex) {
+			return ResponseDTO.internalServerError(ex).build();
+		}
+	}
+	
+	/**
+	 * Classifies newline-delimited JSON DNA records (same as the body of POST /mutant, one per line)
+	 * sent over a single request. A result line is written back as soon as each record is classified.
+	 */
+	@PostMapping(path = "/mutant/stream", produces = APPLICATION_NDJSON)
+	public void isMutantStream(InputStream body, HttpServletResponse response) throws IOException {
+		response.setContentType(APPLICATION_NDJSON);
+		this.streamService.classify(body, response.getOutputStream());
+	}
+	
+	/**
+	 * Searches the stored DNA having a row that contains the given motif.
+	 * Returns the total number of matches and at most <code>limit</code> DNA ids.
+	 */
+	@GetMapping("/dna/search")
+	public ResponseEntity<?> search(@RequestParam("motif") String motif, @RequestParam(name = "limit", required = false) Integer limit) {
+		try {
+			return ResponseEntityBuilder.ok(this.searchService.search(motif, limit));
+		} catch (InvalidDnaException ex) {
+			return ResponseDTO.badRequest(ex).build();
+		} catch (Exception ex) {
+			return ResponseDTO.internalServerError(ex).build();
+		}
+	}
+	
 	@GetMapping("/stats")
 	public ResponseEntity<?> getStats() {
 		try {
@@ -46,5 +141,29 @@ public class MutantRestController {
 			return ResponseDTO.internalServerError(ex).build();
 		}
 	}
+	
+	@GetMapping("/stats/cache")
+	public ResponseEntity<?> getCacheStats() {
+		try {
+			return ResponseEntityBuilder.ok(this.service.getCacheStats());
+		} catch (Exception ex) {
+			return ResponseDTO.internalServerError(ex).build();
+		}
+	}
+	
+	/**
+	 * Classifications and rejected DNA counted in memory over the last <code>window</code> (e.g. 90s, 15m, 2h),
+	 * in per-second or per-minute buckets. It does not query the database.
+	 */
+	@GetMapping("/stats/timeseries")
+	public ResponseEntity<?> getTimeseries(@RequestParam(name = "window", required = false) String window) {
+		try {
+			return ResponseEntityBuilder.ok(this.metricsService.getTimeseries(window));
+		} catch (IllegalArgumentException ex) {
+			return ResponseDTO.badRequest(ex).build();
+		} catch (Exception ex) {
+			return ResponseDTO.internalServerError(ex).build();
+		}
+	}
 
 }
@@ -1,7 +1,8 @@
 package emanuelrichieri.mutantdetector.domain.entities;
 
+import java.util.Objects;
+
 import javax.persistence.Column;
-import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -10,20 +11,58 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
-import emanuelrichieri.mutantdetector.util.converter.StringArrayConverter;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaDigest;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.matrix.PackedDnaCodec;
 
 @Entity
-@Table(indexes = {@Index(name = "dna_index", columnList = "dnaSequence", unique = true)})
+@Table(indexes = {
+		@Index(name = "dna_digest_index", columnList = "dnaDigest", unique = true),
+		@Index(name = "dna_classification_index", columnList = "classification")
+})
 public class Dna {
 	
 	public Dna() { } 
 	
 	public Dna(String[] dnaSequence, DnaClassification classification) {
-		this.dnaSequence = dnaSequence;
+		this.setDnaSequence(dnaSequence);
+		this.classification = classification;
+	}
+	
+	/**
+	 * Creates a DNA from its already built matrix and digest, so they are not computed again.
+	 * The sequence rows are decoded from the packed bases the first time they are read.
+	 * @param matrix
+	 * @param digest the digest of the matrix
+	 * @param classification
+	 */
+	public Dna(DnaMatrix matrix, DnaDigest digest, DnaClassification classification) {
+		this.dnaPacked = PackedDnaCodec.pack(matrix);
+		this.dnaDigest = digest.toString();
 		this.classification = classification;
 	}
 	
+	/**
+	 * Computes the lookup key of a DNA sequence: the {@link DnaDigest} of its packed bases, in hexadecimal.
+	 * @param dnaSequence
+	 * @return the digest, <code>null</code> if the sequence is not a valid DNA.
+	 */
+	public static String digestOf(String[] dnaSequence) {
+		DnaMatrix matrix = matrixOf(dnaSequence);
+		return Objects.isNull(matrix) ? null : DnaDigest.of(matrix).toString();
+	}
+	
+	private static DnaMatrix matrixOf(String[] dnaSequence) {
+		try {
+			return DnaMatrix.of(dnaSequence);
+		} catch (InvalidDnaException ex) {
+			return null;
+		}
+	}
+	
 	public enum DnaClassification {
 		HUMAN,
 		MUTANT
@@ -35,10 +74,24 @@ public class Dna {
 	private Long id;
 	
     
-	@Convert(converter = StringArrayConverter.class)
-	@Column(length = 8000)
+	/**
+	 * The sequence, stored with 2 bits per base (see {@link PackedDnaCodec}).
+	 */
+	@Column(length = PackedDnaCodec.MAX_BYTES)
+	private byte[] dnaPacked;
+	
+	/**
+	 * The sequence rows, decoded from {@link #dnaPacked} the first time they are read.
+	 */
+	@Transient
 	private String[] dnaSequence;
 	
+	/**
+	 * Fixed-width unique key of the sequence (see {@link #digestOf(String[])}), kept in sync by {@link #setDnaSequence(String[])}.
+	 */
+	@Column(length = 2 * DnaDigest.BYTES)
+	private String dnaDigest;
+	
 	@Enumerated(EnumType.STRING)
 	private DnaClassification classification;
 
@@ -47,15 +100,32 @@ public class Dna {
 	}
 
 	public String[] getDnaSequence() {
+		if (Objects.isNull(dnaSequence) && Objects.nonNull(dnaPacked)) {
+			dnaSequence = PackedDnaCodec.unpack(dnaPacked);
+		}
 		return dnaSequence;
 	}
+	
+	/**
+	 * @return the stored form of the sequence, <code>null</code> if it is not a valid DNA.
+	 */
+	public byte[] getDnaPacked() {
+		return dnaPacked;
+	}
 
 	public void setId(Long id) {
 		this.id = id;
 	}
 
 	public void setDnaSequence(String[] dnaSequence) {
+		DnaMatrix matrix = matrixOf(dnaSequence);
 		this.dnaSequence = dnaSequence;
+		this.dnaPacked = Objects.isNull(matrix) ? null : PackedDnaCodec.pack(matrix);
+		this.dnaDigest = Objects.isNull(matrix) ? null : DnaDigest.of(matrix).toString();
+	}
+	
+	public String getDnaDigest() {
+		return dnaDigest;
 	}
 
 	public DnaClassification getClassification() {
@@ -0,0 +1,194 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+
+@Repository("dnaBatchRepository")
+public class DnaBatchRepository implements IDnaBatchRepository {
+
+	private static final String INSERT_SQL = "INSERT INTO dna (dna_packed, dna_digest, classification) VALUES (?, ?, ?)";
+	
+	private static final String UPDATE_SQL = "UPDATE dna SET classification = ? WHERE id = ? AND classification <> ?";
+	
+	/**
+	 * Only returns a row when it was inserted or its classification changed: 
+	 * xmax is 0 for rows inserted by the statement itself. 
+	 * A stored DNA with the same digest but a different sequence (a collision) is left untouched.
+	 */
+	private static final String UPSERT_SQL = INSERT_SQL 
+			+ " ON CONFLICT (dna_digest) DO UPDATE SET classification = EXCLUDED.classification"
+			+ " WHERE dna.classification <> EXCLUDED.classification AND dna.dna_packed = EXCLUDED.dna_packed"
+			+ " RETURNING id, (xmax = 0) AS inserted";
+	
+	/**
+	 * Batched first step of {@link #upsertAll(List)}: an update count of 1 means the DNA was inserted.
+	 */
+	private static final String INSERT_NEW_SQL = INSERT_SQL + " ON CONFLICT (dna_digest) DO NOTHING";
+	
+	/**
+	 * Batched second step of {@link #upsertAll(List)}, for the DNA already stored: an update count of 1 means 
+	 * its classification changed. A stored DNA with the same digest but a different sequence is left untouched.
+	 */
+	private static final String UPDATE_CHANGED_SQL = "UPDATE dna SET classification = ? "
+			+ "WHERE dna_digest = ? AND dna_packed = ? AND classification <> ?";
+	
+	private static final String SELECT_BY_DIGEST_SQL = "SELECT id, dna_packed FROM dna WHERE dna_digest = ?";
+	
+	private static final String POSTGRESQL = "PostgreSQL";
+	
+	private Logger logger = LoggerFactory.getLogger("DnaBatchRepository");
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	/**
+	 * Max number of statements sent to the database in a single JDBC batch.
+	 */
+	@Value("${mutantdetector.batch.jdbc-batch-size:500}")
+	private int jdbcBatchSize = 500;
+	
+	/**
+	 * Whether the database supports INSERT ... ON CONFLICT. Otherwise upserts read before writing.
+	 */
+	private boolean onConflictSupported = false;
+	
+	@PostConstruct
+	public void detectDatabase() {
+		String product = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		this.onConflictSupported = POSTGRESQL.equalsIgnoreCase(product);
+		if (!onConflictSupported) {
+			logger.warn(product + " does not support INSERT ... ON CONFLICT, upserts will read before writing");
+		}
+	}
+	
+	/**
+	 * With ON CONFLICT, both steps are JDBC batches of at most <code>mutantdetector.batch.jdbc-batch-size</code> 
+	 * statements, and their update counts tell the outcome of each DNA. Batches cannot return rows, 
+	 * so the ids are not read (the PostgreSQL driver must not rewrite batched inserts, which hides the update counts).
+	 * Otherwise each DNA is read before writing it, and an insert rejected by the unique digest is retried as an update.
+	 */
+	@Override
+	public List<DnaUpsertResult> upsertAll(List<Dna> dnaList) {
+		List<DnaUpsertResult> results = new ArrayList<DnaUpsertResult>(dnaList.size());
+		if (!onConflictSupported) {
+			for (Dna dna : dnaList) {
+				results.add(this.readThenWrite(dna));
+			}
+			return results;
+		}
+		int[] inserted = flatten(this.jdbcTemplate.batchUpdate(INSERT_NEW_SQL, dnaList, jdbcBatchSize, (statement, dna) -> {
+			statement.setBytes(1, dna.getDnaPacked());
+			statement.setString(2, dna.getDnaDigest());
+			statement.setString(3, dna.getClassification().name());
+		}), dnaList.size());
+		List<Dna> stored = new ArrayList<Dna>();
+		for (int i = 0; i < inserted.length; i++) {
+			if (inserted[i] == 0) {
+				stored.add(dnaList.get(i));
+			}
+		}
+		int[] updated = flatten(this.jdbcTemplate.batchUpdate(UPDATE_CHANGED_SQL, stored, jdbcBatchSize, (statement, dna) -> {
+			statement.setString(1, dna.getClassification().name());
+			statement.setString(2, dna.getDnaDigest());
+			statement.setBytes(3, dna.getDnaPacked());
+			statement.setString(4, dna.getClassification().name());
+		}), stored.size());
+		for (int i = 0, j = 0; i < inserted.length; i++) {
+			if (inserted[i] != 0) {
+				results.add(DnaUpsertResult.inserted(null));
+			} else {
+				results.add(updated[j++] == 0 ? DnaUpsertResult.unchanged(null) : DnaUpsertResult.updated(null));
+			}
+		}
+		return results;
+	}
+	
+	@Override
+	public DnaUpsertResult upsert(Dna dna) {
+		if (!onConflictSupported) {
+			return this.readThenWrite(dna);
+		}
+		return this.jdbcTemplate.query(UPSERT_SQL, rs -> {
+			if (!rs.next()) {
+				return DnaUpsertResult.unchanged(null);
+			}
+			return rs.getBoolean(2) ? DnaUpsertResult.inserted(rs.getLong(1)) : DnaUpsertResult.updated(rs.getLong(1));
+		}, dna.getDnaPacked(), dna.getDnaDigest(), dna.getClassification().name());
+	}
+	
+	/**
+	 * Upsert for databases without INSERT ... ON CONFLICT: looks up the stored DNA by digest, then inserts or updates it.
+	 * When a concurrent upsert inserts the same DNA between the lookup and the insert, the unique digest rejects 
+	 * the second insert, which is then retried as an update of the stored DNA.
+	 */
+	private DnaUpsertResult readThenWrite(Dna dna) {
+		Object[] stored = this.findByDigest(dna);
+		if (Objects.isNull(stored)) {
+			try {
+				KeyHolder keyHolder = new GeneratedKeyHolder();
+				this.jdbcTemplate.update(connection -> {
+					PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[] {"id"});
+					statement.setBytes(1, dna.getDnaPacked());
+					statement.setString(2, dna.getDnaDigest());
+					statement.setString(3, dna.getClassification().name());
+					return statement;
+				}, keyHolder);
+				return DnaUpsertResult.inserted(keyHolder.getKey().longValue());
+			} catch (DataIntegrityViolationException ex) {
+				stored = this.findByDigest(dna);
+				if (Objects.isNull(stored)) {
+					throw ex;
+				}
+			}
+		}
+		Long id = (Long) stored[0];
+		if (!Arrays.equals(dna.getDnaPacked(), (byte[]) stored[1])) {
+			return DnaUpsertResult.unchanged(id);
+		}
+		// conditional, so a concurrent upsert of the same classification is not reported twice
+		String classification = dna.getClassification().name();
+		int updated = this.jdbcTemplate.update(UPDATE_SQL, classification, id, classification);
+		return updated == 0 ? DnaUpsertResult.unchanged(id) : DnaUpsertResult.updated(id);
+	}
+	
+	/**
+	 * @return id and packed sequence of the DNA stored with the same digest, <code>null</code> if there is none.
+	 */
+	private Object[] findByDigest(Dna dna) {
+		List<Object[]> stored = this.jdbcTemplate.query(SELECT_BY_DIGEST_SQL, 
+				(rs, rowNum) -> new Object[] {rs.getLong(1), rs.getBytes(2)}, dna.getDnaDigest());
+		return stored.isEmpty() ? null : stored.get(0);
+	}
+	
+	/**
+	 * Joins the update counts of consecutive JDBC batches.
+	 */
+	private static int[] flatten(int[][] batches, int size) {
+		int[] counts = new int[size];
+		int i = 0;
+		for (int[] batch : batches) {
+			for (int count : batch) {
+				counts[i++] = count;
+			}
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,154 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.util.converter.StringArrayConverter;
+import emanuelrichieri.mutantdetector.util.matrix.PackedDnaCodec;
+
+/**
+ * Migrates rows stored by previous versions in the comma-joined text column <code>dna_sequence</code> 
+ * (see {@link StringArrayConverter}): fills their packed sequence (<code>dna_packed</code>, see {@link PackedDnaCodec}) 
+ * and their digest, clears the text column and drops the old unique index on it (<code>dna_index</code>).
+ * 
+ * Runs at startup, once the schema has been updated, and does nothing when the table has no <code>dna_sequence</code> column.
+ * Previous versions cannot read migrated rows, so every older instance must be stopped before the first one of this version starts.
+ * In case one is left running, rows it stores later (with <code>dna_packed</code> empty) are migrated again every 
+ * <code>mutantdetector.migration.interval-ms</code>, while the column exists. Until then they are not found by digest.
+ * Rows are read by id ranges of <code>mutantdetector.migration.page-size</code>, so memory does not grow with the table.
+ */
+@Component("dnaStorageMigration")
+@DependsOn("entityManagerFactory")
+public class DnaStorageMigration {
+
+	private static final String OLD_INDEX = "dna_index";
+	
+	private static final String LEGACY_COLUMN_SQL = "SELECT COUNT(*) FROM information_schema.columns "
+			+ "WHERE LOWER(table_name) = 'dna' AND LOWER(column_name) = 'dna_sequence'";
+	
+	private static final String SELECT_SQL = "SELECT id, dna_sequence FROM dna "
+			+ "WHERE dna_packed IS NULL AND dna_sequence IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+	
+	private static final String UPDATE_SQL = "UPDATE dna SET dna_packed = ?, dna_digest = ?, dna_sequence = NULL WHERE id = ?";
+	
+	private Logger logger = LoggerFactory.getLogger("DnaStorageMigration");
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Value("${mutantdetector.migration.page-size:1000}")
+	private int pageSize = 1000;
+	
+	/**
+	 * Milliseconds between migrations of the rows stored by older instances after startup. 
+	 * 0 migrates them only at startup.
+	 */
+	@Value("${mutantdetector.migration.interval-ms:60000}")
+	private long interval = 60000;
+	
+	private ScheduledExecutorService scheduler;
+	
+	/**
+	 * Ids of the rows that cannot be migrated, so they are reported only once.
+	 */
+	private final Set<Long> invalidIds = new HashSet<Long>();
+	
+	private final StringArrayConverter converter = new StringArrayConverter();
+	
+	@PostConstruct
+	public void migrate() {
+		Integer legacyColumns = this.jdbcTemplate.queryForObject(LEGACY_COLUMN_SQL, Integer.class);
+		if (Objects.isNull(legacyColumns) || legacyColumns == 0) {
+			return;
+		}
+		this.dropOldIndex();
+		this.migrateRows();
+		if (interval > 0) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "dna-storage-migration");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.scheduler.scheduleWithFixedDelay(() -> {
+				try {
+					this.migrateRows();
+				} catch (DataAccessException ex) {
+					logger.warn("Could not migrate stored DNA, the next run tries again: " + ex.getMessage());
+				}
+			}, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	@PreDestroy
+	public void stop() {
+		if (Objects.nonNull(this.scheduler)) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+	
+	/**
+	 * Packs the rows with a text sequence and no packed one.
+	 * @return the number of rows migrated.
+	 */
+	public synchronized long migrateRows() {
+		long lastId = 0;
+		long migrated = 0;
+		while (true) {
+			List<Object[]> page = this.jdbcTemplate.query(SELECT_SQL, 
+					(rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2)}, lastId, pageSize);
+			if (page.isEmpty()) {
+				break;
+			}
+			List<Object[]> updates = new ArrayList<Object[]>(page.size());
+			for (Object[] row : page) {
+				lastId = (Long) row[0];
+				Dna dna = new Dna(converter.convertToEntityAttribute((String) row[1]), null);
+				if (Objects.isNull(dna.getDnaPacked())) {
+					if (invalidIds.add(lastId)) {
+						logger.warn("Invalid DNA sequence stored with id " + lastId + ", not migrated");
+					}
+					continue;
+				}
+				updates.add(new Object[] {dna.getDnaPacked(), dna.getDnaDigest(), lastId});
+			}
+			this.jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+			migrated += updates.size();
+		}
+		if (migrated > 0) {
+			logger.info("Packed sequence and digest computed for " + migrated + " stored DNA");
+		}
+		return migrated;
+	}
+	
+	/**
+	 * Drops the unique index on dna_sequence, created by previous versions either as a constraint or as an index.
+	 */
+	private void dropOldIndex() {
+		try {
+			this.jdbcTemplate.execute("ALTER TABLE dna DROP CONSTRAINT IF EXISTS " + OLD_INDEX);
+			this.jdbcTemplate.execute("DROP INDEX IF EXISTS " + OLD_INDEX);
+		} catch (DataAccessException ex) {
+			logger.warn("Could not drop index " + OLD_INDEX + ": " + ex.getMessage());
+		}
+	}
+}
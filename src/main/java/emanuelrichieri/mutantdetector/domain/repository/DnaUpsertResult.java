@@ -0,0 +1,50 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+/**
+ * Outcome of {@link IDnaBatchRepository#upsert(emanuelrichieri.mutantdetector.domain.entities.Dna)} 
+ * and {@link IDnaBatchRepository#upsertAll(java.util.List)}.
+ */
+public class DnaUpsertResult {
+
+	public enum Outcome {
+		INSERTED,
+		UPDATED,
+		UNCHANGED
+	}
+	
+	private final Outcome outcome;
+	
+	private final Long id;
+	
+	public DnaUpsertResult(Outcome outcome, Long id) {
+		this.outcome = outcome;
+		this.id = id;
+	}
+	
+	public static DnaUpsertResult inserted(Long id) {
+		return new DnaUpsertResult(Outcome.INSERTED, id);
+	}
+	
+	public static DnaUpsertResult updated(Long id) {
+		return new DnaUpsertResult(Outcome.UPDATED, id);
+	}
+	
+	public static DnaUpsertResult unchanged(Long id) {
+		return new DnaUpsertResult(Outcome.UNCHANGED, id);
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return the id of the stored DNA. It may be <code>null</code> when the DNA is unchanged, or was written in a batch.
+	 */
+	public Long getId() {
+		return id;
+	}
+	
+	public boolean isInserted() {
+		return outcome == Outcome.INSERTED;
+	}
+}
@@ -0,0 +1,28 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+import java.util.List;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+
+/**
+ * Bulk writes of {@link Dna} entities through JDBC batches, bypassing the persistence context.
+ */
+public interface IDnaBatchRepository {
+
+	/**
+	 * Inserts the given DNA, or updates the classification of the stored one only if it changed,
+	 * in a single statement when the database supports it (PostgreSQL INSERT ... ON CONFLICT).
+	 * Concurrent upserts of the same DNA do not fail on the unique digest.
+	 * @param dna
+	 * @return whether the DNA was inserted, updated or left unchanged.
+	 */
+	public DnaUpsertResult upsert(Dna dna);
+	
+	/**
+	 * Upserts the given DNA as {@link #upsert(Dna)} does, with JDBC batches when the database supports it.
+	 * Concurrent writes of the same DNA do not fail on the unique digest.
+	 * @param dnaList
+	 * @return the outcome of each DNA, in the same order. Ids are not read when the DNA are written in batches.
+	 */
+	public List<DnaUpsertResult> upsertAll(List<Dna> dnaList);
+}
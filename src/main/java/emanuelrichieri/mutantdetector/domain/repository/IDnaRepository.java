@@ -1,7 +1,15 @@
 package emanuelrichieri.mutantdetector.domain.repository;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,7 +19,68 @@ import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
 @Repository("dnaRepository")
 public interface IDnaRepository extends CrudRepository<Dna, Long>  {
 
-	public Dna findByDnaSequence(String[] dnaSequence);
+	public Dna findByDnaDigest(String dnaDigest);
+	
+	public List<Dna> findByDnaDigestIn(Collection<String> dnaDigests);
+	
+	/**
+	 * Finds a stored DNA by the digest of its sequence. 
+	 * The packed sequences are compared only to rule out a digest collision.
+	 * @param dnaSequence
+	 * @return the stored DNA, <code>null</code> if not found.
+	 */
+	public default Dna findByDnaSequence(String[] dnaSequence) {
+		Dna probe = new Dna(dnaSequence, null);
+		if (Objects.isNull(probe.getDnaDigest())) {
+			return null;
+		}
+		Dna dna = this.findByDnaDigest(probe.getDnaDigest());
+		return Objects.nonNull(dna) && Arrays.equals(dna.getDnaPacked(), probe.getDnaPacked()) ? dna : null;
+	}
+	
+	/**
+	 * Finds all the stored DNA matching any of the given sequences with a single IN query on their digests.
+	 * The packed sequences are compared only to rule out digest collisions.
+	 * @param dnaSequences
+	 */
+	public default List<Dna> findByDnaSequenceIn(Collection<String[]> dnaSequences) {
+		Map<String, byte[]> sequences = new HashMap<String, byte[]>();
+		for (String[] dnaSequence : dnaSequences) {
+			Dna probe = new Dna(dnaSequence, null);
+			if (Objects.nonNull(probe.getDnaDigest())) {
+				sequences.put(probe.getDnaDigest(), probe.getDnaPacked());
+			}
+		}
+		if (sequences.isEmpty()) {
+			return new ArrayList<Dna>();
+		}
+		List<Dna> found = new ArrayList<Dna>(this.findByDnaDigestIn(sequences.keySet()));
+		found.removeIf(dna -> !Arrays.equals(dna.getDnaPacked(), sequences.get(dna.getDnaDigest())));
+		return found;
+	}
 	
 	public List<Dna> findByClassification(DnaClassification classification);
+	
+	/**
+	 * Counts the stored DNA with the given classification in the database, without loading them.
+	 * @param classification
+	 */
+	public long countByClassification(DnaClassification classification);
+	
+	/**
+	 * Finds a page of the DNA stored after the given id, in id order.
+	 * Reading the table by id ranges keeps in memory a single page at a time.
+	 * @param id
+	 * @param page only its size is used: the next page starts after the last id read
+	 */
+	public List<Dna> findByIdGreaterThanOrderById(Long id, Pageable page);
+	
+	/**
+	 * Finds a page of the ids in the given range, in id order, without loading the DNA.
+	 * @param after exclusive lower bound
+	 * @param upTo inclusive upper bound
+	 * @param page only its size is used: the next page starts after the last id read
+	 */
+	@Query("SELECT d.id FROM Dna d WHERE d.id > ?1 AND d.id <= ?2 ORDER BY d.id")
+	public List<Long> findIdsBetween(Long after, Long upTo, Pageable page);
 }
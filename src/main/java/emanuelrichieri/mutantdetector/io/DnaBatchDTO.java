@@ -0,0 +1,45 @@
+package emanuelrichieri.mutantdetector.io;
+
+import java.util.List;
+
+public class DnaBatchDTO {
+
+	private Long count_mutant_dna;
+	private Long count_human_dna;
+	private Long count_invalid_dna;
+	private List<DnaBatchResultDTO> results;
+	
+	public DnaBatchDTO() { }
+
+	public DnaBatchDTO(Long countHumanDna, Long countMutantDna, Long countInvalidDna, List<DnaBatchResultDTO> results) {
+		this.setCount_human_dna(countHumanDna);
+		this.setCount_mutant_dna(countMutantDna);
+		this.setCount_invalid_dna(countInvalidDna);
+		this.setResults(results);
+	}
+	
+	public Long getCount_mutant_dna() {
+		return count_mutant_dna;
+	}
+	public Long getCount_human_dna() {
+		return count_human_dna;
+	}
+	public Long getCount_invalid_dna() {
+		return count_invalid_dna;
+	}
+	public List<DnaBatchResultDTO> getResults() {
+		return results;
+	}
+	public void setCount_mutant_dna(Long count_mutant_dna) {
+		this.count_mutant_dna = count_mutant_dna;
+	}
+	public void setCount_human_dna(Long count_human_dna) {
+		this.count_human_dna = count_human_dna;
+	}
+	public void setCount_invalid_dna(Long count_invalid_dna) {
+		this.count_invalid_dna = count_invalid_dna;
+	}
+	public void setResults(List<DnaBatchResultDTO> results) {
+		this.results = results;
+	}
+}
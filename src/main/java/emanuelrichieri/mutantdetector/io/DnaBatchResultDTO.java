@@ -0,0 +1,34 @@
+package emanuelrichieri.mutantdetector.io;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * Result of a single DNA of a batch: its classification, or the error found validating it.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DnaBatchResultDTO {
+
+	private String classification;
+	private String error;
+	
+	public DnaBatchResultDTO() { }
+
+	public DnaBatchResultDTO(String classification, String error) {
+		this.setClassification(classification);
+		this.setError(error);
+	}
+	
+	public String getClassification() {
+		return classification;
+	}
+	public String getError() {
+		return error;
+	}
+	public void setClassification(String classification) {
+		this.classification = classification;
+	}
+	public void setError(String error) {
+		this.error = error;
+	}
+}
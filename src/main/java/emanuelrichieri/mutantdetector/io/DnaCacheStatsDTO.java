@@ -0,0 +1,85 @@
+package emanuelrichieri.mutantdetector.io;
+
+public class DnaCacheStatsDTO {
+
+	private Boolean enabled;
+	private Integer entries;
+	private Integer max_entries;
+	private Long weight_bytes;
+	private Long max_weight_bytes;
+	private Long hits;
+	private Long misses;
+	private Long evictions;
+	private Double hit_ratio;
+	
+	public DnaCacheStatsDTO() { }
+
+	public DnaCacheStatsDTO(Boolean enabled, Integer entries, Integer maxEntries, Long weightBytes, Long maxWeightBytes, 
+			Long hits, Long misses, Long evictions) {
+		this.setEnabled(enabled);
+		this.setEntries(entries);
+		this.setMax_entries(maxEntries);
+		this.setWeight_bytes(weightBytes);
+		this.setMax_weight_bytes(maxWeightBytes);
+		this.setHits(hits);
+		this.setMisses(misses);
+		this.setEvictions(evictions);
+		long lookups = hits + misses;
+		this.setHit_ratio(lookups == 0 ? 0.0 : (double) hits / lookups);
+	}
+	
+	public Boolean getEnabled() {
+		return enabled;
+	}
+	public Integer getEntries() {
+		return entries;
+	}
+	public Integer getMax_entries() {
+		return max_entries;
+	}
+	public Long getWeight_bytes() {
+		return weight_bytes;
+	}
+	public Long getMax_weight_bytes() {
+		return max_weight_bytes;
+	}
+	public Long getHits() {
+		return hits;
+	}
+	public Long getMisses() {
+		return misses;
+	}
+	public Long getEvictions() {
+		return evictions;
+	}
+	public Double getHit_ratio() {
+		return hit_ratio;
+	}
+	public void setEnabled(Boolean enabled) {
+		this.enabled = enabled;
+	}
+	public void setEntries(Integer entries) {
+		this.entries = entries;
+	}
+	public void setMax_entries(Integer max_entries) {
+		this.max_entries = max_entries;
+	}
+	public void setWeight_bytes(Long weight_bytes) {
+		this.weight_bytes = weight_bytes;
+	}
+	public void setMax_weight_bytes(Long max_weight_bytes) {
+		this.max_weight_bytes = max_weight_bytes;
+	}
+	public void setHits(Long hits) {
+		this.hits = hits;
+	}
+	public void setMisses(Long misses) {
+		this.misses = misses;
+	}
+	public void setEvictions(Long evictions) {
+		this.evictions = evictions;
+	}
+	public void setHit_ratio(Double hit_ratio) {
+		this.hit_ratio = hit_ratio;
+	}
+}
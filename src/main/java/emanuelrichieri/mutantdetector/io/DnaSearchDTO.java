@@ -0,0 +1,37 @@
+package emanuelrichieri.mutantdetector.io;
+
+import java.util.List;
+
+public class DnaSearchDTO {
+
+	private String motif;
+	private Integer total_results;
+	private List<Long> ids;
+	
+	public DnaSearchDTO() { }
+
+	public DnaSearchDTO(String motif, Integer totalResults, List<Long> ids) {
+		this.setMotif(motif);
+		this.setTotal_results(totalResults);
+		this.setIds(ids);
+	}
+	
+	public String getMotif() {
+		return motif;
+	}
+	public Integer getTotal_results() {
+		return total_results;
+	}
+	public List<Long> getIds() {
+		return ids;
+	}
+	public void setMotif(String motif) {
+		this.motif = motif;
+	}
+	public void setTotal_results(Integer total_results) {
+		this.total_results = total_results;
+	}
+	public void setIds(List<Long> ids) {
+		this.ids = ids;
+	}
+}
@@ -1,17 +1,27 @@
 package emanuelrichieri.mutantdetector.io;
 
+/**
+ * Immutable stats of the stored DNA, so the same snapshot can be shared by concurrent readers.
+ */
 public class DnaStatsDTO {
 
-	private Long count_mutant_dna;
-	private Long count_human_dna;
-	private Double ratio;
-	
-	public DnaStatsDTO() { }
+	private final Long count_mutant_dna;
+	private final Long count_human_dna;
+	private final Double ratio;
+
+	/**
+	 * Builds the stats computing the ratio of mutant to human DNA (see {@link #ratio(long, long)}).
+	 * @param countHumanDna
+	 * @param countMutantDna
+	 */
+	public DnaStatsDTO(Long countHumanDna, Long countMutantDna) {
+		this(countHumanDna, countMutantDna, ratio(countHumanDna, countMutantDna));
+	}
 
 	public DnaStatsDTO(Long countHumanDna, Long countMutantDna, Double ratio) {
-		this.setCount_human_dna(countHumanDna);
-		this.setCount_mutant_dna(countMutantDna);
-		this.setRatio(ratio);
+		this.count_human_dna = countHumanDna;
+		this.count_mutant_dna = countMutantDna;
+		this.ratio = ratio;
 	}
 	
 	public Long getCount_mutant_dna() {
@@ -23,13 +33,14 @@ public class DnaStatsDTO {
 	public Double getRatio() {
 		return ratio;
 	}
-	public void setCount_mutant_dna(Long count_mutant_dna) {
-		this.count_mutant_dna = count_mutant_dna;
-	}
-	public void setCount_human_dna(Long count_human_dna) {
-		this.count_human_dna = count_human_dna;
-	}
-	public void setRatio(Double ratio) {
-		this.ratio = ratio;
+	
+	/**
+	 * @param countHumanDna
+	 * @param countMutantDna
+	 * @return the number of mutant DNA per human DNA, as a floating point division. 
+	 * 0 when there is no human DNA, since the ratio is not defined.
+	 */
+	public static Double ratio(long countHumanDna, long countMutantDna) {
+		return countHumanDna == 0 ? 0.0 : (double) countMutantDna / countHumanDna;
 	}
 }
@@ -0,0 +1,23 @@
+package emanuelrichieri.mutantdetector.io;
+
+/**
+ * Result of a single record of a DNA stream, with the number of the input line it was read from.
+ */
+public class DnaStreamResultDTO extends DnaBatchResultDTO {
+
+	private Long line;
+	
+	public DnaStreamResultDTO() { }
+
+	public DnaStreamResultDTO(Long line, String classification, String error) {
+		super(classification, error);
+		this.setLine(line);
+	}
+	
+	public Long getLine() {
+		return line;
+	}
+	public void setLine(Long line) {
+		this.line = line;
+	}
+}
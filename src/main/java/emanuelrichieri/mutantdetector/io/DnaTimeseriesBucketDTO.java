@@ -0,0 +1,57 @@
+package emanuelrichieri.mutantdetector.io;
+
+import java.util.Map;
+
+public class DnaTimeseriesBucketDTO {
+
+	private Long timestamp;
+	private Long count_mutant_dna;
+	private Long count_human_dna;
+	private Long count_invalid_dna;
+	private Map<String, Long> size_mix;
+	
+	public DnaTimeseriesBucketDTO() { }
+
+	public DnaTimeseriesBucketDTO(Long timestamp, Long countHumanDna, Long countMutantDna, Long countInvalidDna, 
+			Map<String, Long> sizeMix) {
+		this.setTimestamp(timestamp);
+		this.setCount_human_dna(countHumanDna);
+		this.setCount_mutant_dna(countMutantDna);
+		this.setCount_invalid_dna(countInvalidDna);
+		this.setSize_mix(sizeMix);
+	}
+	
+	/**
+	 * @return start of the bucket, in milliseconds since the epoch.
+	 */
+	public Long getTimestamp() {
+		return timestamp;
+	}
+	public Long getCount_mutant_dna() {
+		return count_mutant_dna;
+	}
+	public Long getCount_human_dna() {
+		return count_human_dna;
+	}
+	public Long getCount_invalid_dna() {
+		return count_invalid_dna;
+	}
+	public Map<String, Long> getSize_mix() {
+		return size_mix;
+	}
+	public void setTimestamp(Long timestamp) {
+		this.timestamp = timestamp;
+	}
+	public void setCount_mutant_dna(Long count_mutant_dna) {
+		this.count_mutant_dna = count_mutant_dna;
+	}
+	public void setCount_human_dna(Long count_human_dna) {
+		this.count_human_dna = count_human_dna;
+	}
+	public void setCount_invalid_dna(Long count_invalid_dna) {
+		this.count_invalid_dna = count_invalid_dna;
+	}
+	public void setSize_mix(Map<String, Long> size_mix) {
+		this.size_mix = size_mix;
+	}
+}
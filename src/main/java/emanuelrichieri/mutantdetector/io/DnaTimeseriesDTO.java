@@ -0,0 +1,71 @@
+package emanuelrichieri.mutantdetector.io;
+
+import java.util.List;
+import java.util.Map;
+
+public class DnaTimeseriesDTO {
+
+	private String window;
+	private Long resolution_seconds;
+	private Long count_mutant_dna;
+	private Long count_human_dna;
+	private Long count_invalid_dna;
+	private Map<String, Long> size_mix;
+	private List<DnaTimeseriesBucketDTO> buckets;
+	
+	public DnaTimeseriesDTO() { }
+
+	public DnaTimeseriesDTO(String window, Long resolutionSeconds, Long countHumanDna, Long countMutantDna, 
+			Long countInvalidDna, Map<String, Long> sizeMix, List<DnaTimeseriesBucketDTO> buckets) {
+		this.setWindow(window);
+		this.setResolution_seconds(resolutionSeconds);
+		this.setCount_human_dna(countHumanDna);
+		this.setCount_mutant_dna(countMutantDna);
+		this.setCount_invalid_dna(countInvalidDna);
+		this.setSize_mix(sizeMix);
+		this.setBuckets(buckets);
+	}
+	
+	public String getWindow() {
+		return window;
+	}
+	public Long getResolution_seconds() {
+		return resolution_seconds;
+	}
+	public Long getCount_mutant_dna() {
+		return count_mutant_dna;
+	}
+	public Long getCount_human_dna() {
+		return count_human_dna;
+	}
+	public Long getCount_invalid_dna() {
+		return count_invalid_dna;
+	}
+	public Map<String, Long> getSize_mix() {
+		return size_mix;
+	}
+	public List<DnaTimeseriesBucketDTO> getBuckets() {
+		return buckets;
+	}
+	public void setWindow(String window) {
+		this.window = window;
+	}
+	public void setResolution_seconds(Long resolution_seconds) {
+		this.resolution_seconds = resolution_seconds;
+	}
+	public void setCount_mutant_dna(Long count_mutant_dna) {
+		this.count_mutant_dna = count_mutant_dna;
+	}
+	public void setCount_human_dna(Long count_human_dna) {
+		this.count_human_dna = count_human_dna;
+	}
+	public void setCount_invalid_dna(Long count_invalid_dna) {
+		this.count_invalid_dna = count_invalid_dna;
+	}
+	public void setSize_mix(Map<String, Long> size_mix) {
+		this.size_mix = size_mix;
+	}
+	public void setBuckets(List<DnaTimeseriesBucketDTO> buckets) {
+		this.buckets = buckets;
+	}
+}
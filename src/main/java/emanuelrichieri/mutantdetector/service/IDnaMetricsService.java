@@ -0,0 +1,27 @@
+package emanuelrichieri.mutantdetector.service;
+
+import emanuelrichieri.mutantdetector.io.DnaTimeseriesDTO;
+
+public interface IDnaMetricsService {
+
+	/**
+	 * Counts a classified DNA in the current time buckets.
+	 * @param isMutant
+	 * @param size N, for a NxN DNA
+	 */
+	public void recordClassification(boolean isMutant, int size);
+	
+	/**
+	 * Counts a DNA rejected as invalid in the current time buckets.
+	 */
+	public void recordRejected();
+	
+	/**
+	 * Gets the classifications counted in the last time buckets, from memory.
+	 * @param window length of the time series: a number followed by s (seconds), m (minutes) or h (hours), 
+	 * <code>null</code> for the default one
+	 * @return {@link DnaTimeseriesDTO} with the totals of the window and the counts of each bucket, oldest first.
+	 * @throws IllegalArgumentException if the window is invalid or longer than the kept buckets
+	 */
+	public DnaTimeseriesDTO getTimeseries(String window);
+}
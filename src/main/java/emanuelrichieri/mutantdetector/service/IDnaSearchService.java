@@ -0,0 +1,25 @@
+package emanuelrichieri.mutantdetector.service;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.io.DnaSearchDTO;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+public interface IDnaSearchService {
+
+	/**
+	 * Adds a stored DNA to the search index, so that it can be found by the rows of its sequence.
+	 * It is indexed in background: searches may not find it until its batch is indexed.
+	 * DNA entities without id (not stored yet) are ignored.
+	 * @param dna
+	 */
+	public void index(Dna dna);
+	
+	/**
+	 * Searches the stored DNA having at least one row that contains the given motif.
+	 * @param motif the sequence to search for, made of the allowed DNA characters
+	 * @param limit the max number of ids to return, <code>null</code> for the default one
+	 * @return {@link DnaSearchDTO} which contains: motif, total_results, and at most <code>limit</code> ids, in insertion order.
+	 * @throws InvalidDnaException if the motif or the limit are invalid
+	 */
+	public DnaSearchDTO search(String motif, Integer limit) throws InvalidDnaException;
+}
@@ -1,10 +1,15 @@
 package emanuelrichieri.mutantdetector.service;
 
+import java.util.List;
+
 import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.io.DnaBatchDTO;
+import emanuelrichieri.mutantdetector.io.DnaCacheStatsDTO;
 import emanuelrichieri.mutantdetector.io.DnaDTO;
 import emanuelrichieri.mutantdetector.io.DnaStatsDTO;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
 
 public interface IDnaService {
 	
@@ -33,4 +38,32 @@ public interface IDnaService {
 	 * @throws RepositoryException
 	 */
 	public Boolean isMutant(DnaDTO dnaDTO) throws InvalidDnaException, RepositoryException;
+	
+	/**
+	 * Determines if a given packed DNA belongs to a mutant. 
+	 * @param matrix
+	 * @return 
+	 * 	- <code>true</code> if the given DNA contains more than one sequence of four equal letters,
+	 * 	 obliquely, horizontally or vertically. <br>
+	 *  - <code>false</code> otherwise.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	public Boolean isMutantMatrix(DnaMatrix matrix) throws InvalidDnaException, RepositoryException;
+	
+	/**
+	 * Determines which of the given DNA belong to a mutant, classifying them in parallel
+	 * and storing the results with bulk queries.
+	 * @param dnaDTOs
+	 * @return {@link DnaBatchDTO} with the classification (or validation error) of each DNA, in the given order.
+	 * @throws InvalidDnaException if the batch is empty or too big.
+	 * @throws RepositoryException
+	 */
+	public DnaBatchDTO isMutantBatch(List<DnaDTO> dnaDTOs) throws InvalidDnaException, RepositoryException;
+	
+	/**
+	 * Get classification cache statistics.
+	 * @return {@link DnaCacheStatsDTO} which contains the cache size, bounds and hits, misses and evictions since startup.
+	 */
+	public DnaCacheStatsDTO getCacheStats();
 }
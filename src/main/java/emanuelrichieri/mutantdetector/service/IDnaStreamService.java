@@ -0,0 +1,22 @@
+package emanuelrichieri.mutantdetector.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IDnaStreamService {
+
+	/**
+	 * Classifies a stream of newline-delimited JSON DNA records (same as the body of POST /mutant),
+	 * storing each one as {@link IDnaService#isMutant} does.
+	 * 
+	 * A JSON result line, with the number of the input line it belongs to, is written to <code>output</code>
+	 * as soon as each record is classified, so results may not follow the input order.
+	 * Invalid records get an error result and do not stop the stream.
+	 * @param input UTF-8 newline-delimited JSON records. Blank lines are skipped.
+	 * @param output where result lines are written
+	 * @return the number of records classified
+	 * @throws IOException if the input cannot be read or the output cannot be written
+	 */
+	public long classify(InputStream input, OutputStream output) throws IOException;
+}
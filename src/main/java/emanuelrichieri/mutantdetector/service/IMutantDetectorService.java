@@ -1,7 +1,7 @@
 package emanuelrichieri.mutantdetector.service;
 
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
-import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
 
 public interface IMutantDetectorService {
 	
@@ -16,5 +16,19 @@ public interface IMutantDetectorService {
 	 * @throws InvalidDnaException
 	 */
 	public Boolean isMutant(String[] dna) throws InvalidDnaException;
+	
+	/**
+	 * Determines if an already validated and packed DNA belongs to a mutant.
+	 * Implementations working on {@link DnaMatrix} should override it to avoid unpacking.
+	 * @param matrix
+	 * @return 
+	 * 	- <code>true</code> if the given DNA contains more than one sequence of four equal letters,
+	 * 	 obliquely, horizontally or vertically. <br>
+	 *  - <code>false</code> otherwise.
+	 * @throws InvalidDnaException
+	 */
+	public default Boolean isMutantMatrix(DnaMatrix matrix) throws InvalidDnaException {
+		return this.isMutant(matrix.toStrings());
+	}
 
 }
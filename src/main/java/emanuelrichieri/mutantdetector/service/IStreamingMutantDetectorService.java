@@ -0,0 +1,35 @@
+package emanuelrichieri.mutantdetector.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+public interface IStreamingMutantDetectorService {
+
+	/**
+	 * Determines if a DNA received row by row belongs to a mutant.
+	 * Rows are consumed only until the result is known.
+	 * @param rows the rows of the NxN DNA matrix
+	 * @return 
+	 * 	- <code>true</code> if the given DNA contains more than one sequence of four equal letters,
+	 * 	 obliquely, horizontally or vertically. <br>
+	 *  - <code>false</code> otherwise.
+	 * @throws InvalidDnaException if the rows read are not a valid DNA
+	 */
+	public Boolean isMutant(Iterator<? extends CharSequence> rows) throws InvalidDnaException;
+	
+	/**
+	 * Determines if a DNA read from the given stream belongs to a mutant.
+	 * The stream contains one row per line (ASCII) and is read only until the result is known.
+	 * @param input
+	 * @return 
+	 * 	- <code>true</code> if the given DNA contains more than one sequence of four equal letters,
+	 * 	 obliquely, horizontally or vertically. <br>
+	 *  - <code>false</code> otherwise.
+	 * @throws InvalidDnaException if the rows read are not a valid DNA
+	 * @throws IOException if the stream cannot be read
+	 */
+	public Boolean isMutant(InputStream input) throws InvalidDnaException, IOException;
+}
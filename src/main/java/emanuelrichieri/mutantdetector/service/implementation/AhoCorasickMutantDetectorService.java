@@ -0,0 +1,106 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MUTANT_DNA_SEQUENCES;
+
+import java.util.Arrays;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matcher.AhoCorasickMatcher;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Detects mutant DNA searching a configurable set of signatures with an {@link AhoCorasickMatcher},
+ * compiled once at startup. Every line (rows, columns and top-left to bottom-right diagonals)
+ * is read in a single pass, whatever the number of signatures, straight from the given rows.
+ * 
+ * As in {@link MutantDetectorService}, a line counts each signature it contains once, and the DNA belongs to 
+ * a mutant when <code>mutantdetector.matching-sequences-needed</code> (line, signature) matches are found.
+ * The signatures are set with <code>mutantdetector.signatures</code>, by default the ones of {@link MutantDetectorService}.
+ * Enabled with <code>mutantdetector.engine=aho-corasick</code>.
+ */
+@Service("ahoCorasickMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "aho-corasick")
+public class AhoCorasickMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("AhoCorasickMutantDetectorService");
+	
+	@Value("${mutantdetector.signatures:AAAA,CCCC,GGGG,TTTT}")
+	private String[] signatures = MUTANT_DNA_SEQUENCES;
+	
+	@Value("${mutantdetector.matching-sequences-needed:2}")
+	private int matchingSequencesNeeded = MATCHING_SEQUENCES_NEEDED;
+	
+	private AhoCorasickMatcher matcher = new AhoCorasickMatcher(MUTANT_DNA_SEQUENCES);
+	
+	/**
+	 * Compiles the configured signatures. Duplicated signatures are counted once.
+	 */
+	@PostConstruct
+	public void compile() {
+		this.matcher = new AhoCorasickMatcher(Arrays.stream(signatures).map(String::trim).distinct().toArray(String[]::new));
+		logger.info("Mutant signatures compiled: " + String.join(",", signatures));
+	}
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		try {
+			DnaValidator.validate(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		
+		AhoCorasickMatcher matcher = this.matcher;
+		int size = dna.length;
+		// line in which each signature was last found, so that a line counts it only once
+		int[] foundInLine = new int[matcher.size()];
+		Arrays.fill(foundInLine, -1);
+		int line = 0;
+		int found = 0;
+		
+		for (int i = 0; i < size && found < matchingSequencesNeeded; i++) {
+			found = scan(matcher, dna, i, 0, 0, 1, line++, foundInLine, found);
+			found = scan(matcher, dna, 0, i, 1, 0, line++, foundInLine, found);
+		}
+		// diagonals as long as the shortest signature, at least
+		for (int i = 0; i <= size - matcher.minLength() && found < matchingSequencesNeeded; i++) {
+			found = scan(matcher, dna, 0, i, 1, 1, line++, foundInLine, found);
+			if (i > 0) {
+				found = scan(matcher, dna, i, 0, 1, 1, line++, foundInLine, found);
+			}
+		}
+		return found >= matchingSequencesNeeded;
+	}
+	
+	/**
+	 * Runs the automaton over the line starting at (row, column), adding the signatures found in it.
+	 * @return the number of matches found so far, including the ones of this line
+	 */
+	private int scan(AhoCorasickMatcher matcher, String[] dna, int row, int column, int rowStep, int colStep, 
+			int line, int[] foundInLine, int found) {
+		int state = AhoCorasickMatcher.ROOT;
+		for (int r = row, c = column; r < dna.length && c < dna.length; r += rowStep, c += colStep) {
+			state = matcher.next(state, dna[r].charAt(c));
+			for (int i = 0; i < matcher.matchCount(state); i++) {
+				int signature = matcher.match(state, i);
+				if (foundInLine[signature] != line) {
+					foundInLine[signature] = line;
+					if (++found >= matchingSequencesNeeded) {
+						return found;
+					}
+				}
+			}
+		}
+		return found;
+	}
+}
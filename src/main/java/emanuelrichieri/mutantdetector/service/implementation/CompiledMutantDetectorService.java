@@ -0,0 +1,76 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.rule.DetectionRule;
+import emanuelrichieri.mutantdetector.util.rule.DetectionRule.Direction;
+import emanuelrichieri.mutantdetector.util.rule.DetectionRuleCompiler;
+
+/**
+ * Detects mutant DNA with a predicate compiled at startup for the configured 
+ * {@link DetectionRule} (see {@link DetectionRuleCompiler}), so the rule can be changed 
+ * with properties while the detection runs specialized code.
+ * 
+ * The rule is set with <code>mutantdetector.rule.*</code> and <code>mutantdetector.matching-sequences-needed</code>, 
+ * by default the one of {@link MutantDetectorService}.
+ * Enabled with <code>mutantdetector.engine=compiled</code>.
+ */
+@Service("compiledMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "compiled")
+public class CompiledMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("CompiledMutantDetectorService");
+	
+	@Value("${mutantdetector.rule.alphabet:ACGT}")
+	private String alphabet = MutantDetectorService.ALLOWED_CHARACTERS;
+	
+	@Value("${mutantdetector.rule.run-length:4}")
+	private int runLength = MutantDetectorService.VALID_SEQUENCE_LENGTH;
+	
+	@Value("${mutantdetector.matching-sequences-needed:2}")
+	private int matchesNeeded = MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+	
+	@Value("${mutantdetector.rule.directions:row,column,diagonal}")
+	private String[] directions = {"row", "column", "diagonal"};
+	
+	private DetectionRule rule;
+	
+	private Predicate<String[]> detector;
+	
+	/**
+	 * Builds the configured rule and compiles it.
+	 * @throws IllegalArgumentException if the rule is invalid
+	 */
+	@PostConstruct
+	public void compile() {
+		Set<Direction> ruleDirections = EnumSet.noneOf(Direction.class);
+		Arrays.stream(directions).map(direction -> Direction.valueOf(direction.trim().toUpperCase().replace('-', '_'))).forEach(ruleDirections::add);
+		this.rule = new DetectionRule(alphabet, runLength, matchesNeeded, ruleDirections);
+		this.detector = DetectionRuleCompiler.compile(rule);
+		logger.info("Detection rule compiled: " + rule);
+	}
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		try {
+			this.rule.validate(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		return this.detector.test(dna);
+	}
+}
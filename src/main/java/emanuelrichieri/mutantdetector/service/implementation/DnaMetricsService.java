@@ -0,0 +1,175 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.io.DnaTimeseriesBucketDTO;
+import emanuelrichieri.mutantdetector.io.DnaTimeseriesDTO;
+import emanuelrichieri.mutantdetector.service.IDnaMetricsService;
+import emanuelrichieri.mutantdetector.util.metrics.TimeBucketRing;
+
+/**
+ * Near real time classification metrics, kept only in memory.
+ * 
+ * Every classification (and every rejected DNA) is counted in two {@link TimeBucketRing}: one of 
+ * per-second buckets and one of per-minute buckets. Time series up to the length of the per-second 
+ * ring are answered with per-second buckets, longer ones with per-minute buckets.
+ * 
+ * Classified DNA are also counted by size class (powers of two of N), to follow the mix of matrix sizes.
+ */
+@Service("dnaMetricsService")
+public class DnaMetricsService implements IDnaMetricsService {
+
+	private static final int HUMAN = 0;
+	
+	private static final int MUTANT = 1;
+	
+	private static final int INVALID = 2;
+	
+	/**
+	 * Slot of the first size class. N in [4, 8) is the first class, [8, 16) the second one, and so on.
+	 */
+	private static final int SIZE_CLASS = 3;
+	
+	public static final String[] SIZE_CLASSES = {"4-7", "8-15", "16-31", "32-63", "64-127", "128+"};
+	
+	private static final int SLOTS = SIZE_CLASS + SIZE_CLASSES.length;
+	
+	private static final Pattern WINDOW = Pattern.compile("(\\d{1,9})([smh])");
+	
+	/**
+	 * Number of per-second buckets kept.
+	 */
+	@Value("${mutantdetector.metrics.seconds:300}")
+	private int seconds = 300;
+	
+	/**
+	 * Number of per-minute buckets kept.
+	 */
+	@Value("${mutantdetector.metrics.minutes:1440}")
+	private int minutes = 1440;
+	
+	@Value("${mutantdetector.metrics.default-window:1m}")
+	private String defaultWindow = "1m";
+	
+	private TimeBucketRing perSecond;
+	
+	private TimeBucketRing perMinute;
+	
+	@PostConstruct
+	public void start() {
+		this.perSecond = new TimeBucketRing(TimeUnit.SECONDS.toMillis(1), seconds, SLOTS);
+		this.perMinute = new TimeBucketRing(TimeUnit.MINUTES.toMillis(1), minutes, SLOTS);
+	}
+	
+	@Override
+	public void recordClassification(boolean isMutant, int size) {
+		this.recordClassification(isMutant, size, System.currentTimeMillis());
+	}
+	
+	public void recordClassification(boolean isMutant, int size, long timeMillis) {
+		this.increment(timeMillis, isMutant ? MUTANT : HUMAN);
+		this.increment(timeMillis, SIZE_CLASS + sizeClass(size));
+	}
+
+	@Override
+	public void recordRejected() {
+		this.recordRejected(System.currentTimeMillis());
+	}
+	
+	public void recordRejected(long timeMillis) {
+		this.increment(timeMillis, INVALID);
+	}
+
+	@Override
+	public DnaTimeseriesDTO getTimeseries(String window) {
+		return this.getTimeseries(window, System.currentTimeMillis());
+	}
+	
+	public DnaTimeseriesDTO getTimeseries(String window, long timeMillis) {
+		if (Objects.isNull(window) || window.isEmpty()) {
+			window = defaultWindow;
+		}
+		long windowSeconds = parseWindow(window);
+		TimeBucketRing ring;
+		long count;
+		if (windowSeconds <= seconds) {
+			ring = perSecond;
+			count = windowSeconds;
+		} else if (windowSeconds <= TimeUnit.MINUTES.toSeconds(minutes)) {
+			ring = perMinute;
+			count = (windowSeconds + TimeUnit.MINUTES.toSeconds(1) - 1) / TimeUnit.MINUTES.toSeconds(1);
+		} else {
+			throw new IllegalArgumentException("Invalid window. Must be at most " + minutes + "m");
+		}
+		long[][] counts = ring.read(timeMillis, (int) count);
+		long firstBucket = ring.bucketStart(timeMillis) - (count - 1) * ring.bucketMillis();
+		
+		long[] totals = new long[SLOTS];
+		List<DnaTimeseriesBucketDTO> buckets = new ArrayList<DnaTimeseriesBucketDTO>(counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				totals[slot] += counts[i][slot];
+			}
+			buckets.add(new DnaTimeseriesBucketDTO(firstBucket + i * ring.bucketMillis(), 
+					counts[i][HUMAN], counts[i][MUTANT], counts[i][INVALID], sizeMix(counts[i])));
+		}
+		return new DnaTimeseriesDTO(window, TimeUnit.MILLISECONDS.toSeconds(ring.bucketMillis()), 
+				totals[HUMAN], totals[MUTANT], totals[INVALID], sizeMix(totals), buckets);
+	}
+	
+	private void increment(long timeMillis, int slot) {
+		this.perSecond.increment(timeMillis, slot);
+		this.perMinute.increment(timeMillis, slot);
+	}
+	
+	/**
+	 * @param window a number followed by s (seconds), m (minutes) or h (hours)
+	 * @return the window length in seconds.
+	 * @throws IllegalArgumentException if the window is not valid
+	 */
+	private static long parseWindow(String window) {
+		Matcher matcher = WINDOW.matcher(window);
+		if (!matcher.matches() || Long.parseLong(matcher.group(1)) == 0) {
+			throw new IllegalArgumentException("Invalid window. Must be a positive number followed by s, m or h (e.g. 90s, 15m, 2h)");
+		}
+		long length = Long.parseLong(matcher.group(1));
+		switch (matcher.group(2)) {
+		case "h":
+			return TimeUnit.HOURS.toSeconds(length);
+		case "m":
+			return TimeUnit.MINUTES.toSeconds(length);
+		default:
+			return length;
+		}
+	}
+	
+	/**
+	 * @param size
+	 * @return the index of the size class of a NxN DNA, in {@link #SIZE_CLASSES}.
+	 */
+	private static int sizeClass(int size) {
+		// floor(log2(size)) - 2: 4..7 -> 0, 8..15 -> 1, ...
+		int log2 = 31 - Integer.numberOfLeadingZeros(Math.max(size, 4));
+		return Math.min(log2 - 2, SIZE_CLASSES.length - 1);
+	}
+	
+	private static Map<String, Long> sizeMix(long[] counts) {
+		Map<String, Long> sizeMix = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < SIZE_CLASSES.length; i++) {
+			sizeMix.put(SIZE_CLASSES[i], counts[SIZE_CLASS + i]);
+		}
+		return sizeMix;
+	}
+}
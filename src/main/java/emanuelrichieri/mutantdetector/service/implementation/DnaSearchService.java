@@ -0,0 +1,410 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.domain.repository.IDnaRepository;
+import emanuelrichieri.mutantdetector.io.DnaSearchDTO;
+import emanuelrichieri.mutantdetector.service.IDnaSearchService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.queue.WriteBehindQueue;
+import emanuelrichieri.mutantdetector.util.suffixtree.CompactGeneralizedSuffixTree;
+import emanuelrichieri.mutantdetector.util.suffixtree.ISearchableGeneralizedSuffixTree;
+import emanuelrichieri.mutantdetector.util.suffixtree.MappedGeneralizedSuffixTree;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Long-lived motif index over every stored DNA.
+ * 
+ * Every row of every DNA is a key of a single {@link CompactGeneralizedSuffixTree}, under the position 
+ * of the DNA in the index (the tree needs non-decreasing int indexes, while DNA ids are Long): 
+ * the positions found by the tree are translated back to DNA ids.
+ * 
+ * The index is built at startup reading the repository by pages of ids, and startup fails if it cannot be built.
+ * Then {@link DnaService} hands each new stored DNA to a background indexer thread, which inserts them in batches 
+ * (see {@link WriteBehindQueue}), so requests never wait for an insert: a new DNA is found once its batch is indexed. 
+ * If the queue is full, the DNA is indexed by the calling thread.
+ * Searches share a read lock, inserts take the write lock once per batch.
+ * 
+ * When a snapshot file is configured, the index built from the repository is saved there (the tree, plus 
+ * the DNA ids in a ".ids" file). Later startups map the snapshot read-only with {@link MappedGeneralizedSuffixTree}
+ * instead of rebuilding it, and only index in memory the DNA stored after it was written.
+ * When more than <code>mutantdetector.search.snapshot-refresh</code> DNA were stored after it, the index is built 
+ * again from the repository and the snapshot is rewritten. Delete the snapshot files to build it again.
+ * 
+ * A DNA with a lower id may be committed after a DNA with a greater id, so the greatest id of a snapshot does not
+ * tell which DNA it missed. The ids file also records a commit watermark: the DNA with ids up to it were all committed 
+ * when the snapshot was built (it is the greatest id of the snapshot it replaced, built at least one startup earlier).
+ * When loading a snapshot, the ids between its watermark and its greatest id are read (without loading the DNA) 
+ * and the ones not in the snapshot are indexed.
+ * 
+ * Both files are written to temporary files and then renamed. The ids file records the length of the tree file, 
+ * so a tree and an ids file of different snapshots (a crash between both renames) are detected and the index is rebuilt.
+ */
+@Service("dnaSearchService")
+public class DnaSearchService implements IDnaSearchService {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	private static final int IDS_MAGIC = 0x44494431; // "DID1"
+	
+	@Autowired
+	private IDnaRepository repository;
+	
+	@Value("${mutantdetector.search.default-limit:100}")
+	private int defaultLimit = 100;
+	
+	@Value("${mutantdetector.search.max-limit:1000}")
+	private int maxLimit = 1000;
+	
+	@Value("${mutantdetector.search.snapshot:}")
+	private String snapshotFile = "";
+	
+	@Value("${mutantdetector.search.page-size:1000}")
+	private int pageSize = 1000;
+	
+	@Value("${mutantdetector.search.snapshot-refresh:10000}")
+	private int snapshotRefresh = 10000;
+	
+	/**
+	 * Max DNA waiting to be indexed. 0 indexes each DNA on the thread that stored it.
+	 */
+	@Value("${mutantdetector.search.index-queue-capacity:10000}")
+	private int indexQueueCapacity = 10000;
+	
+	@Value("${mutantdetector.search.index-flush-size:500}")
+	private int indexFlushSize = 500;
+	
+	@Value("${mutantdetector.search.index-flush-interval-ms:100}")
+	private long indexFlushInterval = 100;
+	
+	private Logger logger = LoggerFactory.getLogger("DnaSearchService");
+	
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	/**
+	 * DNA loaded from the snapshot file, if any
+	 */
+	private ISearchableGeneralizedSuffixTree snapshot;
+	
+	/**
+	 * DNA indexed in memory
+	 */
+	private CompactGeneralizedSuffixTree index = new CompactGeneralizedSuffixTree();
+	
+	/**
+	 * DNA ids by position in the index
+	 */
+	private long[] ids = new long[INITIAL_CAPACITY];
+	
+	private int size = 0;
+	
+	/**
+	 * Commit watermark to write with the next snapshot
+	 */
+	private long committedId = 0;
+	
+	private WriteBehindQueue<Dna> indexQueue;
+	
+	/**
+	 * Indexes every DNA already stored, loading the snapshot if there is one, and starts the indexer thread.
+	 * @throws IllegalStateException if the stored DNA cannot be read, so searches never answer from a partial index
+	 */
+	@PostConstruct
+	public void buildIndex() {
+		lock.writeLock().lock();
+		try {
+			if (!this.loadSnapshot()) {
+				this.reset();
+				this.addStoredAfter(0L);
+				this.writeSnapshot();
+			}
+			logger.info("DNA search index built with " + size + " sequences");
+		} catch (RuntimeException ex) {
+			throw new IllegalStateException("Error building DNA search index", ex);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		if (indexQueueCapacity > 0) {
+			this.indexQueue = new WriteBehindQueue<Dna>("dna-search-indexer", indexQueueCapacity, 
+					indexFlushSize, indexFlushInterval, this::indexAll);
+		}
+	}
+	
+	/**
+	 * Indexes the queued DNA before returning.
+	 */
+	@PreDestroy
+	public void stopIndexer() throws InterruptedException {
+		if (Objects.nonNull(this.indexQueue)) {
+			this.indexQueue.close();
+			this.indexQueue = null;
+		}
+	}
+	
+	@Override
+	public void index(Dna dna) {
+		if (Objects.isNull(dna) || Objects.isNull(dna.getId()) || Objects.isNull(dna.getDnaSequence())) {
+			return;
+		}
+		WriteBehindQueue<Dna> queue = this.indexQueue;
+		if (Objects.nonNull(queue) && queue.offer(dna)) {
+			return;
+		}
+		this.indexAll(Collections.singletonList(dna));
+	}
+	
+	private void indexAll(List<Dna> batch) {
+		lock.writeLock().lock();
+		try {
+			for (Dna dna : batch) {
+				this.add(dna);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	@Override
+	public DnaSearchDTO search(String motif, Integer limit) throws InvalidDnaException {
+		validateMotif(motif);
+		int maxResults = Objects.isNull(limit) ? defaultLimit : limit;
+		if (maxResults < 1) {
+			throw new InvalidDnaException("Invalid limit. Must be greater than 0");
+		}
+		maxResults = Math.min(maxResults, maxLimit);
+		
+		lock.readLock().lock();
+		try {
+			BitSet positions = index.searchIndexes(motif);
+			if (Objects.nonNull(snapshot)) {
+				positions.or(snapshot.searchIndexes(motif));
+			}
+			List<Long> result = new ArrayList<Long>(Math.min(maxResults, positions.cardinality()));
+			for (int i = positions.nextSetBit(0); i >= 0 && result.size() < maxResults; i = positions.nextSetBit(i + 1)) {
+				result.add(ids[i]);
+			}
+			return new DnaSearchDTO(motif, positions.cardinality(), result);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Must be called holding the write lock.
+	 */
+	private void add(Dna dna) {
+		for (String row : dna.getDnaSequence()) {
+			if (!isSequence(row)) {
+				logger.warn("DNA " + dna.getId() + " not indexed: invalid sequence");
+				return;
+			}
+		}
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		ids[size] = dna.getId();
+		for (String row : dna.getDnaSequence()) {
+			index.insert(row, size);
+		}
+		size++;
+	}
+	
+	/**
+	 * Adds the DNA stored after the given id, reading them by pages of <code>mutantdetector.search.page-size</code>
+	 * so only one page is loaded at a time.
+	 * Must be called holding the write lock.
+	 */
+	private void addStoredAfter(long lastId) {
+		PageRequest page = PageRequest.of(0, pageSize);
+		List<Dna> found;
+		do {
+			found = this.repository.findByIdGreaterThanOrderById(lastId, page);
+			for (Dna dna : found) {
+				this.add(dna);
+				lastId = dna.getId();
+			}
+		} while (found.size() == pageSize);
+	}
+	
+	/**
+	 * Maps the snapshot, if it is configured and exists, and indexes the DNA it missed.
+	 * Must be called holding the write lock.
+	 * @return <code>false</code> if there is no valid snapshot to load, or it must be rewritten
+	 */
+	private boolean loadSnapshot() {
+		Path treeFile = Paths.get(snapshotFile);
+		if (snapshotFile.isEmpty() || !Files.exists(treeFile) || !Files.exists(idsFile())) {
+			return false;
+		}
+		try {
+			MappedGeneralizedSuffixTree mapped = MappedGeneralizedSuffixTree.open(treeFile);
+			long watermark = this.readIds(Files.size(treeFile));
+			if (mapped.computeCount() > 0 && mapped.getLastIndex() >= size) {
+				throw new IOException("DNA search snapshot and ids file do not match");
+			}
+			this.snapshot = mapped;
+			int loaded = size;
+			long lastId = 0;
+			for (int i = 0; i < size; i++) {
+				lastId = Math.max(lastId, ids[i]);
+			}
+			this.addCommittedLate(watermark, lastId);
+			this.addStoredAfter(lastId);
+			this.committedId = lastId;
+			if (size - loaded > snapshotRefresh) {
+				logger.info("DNA search snapshot missed " + (size - loaded) + " sequences, rewriting it");
+				return false;
+			}
+			logger.info("DNA search snapshot loaded with " + size + " sequences");
+			return true;
+		} catch (IOException ex) {
+			logger.error("Error loading DNA search snapshot, building it again", ex);
+			this.committedId = 0;
+			return false;
+		}
+	}
+	
+	/**
+	 * Indexes the DNA with ids between the watermark and the greatest id of the loaded snapshot that are not in it: 
+	 * the ones committed after the snapshot was built.
+	 * Must be called holding the write lock.
+	 */
+	private void addCommittedLate(long watermark, long lastId) {
+		long[] indexed = Arrays.copyOf(ids, size);
+		Arrays.sort(indexed);
+		PageRequest page = PageRequest.of(0, pageSize);
+		List<Long> missing = new ArrayList<Long>();
+		List<Long> found;
+		do {
+			found = this.repository.findIdsBetween(watermark, lastId, page);
+			for (Long id : found) {
+				if (Arrays.binarySearch(indexed, id) < 0) {
+					missing.add(id);
+				}
+				watermark = id;
+			}
+		} while (found.size() == pageSize);
+		for (int from = 0; from < missing.size(); from += pageSize) {
+			for (Dna dna : this.repository.findAllById(missing.subList(from, Math.min(from + pageSize, missing.size())))) {
+				this.add(dna);
+			}
+		}
+	}
+	
+	/**
+	 * Drops everything indexed, to build the index again.
+	 * Must be called holding the write lock.
+	 */
+	private void reset() {
+		this.snapshot = null;
+		this.index = new CompactGeneralizedSuffixTree();
+		this.ids = new long[INITIAL_CAPACITY];
+		this.size = 0;
+	}
+	
+	/**
+	 * Saves the in-memory index to the snapshot file, if it is configured.
+	 * Both files are written to temporary files first, and then renamed.
+	 * Must be called holding the write lock.
+	 */
+	private void writeSnapshot() {
+		if (snapshotFile.isEmpty()) {
+			return;
+		}
+		Path treeFile = Paths.get(snapshotFile);
+		Path temporaryTree = Paths.get(snapshotFile + ".new");
+		Path temporaryIds = Paths.get(snapshotFile + ".ids.new");
+		try {
+			this.index.writeSnapshot(temporaryTree);
+			this.writeIds(temporaryIds, Files.size(temporaryTree));
+			Files.move(temporaryTree, treeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.move(temporaryIds, idsFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			logger.error("Error writing DNA search snapshot", ex);
+		}
+	}
+	
+	/**
+	 * Reads the ids of the snapshot file, as the first positions of the index.
+	 * @param treeLength length of the tree file, which must be the one recorded in the ids file
+	 * @return the commit watermark of the snapshot
+	 */
+	private long readIds(long treeLength) throws IOException {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(idsFile())))) {
+			if (input.readInt() != IDS_MAGIC || input.readLong() != treeLength) {
+				throw new IOException("DNA search snapshot and ids file do not match");
+			}
+			long watermark = input.readLong();
+			int count = input.readInt();
+			ids = new long[Math.max(INITIAL_CAPACITY, count)];
+			for (size = 0; size < count; size++) {
+				ids[size] = input.readLong();
+			}
+			return watermark;
+		}
+	}
+	
+	/**
+	 * Ids file format (big-endian): IDS_MAGIC, tree file length, commit watermark, DNA count, and the DNA ids by position.
+	 */
+	private void writeIds(Path file, long treeLength) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			output.writeInt(IDS_MAGIC);
+			output.writeLong(treeLength);
+			output.writeLong(committedId);
+			output.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				output.writeLong(ids[i]);
+			}
+		}
+	}
+	
+	private Path idsFile() {
+		return Paths.get(snapshotFile + ".ids");
+	}
+	
+	private static void validateMotif(String motif) throws InvalidDnaException {
+		if (Objects.isNull(motif) || motif.isEmpty()) {
+			throw new InvalidDnaException("Motif cannot be empty.");
+		}
+		if (!isSequence(motif)) {
+			throw new InvalidDnaException("Invalid character in the given motif ");
+		}
+	}
+	
+	private static boolean isSequence(String sequence) {
+		for (int i = 0; i < sequence.length(); i++) {
+			if (!DnaValidator.isAllowed(sequence.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
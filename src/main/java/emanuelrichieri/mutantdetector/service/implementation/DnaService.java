@@ -1,22 +1,51 @@
 package emanuelrichieri.mutantdetector.service.implementation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import emanuelrichieri.mutantdetector.domain.entities.Dna;
 import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.domain.repository.DnaUpsertResult;
+import emanuelrichieri.mutantdetector.domain.repository.IDnaBatchRepository;
 import emanuelrichieri.mutantdetector.domain.repository.IDnaRepository;
+import emanuelrichieri.mutantdetector.io.DnaBatchDTO;
+import emanuelrichieri.mutantdetector.io.DnaBatchResultDTO;
+import emanuelrichieri.mutantdetector.io.DnaCacheStatsDTO;
 import emanuelrichieri.mutantdetector.io.DnaDTO;
 import emanuelrichieri.mutantdetector.io.DnaStatsDTO;
+import emanuelrichieri.mutantdetector.service.IDnaMetricsService;
+import emanuelrichieri.mutantdetector.service.IDnaSearchService;
 import emanuelrichieri.mutantdetector.service.IDnaService;
 import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.cache.WeightedLruCache;
+import emanuelrichieri.mutantdetector.util.converter.StringArrayConverter;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaDigest;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.queue.WriteBehindQueue;
 
 @Service("dnaService")
 public class DnaService implements IDnaService {
@@ -24,26 +53,260 @@ public class DnaService implements IDnaService {
 	@Autowired
 	private IDnaRepository repository;
 	
+	@Autowired
+	private IDnaBatchRepository batchRepository;
+	
 	@Autowired
 	private IMutantDetectorService mutantDetectorService;
 	
+	@Autowired
+	private IDnaSearchService dnaSearchService;
+	
+	@Autowired
+	private IDnaMetricsService metricsService;
+	
 	private Logger logger = LoggerFactory.getLogger("DnaService");
 	
+	/**
+	 * Max number of DNA sequences looked up by a single IN query.
+	 */
+	public static final int LOOKUP_CHUNK_SIZE = 1000;
+	
+	/**
+	 * Number of threads classifying the DNA of a batch.
+	 */
+	@Value("${mutantdetector.batch.threads:4}")
+	private int batchThreads = 4;
+	
+	/**
+	 * Max number of DNA accepted in a single batch.
+	 */
+	@Value("${mutantdetector.batch.max-size:10000}")
+	private int batchMaxSize = 10000;
+	
+	/**
+	 * When enabled, classifications are queued and stored in background batches 
+	 * instead of being stored before answering.
+	 */
+	@Value("${mutantdetector.write-behind.enabled:false}")
+	private boolean writeBehindEnabled = false;
+	
+	/**
+	 * Max number of classifications waiting to be stored. When full, classifications are stored synchronously.
+	 */
+	@Value("${mutantdetector.write-behind.queue-capacity:10000}")
+	private int writeBehindCapacity = 10000;
+	
+	/**
+	 * Max number of classifications stored in a single transaction.
+	 */
+	@Value("${mutantdetector.write-behind.flush-size:500}")
+	private int writeBehindFlushSize = 500;
+	
+	/**
+	 * Max milliseconds a queued classification waits for its batch to fill.
+	 */
+	@Value("${mutantdetector.write-behind.flush-interval-ms:200}")
+	private long writeBehindFlushInterval = 200;
+	
+	/**
+	 * When enabled, classifications are cached by content, so repeated DNA are answered 
+	 * without running the detector nor querying the database.
+	 */
+	@Value("${mutantdetector.cache.enabled:true}")
+	private boolean cacheEnabled = true;
+	
+	/**
+	 * Max number of cached classifications.
+	 */
+	@Value("${mutantdetector.cache.max-entries:100000}")
+	private int cacheMaxEntries = 100000;
+	
+	/**
+	 * Max memory used by the cached classifications, in bytes. Each entry keeps its packed DNA.
+	 */
+	@Value("${mutantdetector.cache.max-bytes:67108864}")
+	private long cacheMaxBytes = 67108864;
+	
+	/**
+	 * Number of independently locked segments of the cache, each one with its share of both bounds.
+	 */
+	@Value("${mutantdetector.cache.segments:16}")
+	private int cacheSegments = 16;
+	
+	/**
+	 * Estimated bytes taken by a cache entry besides its packed words: digest, map node and object headers.
+	 */
+	public static final int CACHE_ENTRY_OVERHEAD = 128;
+	
+	/**
+	 * Milliseconds between reconciliations of the in-memory stats with the DNA stored in the database. 
+	 * 0 disables the periodic reconciliation: stats are only counted from the database at startup.
+	 */
+	@Value("${mutantdetector.stats.reconcile-interval-ms:60000}")
+	private long statsReconcileInterval = 60000;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	private ExecutorService batchPool;
+	
+	private WriteBehindQueue<Dna> writeBehindQueue;
+	
+	private WeightedLruCache<DnaDigest, CachedClassification> classificationCache;
+	
+	/**
+	 * Number of stored DNA by classification. They are updated without locking each time a DNA is 
+	 * stored or reclassified, and periodically reconciled with the database, which also picks up
+	 * the DNA stored by other instances.
+	 */
+	private final LongAdder countHumanDna = new LongAdder();
+	
+	private final LongAdder countMutantDna = new LongAdder();
+	
+	private volatile boolean statsReconciled = false;
+	
+	/**
+	 * Last stats returned, shared by readers until the counters change.
+	 */
+	private volatile DnaStatsDTO statsSnapshot;
+	
+	private ScheduledExecutorService statsScheduler;
+	
+	@PostConstruct
+	public void start() {
+		this.startBatchPool();
+		this.startWriteBehind();
+		this.startCache();
+		this.startStats();
+	}
+	
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		this.stopStats();
+		this.stopWriteBehind();
+		this.stopBatchPool();
+	}
+	
+	public void startBatchPool() {
+		this.batchPool = Executors.newFixedThreadPool(batchThreads);
+	}
+	
+	public void stopBatchPool() {
+		this.batchPool.shutdown();
+	}
+	
+	public void startWriteBehind() {
+		if (writeBehindEnabled) {
+			this.writeBehindQueue = new WriteBehindQueue<Dna>("dna-write-behind", writeBehindCapacity, 
+					writeBehindFlushSize, writeBehindFlushInterval, this::writeBehind);
+		}
+	}
+	
+	public void startCache() {
+		if (cacheEnabled) {
+			this.classificationCache = new WeightedLruCache<DnaDigest, CachedClassification>(cacheMaxEntries, cacheMaxBytes, cacheSegments);
+		}
+	}
+	
+	/**
+	 * Counts the stored DNA and schedules the periodic reconciliation. 
+	 * If the database cannot be counted now, it is counted again on the first read.
+	 */
+	public void startStats() {
+		try {
+			this.reconcileStats();
+		} catch (RepositoryException ex) {
+			logger.warn("Stats will be counted on the first read. ", ex);
+		}
+		if (statsReconcileInterval > 0) {
+			this.statsScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "dna-stats-reconcile");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.statsScheduler.scheduleWithFixedDelay(() -> {
+				try {
+					this.reconcileStats();
+				} catch (RepositoryException ex) {
+					// already logged, the next run tries again
+				}
+			}, statsReconcileInterval, statsReconcileInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	public void stopStats() {
+		if (Objects.nonNull(this.statsScheduler)) {
+			this.statsScheduler.shutdownNow();
+			this.statsScheduler = null;
+		}
+	}
+	
+	/**
+	 * Stores every queued classification before returning.
+	 */
+	public void stopWriteBehind() throws InterruptedException {
+		if (Objects.nonNull(this.writeBehindQueue)) {
+			this.writeBehindQueue.close();
+			this.writeBehindQueue = null;
+		}
+	}
+	
+	/**
+	 * Returns the stats from the in-memory counters, without querying the database once they are reconciled.
+	 * The same snapshot is returned while the counters do not change.
+	 */
 	@Override
 	public DnaStatsDTO getStats() throws RepositoryException {
+		if (!statsReconciled) {
+			this.reconcileStats();
+		}
+		long countHumanDna = this.countHumanDna.sum();
+		long countMutantDna = this.countMutantDna.sum();
+		DnaStatsDTO snapshot = this.statsSnapshot;
+		if (Objects.isNull(snapshot) || snapshot.getCount_human_dna() != countHumanDna 
+				|| snapshot.getCount_mutant_dna() != countMutantDna) {
+			snapshot = new DnaStatsDTO(countHumanDna, countMutantDna);
+			this.statsSnapshot = snapshot;
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Sets the counters to the number of DNA stored in the database, by classification. 
+	 * Classifications counted while the database is queried may be counted twice until the next reconciliation.
+	 * @throws RepositoryException
+	 */
+	public synchronized void reconcileStats() throws RepositoryException {
+		long countedHumanDna = this.countHumanDna.sum();
+		long countedMutantDna = this.countMutantDna.sum();
+		long storedHumanDna;
+		long storedMutantDna;
 		try {
-			List<Dna> humanDna = this.repository.findByClassification(DnaClassification.HUMAN);
-			List<Dna> mutantDna = this.repository.findByClassification(DnaClassification.MUTANT);
-			Long countHumanDna = humanDna.stream().count();
-			Long countMutantDna = mutantDna.stream().count();
-			Double ratio =  countMutantDna / countHumanDna * 1.0;
-			
-			return new DnaStatsDTO(countHumanDna, countMutantDna, ratio);			
+			storedHumanDna = this.repository.countByClassification(DnaClassification.HUMAN);
+			storedMutantDna = this.repository.countByClassification(DnaClassification.MUTANT);
 		} catch (Exception ex) {
-			String msg = "Error getting DNA list";
+			String msg = "Error counting DNA";
 			logger.error(msg, ex);
 			throw new RepositoryException(msg, ex);
 		}
+		this.countHumanDna.add(storedHumanDna - countedHumanDna);
+		this.countMutantDna.add(storedMutantDna - countedMutantDna);
+		this.statsReconciled = true;
+	}
+	
+	/**
+	 * Updates the counters with a stored DNA.
+	 * @param classification its new classification
+	 * @param reclassified <code>true</code> if it was already stored with the other classification
+	 */
+	private void countClassification(DnaClassification classification, boolean reclassified) {
+		LongAdder added = classification == DnaClassification.MUTANT ? this.countMutantDna : this.countHumanDna;
+		added.increment();
+		if (reclassified) {
+			LongAdder removed = classification == DnaClassification.MUTANT ? this.countHumanDna : this.countMutantDna;
+			removed.decrement();
+		}
 	}
 
 	@Override
@@ -59,17 +322,354 @@ public class DnaService implements IDnaService {
 
 	@Override
 	public Boolean isMutant(DnaDTO dnaDTO) throws InvalidDnaException, RepositoryException {
+		Boolean isMutant;
+		try {
+			isMutant = this.classify(dnaDTO);
+		} catch (InvalidDnaException ex) {
+			this.metricsService.recordRejected();
+			throw ex;
+		}
+		this.metricsService.recordClassification(isMutant, dnaDTO.getDna().length);
+		return isMutant;
+	}
+	
+	@Override
+	public Boolean isMutantMatrix(DnaMatrix matrix) throws InvalidDnaException, RepositoryException {
+		Boolean isMutant;
+		try {
+			isMutant = this.classify(matrix);
+		} catch (InvalidDnaException ex) {
+			this.metricsService.recordRejected();
+			throw ex;
+		}
+		this.metricsService.recordClassification(isMutant, matrix.size());
+		return isMutant;
+	}
+	
+	/**
+	 * Classifies and stores a DNA, answering repeated ones from the cache.
+	 */
+	private Boolean classify(DnaDTO dnaDTO) throws InvalidDnaException, RepositoryException {
+		if (Objects.isNull(this.classificationCache)) {
+			Boolean isMutant = this.mutantDetectorService.isMutant(dnaDTO.getDna());
+			this.saveClassification(new Dna(dnaDTO.getDna(), classificationOf(isMutant)));
+			return isMutant;
+		}
+		DnaMatrix matrix = DnaMatrix.of(dnaDTO.getDna());
+		DnaDigest digest = DnaDigest.of(matrix);
+		Boolean cached = this.getCachedClassification(digest, matrix);
+		if (Objects.nonNull(cached)) {
+			return cached;
+		}
 		Boolean isMutant = this.mutantDetectorService.isMutant(dnaDTO.getDna());
-		DnaClassification classification = isMutant ? DnaClassification.MUTANT : DnaClassification.HUMAN;
-		
-		Dna dna = this.repository.findByDnaSequence(dnaDTO.getDna());
-		if (Objects.isNull(dna)) {
-			dna = new Dna(dnaDTO.getDna(), classification);
-		} else {
-			dna.setClassification(classification);
+		this.saveClassification(new Dna(matrix, digest, classificationOf(isMutant)));
+		this.cacheClassification(digest, matrix, isMutant);
+		return isMutant;
+	}
+	
+	/**
+	 * Classifies and stores a packed DNA, answering repeated ones from the cache.
+	 */
+	private Boolean classify(DnaMatrix matrix) throws InvalidDnaException, RepositoryException {
+		DnaDigest digest = DnaDigest.of(matrix);
+		if (Objects.nonNull(this.classificationCache)) {
+			Boolean cached = this.getCachedClassification(digest, matrix);
+			if (Objects.nonNull(cached)) {
+				return cached;
+			}
+		}
+		Boolean isMutant = this.mutantDetectorService.isMutantMatrix(matrix);
+		this.saveClassification(new Dna(matrix, digest, classificationOf(isMutant)));
+		if (Objects.nonNull(this.classificationCache)) {
+			this.cacheClassification(digest, matrix, isMutant);
 		}
-		this.save(dna);
 		return isMutant;
 	}
+	
+	@Override
+	public DnaCacheStatsDTO getCacheStats() {
+		WeightedLruCache<DnaDigest, CachedClassification> cache = this.classificationCache;
+		if (Objects.isNull(cache)) {
+			return new DnaCacheStatsDTO(false, 0, 0, 0L, 0L, 0L, 0L, 0L);
+		}
+		return new DnaCacheStatsDTO(true, cache.size(), cache.maxEntries(), cache.weight(), cache.maxWeight(), 
+				cache.hits(), cache.misses(), cache.evictions());
+	}
+	
+	/**
+	 * Looks up a classification in the cache. The packed content is compared as well, 
+	 * so a digest collision is counted as a miss instead of giving a wrong answer.
+	 * @return the cached classification (<code>true</code> if mutant), <code>null</code> if not cached.
+	 */
+	private Boolean getCachedClassification(DnaDigest digest, DnaMatrix matrix) {
+		CachedClassification cached = this.classificationCache.get(digest, 
+				entry -> entry.size == matrix.size() && Arrays.equals(entry.words, matrix.words()));
+		return Objects.isNull(cached) ? null : cached.isMutant;
+	}
+	
+	private void cacheClassification(DnaDigest digest, DnaMatrix matrix, Boolean isMutant) {
+		long[] words = matrix.words().clone();
+		this.classificationCache.put(digest, new CachedClassification(matrix.size(), words, isMutant), 
+				(long) words.length * Long.BYTES + CACHE_ENTRY_OVERHEAD);
+	}
+	
+	/**
+	 * Creates or updates the DNA entity with the given classification, with a single upsert statement
+	 * that leaves the stored DNA untouched if its classification did not change.
+	 * New DNA entities are added to the search index once stored.
+	 * In write-behind mode the classification is only queued, unless the queue is full.
+	 * @param dna the classified DNA, built from the matrix and digest already computed when there are
+	 * @throws RepositoryException
+	 */
+	private void saveClassification(Dna dna) throws RepositoryException {
+		WriteBehindQueue<Dna> queue = this.writeBehindQueue;
+		if (Objects.nonNull(queue) && queue.offer(dna)) {
+			return;
+		}
+		DnaUpsertResult result;
+		try {
+			result = this.batchRepository.upsert(dna);
+		} catch (Exception ex) {
+			String msg = "Error saving DNA. ";
+			logger.error(msg, ex);
+			throw new RepositoryException(msg, ex);
+		}
+		if (result.getOutcome() != DnaUpsertResult.Outcome.UNCHANGED) {
+			this.countClassification(dna.getClassification(), !result.isInserted());
+		}
+		if (result.isInserted()) {
+			dna.setId(result.getId());
+			this.dnaSearchService.index(dna);
+		}
+	}
+	
+	@Override
+	public DnaBatchDTO isMutantBatch(List<DnaDTO> dnaDTOs) throws InvalidDnaException, RepositoryException {
+		if (Objects.isNull(dnaDTOs) || dnaDTOs.isEmpty()) {
+			this.metricsService.recordRejected();
+			throw new InvalidDnaException("Dna batch cannot be empty.");
+		}
+		if (dnaDTOs.size() > batchMaxSize) {
+			this.metricsService.recordRejected();
+			throw new InvalidDnaException("Invalid batch size. Must be at most " + batchMaxSize);
+		}
+		int size = dnaDTOs.size();
+		String[][] sequences = new String[size][];
+		for (int i = 0; i < size; i++) {
+			sequences[i] = Objects.isNull(dnaDTOs.get(i)) ? null : dnaDTOs.get(i).getDna();
+		}
+		Boolean[] classifications = new Boolean[size];
+		String[] errors = new String[size];
+		this.classifyBatch(sequences, classifications, errors);
+		this.saveClassifications(sequences, classifications);
+		
+		List<DnaBatchResultDTO> results = new ArrayList<DnaBatchResultDTO>(size);
+		long countHumanDna = 0;
+		long countMutantDna = 0;
+		for (int i = 0; i < size; i++) {
+			if (Objects.isNull(classifications[i])) {
+				this.metricsService.recordRejected();
+				results.add(new DnaBatchResultDTO(null, errors[i]));
+				continue;
+			}
+			this.metricsService.recordClassification(classifications[i], sequences[i].length);
+			if (classifications[i]) {
+				countMutantDna++;
+				results.add(new DnaBatchResultDTO(DnaClassification.MUTANT.name(), null));
+			} else {
+				countHumanDna++;
+				results.add(new DnaBatchResultDTO(DnaClassification.HUMAN.name(), null));
+			}
+		}
+		return new DnaBatchDTO(countHumanDna, countMutantDna, size - countHumanDna - countMutantDna, results);
+	}
+	
+	/**
+	 * Classifies the given DNA on the batch pool, splitting them in one contiguous range per thread.
+	 * Invalid DNA are left unclassified, with the validation message as their error.
+	 * @param sequences
+	 * @param classifications filled with the result of each DNA, <code>null</code> if it is invalid
+	 * @param errors filled with the validation error of each invalid DNA
+	 */
+	private void classifyBatch(String[][] sequences, Boolean[] classifications, String[] errors) {
+		int rangeSize = (sequences.length + batchThreads - 1) / batchThreads;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(batchThreads);
+		for (int from = 0; from < sequences.length; from += rangeSize) {
+			final int start = from;
+			final int end = Math.min(from + rangeSize, sequences.length);
+			tasks.add(() -> {
+				for (int i = start; i < end; i++) {
+					try {
+						classifications[i] = this.mutantDetectorService.isMutant(sequences[i]);
+					} catch (InvalidDnaException ex) {
+						errors[i] = ex.getMessage();
+					}
+				}
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : this.batchPool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while classifying DNA batch", ex);
+		} catch (ExecutionException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+	
+	/**
+	 * Creates or updates the classified DNA of a batch (see {@link #writeAll(Map)}) in a single transaction.
+	 * New DNA entities are added to the search index once stored.
+	 * @param sequences
+	 * @param classifications
+	 * @throws RepositoryException
+	 */
+	private void saveClassifications(String[][] sequences, Boolean[] classifications) throws RepositoryException {
+		// keyed by the stored column value, so the same DNA is written once per batch
+		Map<String, Dna> pending = new LinkedHashMap<String, Dna>();
+		for (int i = 0; i < sequences.length; i++) {
+			if (Objects.nonNull(classifications[i])) {
+				DnaClassification classification = classificationOf(classifications[i]);
+				pending.putIfAbsent(key(sequences[i]), new Dna(sequences[i], classification));
+			}
+		}
+		try {
+			this.written(this.transactionTemplate.execute(status -> this.writeAll(pending)));
+		} catch (Exception ex) {
+			String msg = "Error saving DNA batch. ";
+			logger.error(msg, ex);
+			throw new RepositoryException(msg, ex);
+		}
+	}
+	
+	/**
+	 * Stores a batch of queued classifications in a single transaction.
+	 * DNA already stored, even by a concurrent write, are upserted instead of failing the batch.
+	 * Other errors are logged and the batch is discarded.
+	 * @param dnaList
+	 */
+	private void writeBehind(List<Dna> dnaList) {
+		Map<String, Dna> pending = new LinkedHashMap<String, Dna>();
+		for (Dna dna : dnaList) {
+			pending.putIfAbsent(key(dna.getDnaSequence()), dna);
+		}
+		try {
+			this.written(this.transactionTemplate.execute(status -> this.writeAll(pending)));
+		} catch (Exception ex) {
+			logger.error("Error saving " + dnaList.size() + " queued DNA. ", ex);
+		}
+	}
+	
+	/**
+	 * Stores the given DNA, keyed by their stored column value, with the batched upserts of the repository 
+	 * (see {@link IDnaBatchRepository#upsertAll(List)}), so a DNA stored concurrently does not fail the batch.
+	 * @param pending DNA to store.
+	 * @return the inserted and the updated DNA, as told by the upsert results.
+	 */
+	private WrittenDna writeAll(Map<String, Dna> pending) {
+		List<Dna> dnaList = new ArrayList<Dna>(pending.values());
+		List<DnaUpsertResult> results = this.batchRepository.upsertAll(dnaList);
+		List<Dna> inserted = new ArrayList<Dna>();
+		List<Dna> updated = new ArrayList<Dna>();
+		for (int i = 0; i < dnaList.size(); i++) {
+			if (results.get(i).getOutcome() == DnaUpsertResult.Outcome.INSERTED) {
+				inserted.add(dnaList.get(i));
+			} else if (results.get(i).getOutcome() == DnaUpsertResult.Outcome.UPDATED) {
+				updated.add(dnaList.get(i));
+			}
+		}
+		return new WrittenDna(inserted, updated);
+	}
+	
+	/**
+	 * Counts the given DNA, once their writes are committed, and adds the inserted ones to the search index.
+	 * @param written
+	 */
+	private void written(WrittenDna written) {
+		for (Dna dna : written.inserted) {
+			this.countClassification(dna.getClassification(), false);
+		}
+		for (Dna dna : written.updated) {
+			this.countClassification(dna.getClassification(), true);
+		}
+		this.index(written.inserted);
+	}
+	
+	/**
+	 * Adds the given DNA, once stored, to the search index. 
+	 * Their ids are read back with IN queries, since JDBC batches do not return them.
+	 * @param inserted
+	 */
+	private void index(List<Dna> inserted) {
+		for (List<String[]> chunk : chunks(inserted)) {
+			for (Dna stored : this.repository.findByDnaSequenceIn(chunk)) {
+				this.dnaSearchService.index(stored);
+			}
+		}
+	}
+	
+	private static DnaClassification classificationOf(Boolean isMutant) {
+		return isMutant ? DnaClassification.MUTANT : DnaClassification.HUMAN;
+	}
+	
+	private static String key(String[] dnaSequence) {
+		return String.join(StringArrayConverter.DELIMITER, dnaSequence);
+	}
+	
+	/**
+	 * Splits the sequences of the given DNA in lists of at most LOOKUP_CHUNK_SIZE elements.
+	 */
+	private static List<List<String[]>> chunks(Iterable<Dna> dnaList) {
+		List<List<String[]>> chunks = new ArrayList<List<String[]>>();
+		List<String[]> chunk = new ArrayList<String[]>(LOOKUP_CHUNK_SIZE);
+		for (Dna dna : dnaList) {
+			if (chunk.size() == LOOKUP_CHUNK_SIZE) {
+				chunks.add(chunk);
+				chunk = new ArrayList<String[]>(LOOKUP_CHUNK_SIZE);
+			}
+			chunk.add(dna.getDnaSequence());
+		}
+		if (!chunk.isEmpty()) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+	
+	/**
+	 * A cached classification, with the packed DNA it belongs to.
+	 */
+	private static class CachedClassification {
+		
+		private final int size;
+		
+		private final long[] words;
+		
+		private final Boolean isMutant;
+		
+		CachedClassification(int size, long[] words, Boolean isMutant) {
+			this.size = size;
+			this.words = words;
+			this.isMutant = isMutant;
+		}
+	}
+	
+	/**
+	 * The DNA stored by {@link DnaService#writeAll(Map)}: new ones, and stored ones whose classification changed.
+	 */
+	private static class WrittenDna {
+		
+		private final List<Dna> inserted;
+		
+		private final List<Dna> updated;
+		
+		WrittenDna(List<Dna> inserted, List<Dna> updated) {
+			this.inserted = inserted;
+			this.updated = updated;
+		}
+	}
 
 }
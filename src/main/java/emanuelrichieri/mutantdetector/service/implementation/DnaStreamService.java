@@ -0,0 +1,256 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.io.DnaDTO;
+import emanuelrichieri.mutantdetector.io.DnaStreamResultDTO;
+import emanuelrichieri.mutantdetector.service.IDnaService;
+import emanuelrichieri.mutantdetector.service.IDnaStreamService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+
+/**
+ * Classifies newline-delimited JSON DNA records on a shared pool, writing each result as soon as it is ready.
+ * 
+ * Each stream has at most <code>mutantdetector.stream.max-in-flight</code> records read but not written yet:
+ * once the limit is reached, no more input is read until a result is written, so a fast client 
+ * is slowed down by TCP flow control instead of being buffered in memory.
+ * Records longer than <code>mutantdetector.stream.max-line-length</code> characters are skipped 
+ * without buffering them, and answered with an error.
+ * 
+ * The pending results are always waited for before returning, also when reading fails (client abort) 
+ * or the thread is interrupted, so no result is written once the response is released.
+ */
+@Service("dnaStreamService")
+public class DnaStreamService implements IDnaStreamService {
+
+	private static final String MALFORMED = "Invalid DNA record. Expected {\"dna\": [\"...\", ...]}";
+	
+	private static final String TOO_LONG = "Invalid DNA record. Longer than ";
+	
+	private Logger logger = LoggerFactory.getLogger("DnaStreamService");
+	
+	@Autowired
+	private IDnaService dnaService;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	/**
+	 * Number of threads classifying the records of all the streams.
+	 */
+	@Value("${mutantdetector.stream.threads:4}")
+	private int threads = 4;
+	
+	/**
+	 * Max number of records of a single stream being classified or waiting to be written.
+	 */
+	@Value("${mutantdetector.stream.max-in-flight:64}")
+	private int maxInFlight = 64;
+	
+	/**
+	 * Max number of characters of a record.
+	 */
+	@Value("${mutantdetector.stream.max-line-length:1048576}")
+	private int maxLineLength = 1048576;
+	
+	private ExecutorService pool;
+	
+	@PostConstruct
+	public void startPool() {
+		this.pool = Executors.newFixedThreadPool(threads);
+	}
+	
+	@PreDestroy
+	public void stopPool() {
+		this.pool.shutdown();
+	}
+	
+	@Override
+	public long classify(InputStream input, OutputStream output) throws IOException {
+		LineReader reader = new LineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		AtomicReference<IOException> writeError = new AtomicReference<IOException>();
+		long records = 0;
+		long lineNumber = 0;
+		try {
+			String line;
+			// stop reading as soon as a result cannot be written, the client is gone
+			while (Objects.isNull(writeError.get()) && (line = reader.readLine()) != null) {
+				lineNumber++;
+				if (!reader.isTooLong() && line.trim().isEmpty()) {
+					continue;
+				}
+				inFlight.acquire();
+				final long number = lineNumber;
+				final String record = reader.isTooLong() ? null : line;
+				try {
+					this.pool.execute(() -> {
+						try {
+							DnaStreamResultDTO result = Objects.isNull(record) 
+									? new DnaStreamResultDTO(number, null, TOO_LONG + maxLineLength + " characters")
+									: this.classify(number, record);
+							this.write(output, result, writeError);
+						} finally {
+							inFlight.release();
+						}
+					});
+				} catch (RuntimeException ex) {
+					inFlight.release();
+					throw ex;
+				}
+				records++;
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while classifying DNA stream");
+		} finally {
+			// wait for the pending results, which write to the output
+			inFlight.acquireUninterruptibly(maxInFlight);
+		}
+		if (Objects.nonNull(writeError.get())) {
+			throw writeError.get();
+		}
+		return records;
+	}
+	
+	/**
+	 * Classifies and stores a single record.
+	 * @param lineNumber
+	 * @param record JSON DNA record
+	 * @return the classification of the record, or the error found processing it.
+	 */
+	private DnaStreamResultDTO classify(long lineNumber, String record) {
+		try {
+			DnaDTO dnaDTO = this.objectMapper.readValue(record, DnaDTO.class);
+			if (Objects.isNull(dnaDTO)) {
+				throw new InvalidDnaException("Dna cannot be null.");
+			}
+			DnaClassification classification = this.dnaService.isMutant(dnaDTO) ? DnaClassification.MUTANT : DnaClassification.HUMAN;
+			return new DnaStreamResultDTO(lineNumber, classification.name(), null);
+		} catch (JsonProcessingException ex) {
+			return new DnaStreamResultDTO(lineNumber, null, MALFORMED);
+		} catch (InvalidDnaException | RepositoryException ex) {
+			return new DnaStreamResultDTO(lineNumber, null, ex.getMessage());
+		} catch (Exception ex) {
+			logger.error(ex.getMessage(), ex);
+			return new DnaStreamResultDTO(lineNumber, null, "Error classifying DNA record");
+		}
+	}
+	
+	/**
+	 * Writes a result line and flushes it. Results of a stream are written one at a time.
+	 * The first error found is kept in <code>writeError</code> and the following results are discarded.
+	 */
+	private void write(OutputStream output, DnaStreamResultDTO result, AtomicReference<IOException> writeError) {
+		synchronized (output) {
+			if (Objects.nonNull(writeError.get())) {
+				return;
+			}
+			try {
+				output.write(this.objectMapper.writeValueAsBytes(result));
+				output.write('\n');
+				output.flush();
+			} catch (IOException ex) {
+				logger.error(ex.getMessage(), ex);
+				writeError.compareAndSet(null, ex);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the lines of a stream, keeping at most <code>maxLength</code> characters of each one: 
+	 * the rest of a longer line is skipped up to its end. Lines end with '\n', and '\r' is ignored.
+	 */
+	private static class LineReader {
+		
+		private final Reader reader;
+		
+		private final int maxLength;
+		
+		private final char[] buffer = new char[8192];
+		
+		private int position = 0;
+		
+		private int limit = 0;
+		
+		private final StringBuilder line = new StringBuilder();
+		
+		private boolean tooLong;
+		
+		LineReader(Reader reader, int maxLength) {
+			this.reader = reader;
+			this.maxLength = maxLength;
+		}
+		
+		/**
+		 * @return the next line, <code>null</code> at the end of the stream. Its content is not kept if it is too long.
+		 */
+		String readLine() throws IOException {
+			line.setLength(0);
+			tooLong = false;
+			boolean read = false;
+			while (position < limit || this.fill()) {
+				read = true;
+				char c = buffer[position++];
+				if (c == '\n') {
+					return this.line();
+				}
+				if (c == '\r') {
+					continue;
+				}
+				if (line.length() < maxLength) {
+					line.append(c);
+				} else {
+					tooLong = true;
+				}
+			}
+			return read ? this.line() : null;
+		}
+		
+		/**
+		 * Whether the last line read was longer than the max length.
+		 */
+		boolean isTooLong() {
+			return tooLong;
+		}
+		
+		private String line() {
+			return tooLong ? "" : line.toString();
+		}
+		
+		private boolean fill() throws IOException {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit < 0) {
+				limit = 0;
+				return false;
+			}
+			return true;
+		}
+	}
+}
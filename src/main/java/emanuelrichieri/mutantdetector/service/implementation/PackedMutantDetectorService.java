@@ -0,0 +1,51 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.matrix.SequenceMatches;
+import emanuelrichieri.mutantdetector.util.matrix.SwarRunScanner;
+
+/**
+ * Detects mutant DNA packing the matrix with 2 bits per base ({@link DnaMatrix}) and
+ * finding runs of equal bases a whole word at a time ({@link SwarRunScanner}).
+ * 
+ * Follows the same rules as {@link MutantDetectorService}.
+ * Enabled with <code>mutantdetector.engine=packed</code>.
+ */
+@Service("packedMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "packed")
+public class PackedMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("PackedMutantDetectorService");
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		DnaMatrix matrix;
+		try {
+			matrix = DnaMatrix.of(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		return this.isMutantMatrix(matrix);
+	}
+	
+	/**
+	 * Determines if an already packed DNA belongs to a mutant.
+	 * @param matrix
+	 * @return <code>true</code> if at least MATCHING_SEQUENCES_NEEDED sequences are found, <code>false</code> otherwise.
+	 */
+	@Override
+	public Boolean isMutantMatrix(DnaMatrix matrix) {
+		SequenceMatches matches = new SequenceMatches(MATCHING_SEQUENCES_NEEDED);
+		return SwarRunScanner.scan(matrix, 0, matrix.size(), matches);
+	}
+}
@@ -0,0 +1,125 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.matrix.SequenceMatches;
+import emanuelrichieri.mutantdetector.util.matrix.SwarRunScanner;
+
+/**
+ * Detects mutant DNA scanning bands of rows of a {@link DnaMatrix} in parallel on a {@link ForkJoinPool}.
+ * 
+ * Each band scans the sequences starting in its rows, reading up to three rows past its end
+ * (VALID_SEQUENCE_LENGTH - 1), so sequences crossing the edge between two bands are still found.
+ * All bands share a {@link SequenceMatches}: once MATCHING_SEQUENCES_NEEDED sequences are found
+ * the pending bands are skipped and the running ones stop at their next row.
+ * 
+ * Matrices smaller than <code>mutantdetector.parallel.threshold</code> are scanned on the calling thread.
+ * Follows the same rules as {@link MutantDetectorService}.
+ * Enabled with <code>mutantdetector.engine=parallel</code>.
+ */
+@Service("parallelMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "parallel")
+public class ParallelMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("ParallelMutantDetectorService");
+	
+	/**
+	 * Minimum N of a NxN matrix to be scanned in parallel.
+	 */
+	@Value("${mutantdetector.parallel.threshold:1000}")
+	private int threshold = 1000;
+	
+	/**
+	 * Minimum number of rows scanned by a single task.
+	 */
+	@Value("${mutantdetector.parallel.band-rows:64}")
+	private int bandRows = 64;
+	
+	private final ForkJoinPool pool = new ForkJoinPool();
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		DnaMatrix matrix;
+		try {
+			matrix = DnaMatrix.of(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		return this.isMutantMatrix(matrix);
+	}
+	
+	/**
+	 * Determines if an already packed DNA belongs to a mutant.
+	 * @param matrix
+	 * @return <code>true</code> if at least MATCHING_SEQUENCES_NEEDED sequences are found, <code>false</code> otherwise.
+	 */
+	@Override
+	public Boolean isMutantMatrix(DnaMatrix matrix) {
+		SequenceMatches matches = new SequenceMatches(MATCHING_SEQUENCES_NEEDED);
+		int size = matrix.size();
+		if (size < threshold) {
+			return SwarRunScanner.scan(matrix, 0, size, matches);
+		}
+		// split in about four bands per worker, so that idle workers can steal from slow ones
+		int rowsPerBand = Math.max(bandRows, size / (4 * pool.getParallelism()));
+		pool.invoke(new BandTask(matrix, 0, size, rowsPerBand, matches));
+		return matches.isComplete();
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	/**
+	 * Scans the sequences starting in rows <tt>[fromRow, toRow)</tt>, 
+	 * splitting the band in halves while it is bigger than <tt>rowsPerBand</tt>.
+	 */
+	private static class BandTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		
+		private final DnaMatrix matrix;
+		private final int fromRow;
+		private final int toRow;
+		private final int rowsPerBand;
+		private final SequenceMatches matches;
+		
+		BandTask(DnaMatrix matrix, int fromRow, int toRow, int rowsPerBand, SequenceMatches matches) {
+			this.matrix = matrix;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.rowsPerBand = rowsPerBand;
+			this.matches = matches;
+		}
+		
+		@Override
+		protected void compute() {
+			if (matches.isComplete()) {
+				return;
+			}
+			if (toRow - fromRow <= rowsPerBand) {
+				SwarRunScanner.scan(matrix, fromRow, toRow, matches);
+				return;
+			}
+			int middle = (fromRow + toRow) >>> 1;
+			invokeAll(new BandTask(matrix, fromRow, middle, rowsPerBand, matches), 
+					new BandTask(matrix, middle, toRow, rowsPerBand, matches));
+		}
+	}
+}
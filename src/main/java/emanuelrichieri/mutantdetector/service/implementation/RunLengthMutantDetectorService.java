@@ -0,0 +1,108 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.VALID_SEQUENCE_LENGTH;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Detects mutant DNA by scanning the matrix in place, counting runs of equal bases
+ * horizontally, vertically and obliquely, without building any intermediate sequence.
+ * 
+ * It follows the same rules as {@link MutantDetectorService}: every line (row, column or diagonal
+ * of length >= VALID_SEQUENCE_LENGTH) contributes at most one match per base, and the scan
+ * stops as soon as MATCHING_SEQUENCES_NEEDED matches are found.
+ * 
+ * Enabled with <code>mutantdetector.engine=run-length</code>.
+ */
+@Service("runLengthMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "run-length")
+public class RunLengthMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("RunLengthMutantDetectorService");
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		try {
+			DnaValidator.validate(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		
+		int size = dna.length;
+		int matchesCount = 0;
+		for (int i = 0; i < size; i++) {
+			// row i
+			matchesCount += countMatches(dna, i, 0, 0, 1, MATCHING_SEQUENCES_NEEDED - matchesCount);
+			if (matchesCount >= MATCHING_SEQUENCES_NEEDED) {
+				return true;
+			}
+			// column i
+			matchesCount += countMatches(dna, 0, i, 1, 0, MATCHING_SEQUENCES_NEEDED - matchesCount);
+			if (matchesCount >= MATCHING_SEQUENCES_NEEDED) {
+				return true;
+			}
+			if (i <= size - VALID_SEQUENCE_LENGTH) {
+				// diagonal starting at first row, column i
+				matchesCount += countMatches(dna, 0, i, 1, 1, MATCHING_SEQUENCES_NEEDED - matchesCount);
+				if (matchesCount >= MATCHING_SEQUENCES_NEEDED) {
+					return true;
+				}
+				// diagonal starting at row i, first column
+				if (i > 0) {
+					matchesCount += countMatches(dna, i, 0, 1, 1, MATCHING_SEQUENCES_NEEDED - matchesCount);
+					if (matchesCount >= MATCHING_SEQUENCES_NEEDED) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Walks a line of the matrix counting runs of equal bases.
+	 * Each base is counted once per line, no matter how many runs of it the line contains.
+	 * 
+	 * @param dna the validated NxN matrix
+	 * @param row starting row
+	 * @param column starting column
+	 * @param rowStep row increment for each step
+	 * @param columnStep column increment for each step
+	 * @param matchesNeeded the walk stops once this number of matches is reached
+	 * @return the number of distinct bases with a run of at least VALID_SEQUENCE_LENGTH in the line
+	 */
+	private int countMatches(String[] dna, int row, int column, int rowStep, int columnStep, int matchesNeeded) {
+		int size = dna.length;
+		int matches = 0;
+		// bit set of chars already matched in this line (A, C, G, T have distinct low bits)
+		int matchedMask = 0;
+		char previous = 0;
+		int runLength = 0;
+		while (row < size && column < size) {
+			char current = dna[row].charAt(column);
+			runLength = current == previous ? runLength + 1 : 1;
+			previous = current;
+			if (runLength == VALID_SEQUENCE_LENGTH) {
+				int bit = 1 << (current & 0x1F);
+				if ((matchedMask & bit) == 0) {
+					matchedMask |= bit;
+					if (++matches >= matchesNeeded) {
+						return matches;
+					}
+				}
+			}
+			row += rowStep;
+			column += columnStep;
+		}
+		return matches;
+	}
+}
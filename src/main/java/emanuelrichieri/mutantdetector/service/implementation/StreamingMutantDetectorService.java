@@ -0,0 +1,74 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IStreamingMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.RollingRunDetector;
+
+/**
+ * Detects mutant DNA reading its rows one at a time with a {@link RollingRunDetector},
+ * so memory is O(N) instead of O(N²).
+ * 
+ * Reading stops as soon as MATCHING_SEQUENCES_NEEDED sequences are found: the remaining rows
+ * are neither read nor validated.
+ */
+@Service("streamingMutantDetectorService")
+public class StreamingMutantDetectorService implements IStreamingMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("StreamingMutantDetectorService");
+	
+	@Override
+	public Boolean isMutant(Iterator<? extends CharSequence> rows) throws InvalidDnaException {
+		try {
+			if (Objects.isNull(rows)) {
+				throw new InvalidDnaException("Dna cannot be null.");
+			}
+			RollingRunDetector detector = new RollingRunDetector(MATCHING_SEQUENCES_NEEDED);
+			while (rows.hasNext()) {
+				if (detector.acceptRow(rows.next())) {
+					return true;
+				}
+			}
+			return detector.finish();
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+	}
+
+	@Override
+	public Boolean isMutant(InputStream input) throws InvalidDnaException, IOException {
+		try {
+			if (Objects.isNull(input)) {
+				throw new InvalidDnaException("Dna cannot be null.");
+			}
+			InputStream buffered = input instanceof BufferedInputStream ? input : new BufferedInputStream(input);
+			RollingRunDetector detector = new RollingRunDetector(MATCHING_SEQUENCES_NEEDED);
+			int c;
+			while ((c = buffered.read()) != -1) {
+				if (c == '\r') {
+					continue;
+				}
+				boolean mutant = c == '\n' ? detector.endRow() : detector.accept(c);
+				if (mutant) {
+					return true;
+				}
+			}
+			return detector.finish();
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package emanuelrichieri.mutantdetector.service.implementation;
+
+import static emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService.MATCHING_SEQUENCES_NEEDED;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import emanuelrichieri.mutantdetector.service.IMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.SequenceMatches;
+import emanuelrichieri.mutantdetector.util.matrix.VectorRunScanner;
+
+/**
+ * Detects mutant DNA comparing whole rows lane by lane with {@link VectorRunScanner}.
+ * 
+ * Follows the same rules as {@link MutantDetectorService}.
+ * Enabled with <code>mutantdetector.engine=vector</code>.
+ */
+@Service("vectorMutantDetectorService")
+@ConditionalOnProperty(name = "mutantdetector.engine", havingValue = "vector")
+public class VectorMutantDetectorService implements IMutantDetectorService {
+
+	private Logger logger = LoggerFactory.getLogger("VectorMutantDetectorService");
+	
+	@Override
+	public Boolean isMutant(String[] dna) throws InvalidDnaException {
+		VectorRunScanner scanner;
+		try {
+			scanner = VectorRunScanner.of(dna);
+		} catch (InvalidDnaException ex) {
+			logger.error(ex.getMessage(), ex);
+			throw ex;
+		}
+		return scanner.scan(0, scanner.size(), new SequenceMatches(MATCHING_SEQUENCES_NEEDED));
+	}
+}
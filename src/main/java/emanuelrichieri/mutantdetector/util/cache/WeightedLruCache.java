@@ -0,0 +1,228 @@
+package emanuelrichieri.mutantdetector.util.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A thread-safe LRU cache bounded both by number of entries and by total weight.
+ * 
+ * The weight of each entry is given by the caller when it is added (e.g. its size in bytes):
+ * least recently used entries are evicted until both bounds hold again.
+ * 
+ * The cache is split in segments by key hash, each one with its own lock and an even share of both bounds,
+ * so concurrent accesses to different segments do not wait for each other. The LRU order is kept per segment:
+ * the evicted entry is the least recently used of its segment, an approximation of the global LRU.
+ * Entries heavier than a whole segment are not stored.
+ * 
+ * Hits, misses and evictions are counted since the cache was created.
+ * 
+ * @param <K> keys
+ * @param <V> values
+ */
+public class WeightedLruCache<K, V> {
+	
+	private final int maxEntries;
+	
+	private final long maxWeight;
+	
+	private final Segment<K, V>[] segments;
+	
+	private final LongAdder hits = new LongAdder();
+	
+	private final LongAdder misses = new LongAdder();
+	
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * Creates a single segment cache: an exact LRU.
+	 */
+	public WeightedLruCache(int maxEntries, long maxWeight) {
+		this(maxEntries, maxWeight, 1);
+	}
+	
+	/**
+	 * @param segments number of segments, at most one per entry
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public WeightedLruCache(int maxEntries, long maxWeight, int segments) {
+		if (maxEntries < 1 || maxWeight < 1 || segments < 1) {
+			throw new IllegalArgumentException("The cache bounds and segments must be greater than 0.");
+		}
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		int count = Math.min(segments, maxEntries);
+		this.segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			// the remainders go to the first segments, so the bounds add up to the configured ones
+			this.segments[i] = new Segment<K, V>(maxEntries / count + (i < maxEntries % count ? 1 : 0),
+					maxWeight / count + (i < maxWeight % count ? 1 : 0));
+		}
+	}
+	
+	/**
+	 * Gets the value of the given key, making it the most recently used.
+	 * @param key
+	 * @return the cached value, <code>null</code> if the key is not cached.
+	 */
+	public V get(K key) {
+		return this.get(key, value -> true);
+	}
+	
+	/**
+	 * Gets the value of the given key if it is valid, making it the most recently used.
+	 * An invalid value (e.g. cached for a different object with an equal key) is counted as a miss.
+	 * @param key
+	 * @param valid tells whether the cached value can be returned
+	 * @return the cached value, <code>null</code> if the key is not cached or its value is not valid.
+	 */
+	public V get(K key, Predicate<V> valid) {
+		V value = this.segmentOf(key).get(key);
+		if (value == null || !valid.test(value)) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return value;
+	}
+	
+	/**
+	 * Adds or replaces the value of the given key, evicting least recently used entries of its segment if needed.
+	 * @param key
+	 * @param value
+	 * @param entryWeight weight of the value, must not change while cached
+	 * @return <code>false</code> if the entry is heavier than a whole segment and was not stored.
+	 */
+	public boolean put(K key, V value, long entryWeight) {
+		Segment<K, V> segment = this.segmentOf(key);
+		if (entryWeight > segment.maxWeight) {
+			return false;
+		}
+		evictions.add(segment.put(key, value, entryWeight));
+		return true;
+	}
+	
+	/**
+	 * Removes every entry. Counters are kept.
+	 */
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			segment.clear();
+		}
+	}
+	
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+	
+	public long weight() {
+		long weight = 0;
+		for (Segment<K, V> segment : segments) {
+			weight += segment.weight();
+		}
+		return weight;
+	}
+	
+	public long hits() {
+		return hits.sum();
+	}
+	
+	public long misses() {
+		return misses.sum();
+	}
+	
+	public long evictions() {
+		return evictions.sum();
+	}
+	
+	public int maxEntries() {
+		return maxEntries;
+	}
+	
+	public long maxWeight() {
+		return maxWeight;
+	}
+	
+	private Segment<K, V> segmentOf(K key) {
+		int hash = key.hashCode();
+		// spread the high bits, as HashMap does
+		return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+	}
+	
+	/**
+	 * An exact LRU over a share of the keys, guarded by its own monitor.
+	 */
+	private static class Segment<K, V> {
+		
+		private final int maxEntries;
+		
+		private final long maxWeight;
+		
+		/**
+		 * In access order: the first entry is the least recently used.
+		 */
+		private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		
+		private long weight = 0;
+		
+		Segment(int maxEntries, long maxWeight) {
+			this.maxEntries = maxEntries;
+			this.maxWeight = maxWeight;
+		}
+		
+		synchronized V get(K key) {
+			Entry<V> entry = entries.get(key);
+			return entry == null ? null : entry.value;
+		}
+		
+		/**
+		 * @return the number of entries evicted
+		 */
+		synchronized int put(K key, V value, long entryWeight) {
+			Entry<V> previous = entries.put(key, new Entry<V>(value, entryWeight));
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+			weight += entryWeight;
+			int evicted = 0;
+			Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+			while (entries.size() > maxEntries || weight > maxWeight) {
+				weight -= eldest.next().getValue().weight;
+				eldest.remove();
+				evicted++;
+			}
+			return evicted;
+		}
+		
+		synchronized void clear() {
+			entries.clear();
+			weight = 0;
+		}
+		
+		synchronized int size() {
+			return entries.size();
+		}
+		
+		synchronized long weight() {
+			return weight;
+		}
+	}
+	
+	private static class Entry<V> {
+		
+		private final V value;
+		
+		private final long weight;
+		
+		Entry(V value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package emanuelrichieri.mutantdetector.util.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Aho-Corasick automaton over the DNA alphabet, compiled once from a set of signatures,
+ * that finds the occurrences of all of them in a single pass over a text.
+ * 
+ * The automaton is a complete DFA: the failure links are folded into the transition table
+ * while it is built, so each char costs one array access no matter how many signatures there are.
+ * Each state keeps the ids of all the signatures that end there, its own and the ones of its
+ * failure chain (a signature id is its position in the array given to the constructor).
+ * 
+ * Usage: start from {@link #ROOT}, feed each char with {@link #next(int, char)}, and read
+ * the signatures ending at each state with {@link #matchCount(int)} and {@link #match(int, int)}.
+ * The automaton is immutable, so it can be shared by threads.
+ */
+public class AhoCorasickMatcher {
+
+	public static final int ROOT = 0;
+	
+	private static final int ALPHABET_SIZE = DnaValidator.ALLOWED_CHARACTERS.length();
+	
+	/**
+	 * Code for each char value, -1 if it is not part of the alphabet.
+	 */
+	private static final byte[] CODES = new byte[128];
+	
+	static {
+		Arrays.fill(CODES, (byte) -1);
+		for (int i = 0; i < ALPHABET_SIZE; i++) {
+			CODES[DnaValidator.ALLOWED_CHARACTERS.charAt(i)] = (byte) i;
+		}
+	}
+	
+	private final String[] signatures;
+	
+	private final int minLength;
+	
+	/**
+	 * ALPHABET_SIZE transitions per state
+	 */
+	private final int[] transitions;
+	
+	/**
+	 * The signatures ending at state s are matches[matchStarts[s]] ... matches[matchStarts[s + 1] - 1]
+	 */
+	private final int[] matchStarts;
+	private final int[] matches;
+	
+	/**
+	 * Compiles the automaton.
+	 * @param signatures the sequences to search for
+	 * @throws IllegalArgumentException if there are no signatures, or a signature is empty or contains not allowed characters
+	 */
+	public AhoCorasickMatcher(String... signatures) {
+		if (signatures == null || signatures.length == 0) {
+			throw new IllegalArgumentException("At least one signature is needed.");
+		}
+		this.signatures = signatures.clone();
+		
+		// trie
+		int[] goTo = new int[ALPHABET_SIZE * 16];
+		Arrays.fill(goTo, -1);
+		List<List<Integer>> outputs = new ArrayList<List<Integer>>();
+		outputs.add(new ArrayList<Integer>());
+		int states = 1;
+		int shortest = Integer.MAX_VALUE;
+		for (int id = 0; id < signatures.length; id++) {
+			String signature = signatures[id];
+			if (signature == null || signature.isEmpty()) {
+				throw new IllegalArgumentException("Signatures cannot be empty.");
+			}
+			shortest = Math.min(shortest, signature.length());
+			int state = ROOT;
+			for (int i = 0; i < signature.length(); i++) {
+				int code = code(signature.charAt(i));
+				if (code < 0) {
+					throw new IllegalArgumentException("Illegal character " + signature.charAt(i) + " in signature " + signature + ".");
+				}
+				if (goTo[state * ALPHABET_SIZE + code] < 0) {
+					if (states * ALPHABET_SIZE == goTo.length) {
+						int length = goTo.length;
+						goTo = Arrays.copyOf(goTo, length * 2);
+						Arrays.fill(goTo, length, goTo.length, -1);
+					}
+					goTo[state * ALPHABET_SIZE + code] = states++;
+					outputs.add(new ArrayList<Integer>());
+				}
+				state = goTo[state * ALPHABET_SIZE + code];
+			}
+			outputs.get(state).add(id);
+		}
+		this.minLength = shortest;
+		
+		// failure links, breadth first so that the failure of a state is always complete before the state
+		int[] fail = new int[states];
+		int[] queue = new int[states];
+		int head = 0;
+		int tail = 0;
+		for (int code = 0; code < ALPHABET_SIZE; code++) {
+			int child = goTo[ROOT * ALPHABET_SIZE + code];
+			if (child < 0) {
+				goTo[ROOT * ALPHABET_SIZE + code] = ROOT;
+			} else {
+				fail[child] = ROOT;
+				queue[tail++] = child;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			outputs.get(state).addAll(outputs.get(fail[state]));
+			for (int code = 0; code < ALPHABET_SIZE; code++) {
+				int child = goTo[state * ALPHABET_SIZE + code];
+				int fallback = goTo[fail[state] * ALPHABET_SIZE + code];
+				if (child < 0) {
+					goTo[state * ALPHABET_SIZE + code] = fallback;
+				} else {
+					fail[child] = fallback;
+					queue[tail++] = child;
+				}
+			}
+		}
+		this.transitions = Arrays.copyOf(goTo, states * ALPHABET_SIZE);
+		
+		this.matchStarts = new int[states + 1];
+		int total = 0;
+		for (int state = 0; state < states; state++) {
+			matchStarts[state] = total;
+			total += outputs.get(state).size();
+		}
+		matchStarts[states] = total;
+		this.matches = new int[total];
+		for (int state = 0; state < states; state++) {
+			for (int i = 0; i < outputs.get(state).size(); i++) {
+				matches[matchStarts[state] + i] = outputs.get(state).get(i);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the state reached from <tt>state</tt> reading <tt>c</tt>.
+	 * Chars out of the alphabet go back to the ROOT, as no signature contains them.
+	 */
+	public int next(int state, char c) {
+		int code = code(c);
+		return code < 0 ? ROOT : transitions[state * ALPHABET_SIZE + code];
+	}
+	
+	/**
+	 * Returns the number of signatures ending at the given state.
+	 */
+	public int matchCount(int state) {
+		return matchStarts[state + 1] - matchStarts[state];
+	}
+	
+	/**
+	 * Returns the id of the i-th signature ending at the given state, 0 <= i < matchCount(state).
+	 */
+	public int match(int state, int i) {
+		return matches[matchStarts[state] + i];
+	}
+	
+	/**
+	 * Returns the ids of the signatures found in the given text.
+	 */
+	public BitSet findAll(CharSequence text) {
+		BitSet found = new BitSet(signatures.length);
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			state = next(state, text.charAt(i));
+			for (int k = matchStarts[state]; k < matchStarts[state + 1]; k++) {
+				found.set(matches[k]);
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * Returns the number of signatures.
+	 */
+	public int size() {
+		return signatures.length;
+	}
+	
+	public String signature(int id) {
+		return signatures[id];
+	}
+	
+	/**
+	 * Returns the length of the shortest signature: shorter texts cannot contain any of them.
+	 */
+	public int minLength() {
+		return minLength;
+	}
+	
+	private static int code(char c) {
+		return c < CODES.length ? CODES[c] : -1;
+	}
+}
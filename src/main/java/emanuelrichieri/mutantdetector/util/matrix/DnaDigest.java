@@ -0,0 +1,90 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A 128 bits digest of the content of a {@link DnaMatrix}: the first half of the SHA-256 
+ * of its size followed by its packed words, so it does not depend on the text representation of the DNA.
+ */
+public final class DnaDigest {
+
+	public static final int BYTES = 16;
+	
+	private static final String ALGORITHM = "SHA-256";
+	
+	/**
+	 * Words hashed per update, so big matrices are not copied at once.
+	 */
+	private static final int CHUNK_WORDS = 1024;
+	
+	private final long high;
+	
+	private final long low;
+	
+	public DnaDigest(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+	
+	/**
+	 * Computes the digest of the given matrix.
+	 * @param matrix
+	 */
+	public static DnaDigest of(DnaMatrix matrix) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ALGORITHM + " not available", ex);
+		}
+		long[] words = matrix.words();
+		ByteBuffer buffer = ByteBuffer.allocate(Math.min(words.length, CHUNK_WORDS) * Long.BYTES + Integer.BYTES);
+		buffer.putInt(matrix.size());
+		for (int i = 0; i < words.length; i++) {
+			if (buffer.remaining() < Long.BYTES) {
+				digest.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+			buffer.putLong(words[i]);
+		}
+		digest.update(buffer.array(), 0, buffer.position());
+		ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+		return new DnaDigest(hash.getLong(), hash.getLong());
+	}
+	
+	public long getHigh() {
+		return high;
+	}
+	
+	public long getLow() {
+		return low;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DnaDigest)) {
+			return false;
+		}
+		DnaDigest other = (DnaDigest) obj;
+		return high == other.high && low == other.low;
+	}
+	
+	@Override
+	public int hashCode() {
+		// already uniformly distributed
+		return (int) low;
+	}
+	
+	/**
+	 * @return the digest as 32 lowercase hexadecimal digits.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+}
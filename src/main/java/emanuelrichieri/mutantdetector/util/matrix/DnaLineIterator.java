@@ -0,0 +1,86 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Lazily produces the lines (horizontal, vertical and oblique) of a NxN DNA matrix,
+ * direction by direction: every row, then every column, and finally every left-to-right
+ * diagonal long enough to contain a sequence of VALID_SEQUENCE_LENGTH bases.
+ *
+ * Each line is extracted only when it is requested, so a consumer that stops early
+ * does not pay for the lines it never reads. Columns and diagonals are copied through
+ * a single reusable char buffer; rows are returned as they are.
+ *
+ * The DNA is expected to be already validated (see {@link DnaValidator#validate(String[])}).
+ */
+public class DnaLineIterator implements Iterator<String> {
+
+	private final String[] dna;
+
+	private final int size;
+
+	private final int diagonals;
+
+	private final char[] buffer;
+
+	/**
+	 * Index of the next line: rows are [0, N), columns [N, 2N) and diagonals [2N, 2N + diagonals).
+	 */
+	private int next = 0;
+
+	public DnaLineIterator(String[] dna) {
+		this.dna = dna;
+		this.size = dna.length;
+		int diagonalsPerSide = Math.max(0, size - DnaValidator.VALID_SEQUENCE_LENGTH + 1);
+		// the main diagonal starts on both the first row and the first column, it is produced once
+		this.diagonals = diagonalsPerSide == 0 ? 0 : 2 * diagonalsPerSide - 1;
+		this.buffer = new char[size];
+	}
+
+	/**
+	 * @return the total number of lines this iterator produces.
+	 */
+	public int lineCount() {
+		return 2 * size + diagonals;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next < lineCount();
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int line = next++;
+		if (line < size) {
+			return dna[line];
+		}
+		line -= size;
+		if (line < size) {
+			for (int row = 0; row < size; row++) {
+				buffer[row] = dna[row].charAt(line);
+			}
+			return new String(buffer, 0, size);
+		}
+		line -= size;
+		// even lines start on the first row, odd ones on the first column
+		int offset = (line + 1) / 2;
+		int length = size - offset;
+		if (line % 2 == 0) {
+			for (int i = 0; i < length; i++) {
+				buffer[i] = dna[i].charAt(offset + i);
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				buffer[i] = dna[offset + i].charAt(i);
+			}
+		}
+		return new String(buffer, 0, length);
+	}
+}
@@ -0,0 +1,196 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.util.Objects;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * A NxN DNA matrix packed with 2 bits per base.
+ * 
+ * Each row is stored in {@link #wordsPerRow()} consecutive longs of a single array, holding
+ * BASES_PER_WORD bases per word: the base at column <tt>c</tt> lives in the bits 
+ * <tt>2 * (c % BASES_PER_WORD)</tt> and <tt>2 * (c % BASES_PER_WORD) + 1</tt> of the word 
+ * <tt>c / BASES_PER_WORD</tt>. Unused lanes of the last word of a row are always zero.
+ * 
+ * Bases are encoded following the order of ALLOWED_CHARACTERS (A=0, C=1, G=2, T=3).
+ */
+public class DnaMatrix {
+
+	public static final int BITS_PER_BASE = 2;
+	
+	public static final int BASES_PER_WORD = Long.SIZE / BITS_PER_BASE;
+	
+	public static final long BASE_MASK = (1L << BITS_PER_BASE) - 1;
+	
+	/**
+	 * Base code for each char value, -1 if the char is not allowed.
+	 */
+	private static final byte[] CODES = new byte[128];
+	
+	static {
+		for (int i = 0; i < CODES.length; i++) {
+			CODES[i] = -1;
+		}
+		for (int i = 0; i < DnaValidator.ALLOWED_CHARACTERS.length(); i++) {
+			CODES[DnaValidator.ALLOWED_CHARACTERS.charAt(i)] = (byte) i;
+		}
+	}
+	
+	private final int size;
+	
+	private final int wordsPerRow;
+	
+	private final long[] words;
+	
+	/**
+	 * Creates an empty (all 'A') matrix of the given size.
+	 * @param size N
+	 * @throws InvalidDnaException if size is less than VALID_SEQUENCE_LENGTH
+	 */
+	public DnaMatrix(int size) throws InvalidDnaException {
+		DnaValidator.validateSize(size);
+		this.size = size;
+		this.wordsPerRow = wordsPerRow(size);
+		this.words = new long[size * wordsPerRow];
+	}
+	
+	/**
+	 * Packs the given DNA, validating it at the same time.
+	 * @param dna
+	 * @return the packed matrix
+	 * @throws InvalidDnaException if DNA sequence size is invalid or contains not allowed characters.
+	 */
+	public static DnaMatrix of(String[] dna) throws InvalidDnaException {
+		if (Objects.isNull(dna)) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		DnaMatrix matrix = new DnaMatrix(dna.length);
+		for (int row = 0; row < dna.length; row++) {
+			matrix.setRow(row, dna[row]);
+		}
+		return matrix;
+	}
+	
+	/**
+	 * Returns the number of words needed to store a row of the given size.
+	 */
+	public static int wordsPerRow(int size) {
+		return (size + BASES_PER_WORD - 1) / BASES_PER_WORD;
+	}
+	
+	/**
+	 * Returns the 2 bit code of the given char, or -1 if it is not one of the ALLOWED_CHARACTERS.
+	 */
+	public static int encode(int c) {
+		return c >= 0 && c < CODES.length ? CODES[c] : -1;
+	}
+	
+	/**
+	 * Returns the char represented by the given 2 bit code.
+	 */
+	public static char decode(int code) {
+		return DnaValidator.ALLOWED_CHARACTERS.charAt(code);
+	}
+	
+	/**
+	 * Packs the given sequence into the given row, validating it.
+	 * @throws InvalidDnaException if sequence length is not N or it contains not allowed characters.
+	 */
+	public void setRow(int row, CharSequence sequence) throws InvalidDnaException {
+		if (Objects.isNull(sequence) || sequence.length() != size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		int offset = row * wordsPerRow;
+		for (int k = 0; k < wordsPerRow; k++) {
+			int from = k * BASES_PER_WORD;
+			int to = Math.min(from + BASES_PER_WORD, size);
+			long word = 0;
+			for (int column = from; column < to; column++) {
+				int code = encode(sequence.charAt(column));
+				if (code < 0) {
+					throw new InvalidDnaException("Invalid character in the given sequence ");
+				}
+				word |= (long) code << ((column - from) * BITS_PER_BASE);
+			}
+			words[offset + k] = word;
+		}
+	}
+	
+	/**
+	 * Replaces the word <tt>k</tt> of the given row.
+	 */
+	public void setWord(int row, int k, long word) {
+		words[row * wordsPerRow + k] = word;
+	}
+	
+	/**
+	 * Stores the given 2 bit code at the given position.
+	 */
+	public void set(int row, int column, int code) {
+		int index = row * wordsPerRow + column / BASES_PER_WORD;
+		int shift = (column % BASES_PER_WORD) * BITS_PER_BASE;
+		words[index] = (words[index] & ~(BASE_MASK << shift)) | ((code & BASE_MASK) << shift);
+	}
+	
+	/**
+	 * Returns the 2 bit code stored at the given position.
+	 */
+	public int get(int row, int column) {
+		long word = words[row * wordsPerRow + column / BASES_PER_WORD];
+		return (int) ((word >>> ((column % BASES_PER_WORD) * BITS_PER_BASE)) & BASE_MASK);
+	}
+	
+	/**
+	 * Returns the word <tt>k</tt> of the given row, or 0 if <tt>k</tt> is past the end of the row.
+	 */
+	public long word(int row, int k) {
+		return k < wordsPerRow ? words[row * wordsPerRow + k] : 0L;
+	}
+	
+	/**
+	 * Returns the word of the given row holding the bases from <tt>k * BASES_PER_WORD + lanes</tt> on,
+	 * i.e. the row word <tt>k</tt> shifted <tt>lanes</tt> bases (0 < lanes < BASES_PER_WORD) towards lane 0.
+	 */
+	public long shiftedWord(int row, int k, int lanes) {
+		int bits = lanes * BITS_PER_BASE;
+		return (word(row, k) >>> bits) | (word(row, k + 1) << (Long.SIZE - bits));
+	}
+	
+	/**
+	 * Returns the row at the given index as a String.
+	 */
+	public String getRow(int row) {
+		char[] chars = new char[size];
+		for (int column = 0; column < size; column++) {
+			chars[column] = decode(get(row, column));
+		}
+		return new String(chars);
+	}
+	
+	/**
+	 * Unpacks the matrix into its String[] representation.
+	 */
+	public String[] toStrings() {
+		String[] dna = new String[size];
+		for (int row = 0; row < size; row++) {
+			dna[row] = getRow(row);
+		}
+		return dna;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public int wordsPerRow() {
+		return wordsPerRow;
+	}
+	
+	/**
+	 * Returns the packed words, row after row. The returned array is not a copy.
+	 */
+	public long[] words() {
+		return words;
+	}
+}
@@ -0,0 +1,79 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.nio.ByteBuffer;
+
+import emanuelrichieri.mutantdetector.util.converter.StringArrayConverter;
+
+/**
+ * Binary form of a NxN DNA, as stored in the <code>dna_packed</code> column: N (4 bytes, big endian) followed by its bases, 
+ * 2 bits each (see {@link DnaMatrix#encode(int)}), row after row, 4 bases per byte starting from the most significant bits.
+ * 
+ * A NxN DNA takes 4 + ceil(N*N / 4) bytes, about a quarter of its comma-joined text form (see {@link StringArrayConverter}).
+ */
+public class PackedDnaCodec {
+
+	public static final int HEADER_BYTES = Integer.BYTES;
+	
+	public static final int BASES_PER_BYTE = Byte.SIZE / DnaMatrix.BITS_PER_BASE;
+	
+	/**
+	 * Max length of a packed DNA column, enough for N up to 2047.
+	 */
+	public static final int MAX_BYTES = 1 << 20;
+	
+	private PackedDnaCodec() { }
+	
+	/**
+	 * @param size N
+	 * @return the length of a packed NxN DNA.
+	 */
+	public static int packedLength(int size) {
+		long bases = (long) size * size;
+		return HEADER_BYTES + (int) ((bases + BASES_PER_BYTE - 1) / BASES_PER_BYTE);
+	}
+	
+	public static byte[] pack(DnaMatrix matrix) {
+		int size = matrix.size();
+		ByteBuffer buffer = ByteBuffer.allocate(packedLength(size));
+		buffer.putInt(size);
+		int current = 0;
+		int count = 0;
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				current = (current << DnaMatrix.BITS_PER_BASE) | matrix.get(row, column);
+				if (++count == BASES_PER_BYTE) {
+					buffer.put((byte) current);
+					current = 0;
+					count = 0;
+				}
+			}
+		}
+		if (count > 0) {
+			buffer.put((byte) (current << ((BASES_PER_BYTE - count) * DnaMatrix.BITS_PER_BASE)));
+		}
+		return buffer.array();
+	}
+	
+	/**
+	 * @param packed
+	 * @return the rows of the packed DNA.
+	 * @throws IllegalArgumentException if the length of the packed DNA does not match its size.
+	 */
+	public static String[] unpack(byte[] packed) {
+		int size = packed.length < HEADER_BYTES ? -1 : ByteBuffer.wrap(packed).getInt();
+		if (size < 0 || packed.length != packedLength(size)) {
+			throw new IllegalArgumentException("Invalid packed DNA of " + packed.length + " bytes");
+		}
+		String[] rows = new String[size];
+		char[] row = new char[size];
+		int index = 0;
+		for (int r = 0; r < size; r++) {
+			for (int column = 0; column < size; column++, index++) {
+				int shift = (BASES_PER_BYTE - 1 - index % BASES_PER_BYTE) * DnaMatrix.BITS_PER_BASE;
+				row[column] = DnaMatrix.decode((packed[HEADER_BYTES + index / BASES_PER_BYTE] >> shift) & (int) DnaMatrix.BASE_MASK);
+			}
+			rows[r] = new String(row);
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,200 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.util.Arrays;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Detects sequences of VALID_SEQUENCE_LENGTH equal bases receiving a DNA matrix one base at a time,
+ * row after row, without storing it.
+ * 
+ * Only the run state of each column and of each diagonal crossing the current row is kept, 
+ * so memory is O(N) for a NxN matrix. The state of a diagonal is carried from column <tt>c - 1</tt>
+ * of the previous row to column <tt>c</tt> of the current one.
+ * 
+ * Follows the same rules as the other detectors: each line (row, column or diagonal) contributes 
+ * at most one sequence per base. N is taken from the length of the first row.
+ */
+public class RollingRunDetector {
+
+	private static final int LENGTH = DnaValidator.VALID_SEQUENCE_LENGTH;
+	
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private final int needed;
+	
+	private int matches = 0;
+	
+	/**
+	 * N, or -1 while the first row is being read.
+	 */
+	private int size = -1;
+	
+	private int row = 0;
+	
+	private int column = 0;
+	
+	private int rowPrevious;
+	private int rowRun;
+	private int rowMask;
+	
+	// last base, run length (capped at LENGTH) and matched bases of every column
+	private byte[] columnPrevious = new byte[INITIAL_CAPACITY];
+	private byte[] columnRun = new byte[INITIAL_CAPACITY];
+	private byte[] columnMask = new byte[INITIAL_CAPACITY];
+	
+	// same for the diagonals, by column, for the previous and the current row
+	private byte[] diagonalPrevious = new byte[INITIAL_CAPACITY];
+	private byte[] diagonalRun = new byte[INITIAL_CAPACITY];
+	private byte[] diagonalMask = new byte[INITIAL_CAPACITY];
+	private byte[] nextDiagonalPrevious = new byte[INITIAL_CAPACITY];
+	private byte[] nextDiagonalRun = new byte[INITIAL_CAPACITY];
+	private byte[] nextDiagonalMask = new byte[INITIAL_CAPACITY];
+	
+	/**
+	 * @param needed the number of sequences after which the DNA is considered mutant
+	 */
+	public RollingRunDetector(int needed) {
+		this.needed = needed;
+	}
+	
+	/**
+	 * Receives the next base of the current row.
+	 * @param c the base
+	 * @return <code>true</code> once the needed number of sequences has been found
+	 * @throws InvalidDnaException if the base is not allowed or the row is longer than N
+	 */
+	public boolean accept(int c) throws InvalidDnaException {
+		int code = DnaMatrix.encode(c);
+		if (code < 0) {
+			throw new InvalidDnaException("Invalid character in the given sequence ");
+		}
+		if (size < 0) {
+			ensureCapacity(column + 1);
+		} else if (column >= size || row >= size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		int bit = 1 << code;
+		
+		// row
+		rowRun = column > 0 && rowPrevious == code ? Math.min(rowRun + 1, LENGTH) : 1;
+		rowPrevious = code;
+		if (rowRun == LENGTH && (rowMask & bit) == 0) {
+			rowMask |= bit;
+			matches++;
+		}
+		
+		// column
+		int run = row > 0 && columnPrevious[column] == code ? Math.min(columnRun[column] + 1, LENGTH) : 1;
+		int mask = row > 0 ? columnMask[column] : 0;
+		if (run == LENGTH && (mask & bit) == 0) {
+			mask |= bit;
+			matches++;
+		}
+		columnPrevious[column] = (byte) code;
+		columnRun[column] = (byte) run;
+		columnMask[column] = (byte) mask;
+		
+		// diagonal, continued from the previous row
+		boolean continued = row > 0 && column > 0;
+		run = continued && diagonalPrevious[column - 1] == code ? Math.min(diagonalRun[column - 1] + 1, LENGTH) : 1;
+		mask = continued ? diagonalMask[column - 1] : 0;
+		if (run == LENGTH && (mask & bit) == 0) {
+			mask |= bit;
+			matches++;
+		}
+		nextDiagonalPrevious[column] = (byte) code;
+		nextDiagonalRun[column] = (byte) run;
+		nextDiagonalMask[column] = (byte) mask;
+		
+		column++;
+		return isMutant();
+	}
+	
+	/**
+	 * Receives a whole row.
+	 * @return <code>true</code> once the needed number of sequences has been found
+	 * @throws InvalidDnaException if the row is not valid
+	 */
+	public boolean acceptRow(CharSequence sequence) throws InvalidDnaException {
+		if (sequence == null) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		for (int i = 0; i < sequence.length(); i++) {
+			if (accept(sequence.charAt(i))) {
+				return true;
+			}
+		}
+		return endRow();
+	}
+	
+	/**
+	 * Closes the current row.
+	 * @return <code>true</code> once the needed number of sequences has been found
+	 * @throws InvalidDnaException if the row length is not N
+	 */
+	public boolean endRow() throws InvalidDnaException {
+		if (size < 0) {
+			DnaValidator.validateSize(column);
+			size = column;
+		} else if (column != size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		byte[] swap = diagonalPrevious;
+		diagonalPrevious = nextDiagonalPrevious;
+		nextDiagonalPrevious = swap;
+		swap = diagonalRun;
+		diagonalRun = nextDiagonalRun;
+		nextDiagonalRun = swap;
+		swap = diagonalMask;
+		diagonalMask = nextDiagonalMask;
+		nextDiagonalMask = swap;
+		
+		rowMask = 0;
+		column = 0;
+		row++;
+		return isMutant();
+	}
+	
+	/**
+	 * Verifies that exactly N rows have been received.
+	 * @return <code>true</code> if the needed number of sequences has been found
+	 * @throws InvalidDnaException if the matrix is not NxN
+	 */
+	public boolean finish() throws InvalidDnaException {
+		if (column > 0) {
+			endRow();
+		}
+		if (size < 0) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		if (row != size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		return isMutant();
+	}
+	
+	public boolean isMutant() {
+		return matches >= needed;
+	}
+	
+	/**
+	 * Grows the per column state while the first row is read.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity <= columnPrevious.length) {
+			return;
+		}
+		int length = columnPrevious.length * 2;
+		columnPrevious = Arrays.copyOf(columnPrevious, length);
+		columnRun = Arrays.copyOf(columnRun, length);
+		columnMask = Arrays.copyOf(columnMask, length);
+		diagonalPrevious = Arrays.copyOf(diagonalPrevious, length);
+		diagonalRun = Arrays.copyOf(diagonalRun, length);
+		diagonalMask = Arrays.copyOf(diagonalMask, length);
+		nextDiagonalPrevious = Arrays.copyOf(nextDiagonalPrevious, length);
+		nextDiagonalRun = Arrays.copyOf(nextDiagonalRun, length);
+		nextDiagonalMask = Arrays.copyOf(nextDiagonalMask, length);
+	}
+}
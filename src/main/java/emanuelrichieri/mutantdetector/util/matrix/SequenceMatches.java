@@ -0,0 +1,62 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+/**
+ * Keeps track of the distinct sequences found in a DNA matrix, until the needed amount is reached.
+ * 
+ * A sequence is identified by its direction, the line it belongs to and its base, so several runs 
+ * of the same base in a single line are counted only once.
+ * 
+ * It can be shared by threads scanning different parts of a matrix: once complete, 
+ * {@link #isComplete()} tells every scanner to stop.
+ */
+public class SequenceMatches {
+
+	public static final int ROW = 0;
+	
+	public static final int COLUMN = 1;
+	
+	/**
+	 * Diagonals go from top-left to bottom-right. Their line is identified by <tt>column - row</tt>.
+	 */
+	public static final int DIAGONAL = 2;
+	
+	private final long[] keys;
+	
+	private volatile int count = 0;
+	
+	/**
+	 * @param needed the number of distinct sequences after which the search is complete
+	 */
+	public SequenceMatches(int needed) {
+		this.keys = new long[needed];
+	}
+	
+	/**
+	 * Registers a sequence, ignoring it if it was already registered.
+	 * @param direction ROW, COLUMN or DIAGONAL
+	 * @param line the row, column or diagonal the sequence belongs to
+	 * @param base the repeated base
+	 * @return <code>true</code> if the needed amount of sequences has been reached
+	 */
+	public synchronized boolean add(int direction, int line, int base) {
+		if (isComplete()) {
+			return true;
+		}
+		long key = ((long) direction << 34) | ((line & 0xFFFFFFFFL) << 2) | base;
+		for (int i = 0; i < count; i++) {
+			if (keys[i] == key) {
+				return false;
+			}
+		}
+		keys[count++] = key;
+		return isComplete();
+	}
+	
+	public boolean isComplete() {
+		return count >= keys.length;
+	}
+	
+	public int count() {
+		return count;
+	}
+}
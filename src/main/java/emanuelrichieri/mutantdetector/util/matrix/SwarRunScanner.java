@@ -0,0 +1,115 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import static emanuelrichieri.mutantdetector.util.matrix.DnaMatrix.BASES_PER_WORD;
+import static emanuelrichieri.mutantdetector.util.matrix.DnaMatrix.BASE_MASK;
+import static emanuelrichieri.mutantdetector.util.matrix.DnaMatrix.BITS_PER_BASE;
+
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Finds runs of VALID_SEQUENCE_LENGTH equal bases in a {@link DnaMatrix} comparing whole words 
+ * (SIMD within a register), so BASES_PER_WORD start positions are tested with a few bitwise operations.
+ * 
+ * For a word <tt>w</tt> of a row, a run starts at lane <tt>j</tt> if the base in lane <tt>j</tt> is equal to:
+ * <br> - horizontally: lanes j+1, j+2, j+3 of the same row (the row word shifted 1, 2 and 3 lanes).
+ * <br> - vertically: lane j of the next three rows.
+ * <br> - obliquely: lane j+s of the row s positions below, for s = 1, 2, 3.
+ */
+public class SwarRunScanner {
+
+	/**
+	 * The low bit of every 2 bit lane.
+	 */
+	private static final long LOW_BITS = 0x5555555555555555L;
+	
+	private static final int SPAN = DnaValidator.VALID_SEQUENCE_LENGTH - 1;
+	
+	private SwarRunScanner() { }
+	
+	/**
+	 * Scans every sequence starting in rows <tt>[fromRow, toRow)</tt>. Rows up to SPAN positions 
+	 * after <tt>toRow</tt> are read to find vertical and oblique sequences crossing the band edge.
+	 * 
+	 * @param matrix the matrix to scan
+	 * @param fromRow first row (inclusive)
+	 * @param toRow last row (exclusive)
+	 * @param matches registry of the sequences found
+	 * @return <code>true</code> as soon as <tt>matches</tt> is complete
+	 */
+	public static boolean scan(DnaMatrix matrix, int fromRow, int toRow, SequenceMatches matches) {
+		int size = matrix.size();
+		int wordsPerRow = matrix.wordsPerRow();
+		
+		long[] horizontalStarts = new long[wordsPerRow];
+		long[] verticalStarts = new long[wordsPerRow];
+		for (int k = 0; k < wordsPerRow; k++) {
+			horizontalStarts[k] = lanesBelow(k, size - SPAN);
+			verticalStarts[k] = lanesBelow(k, size);
+		}
+		
+		for (int row = fromRow; row < toRow; row++) {
+			if (matches.isComplete()) {
+				// already decided, possibly by another band
+				return true;
+			}
+			boolean fitsBelow = row + SPAN < size;
+			for (int k = 0; k < wordsPerRow; k++) {
+				long word = matrix.word(row, k);
+				long horizontal = horizontalStarts[k];
+				long vertical = fitsBelow ? verticalStarts[k] : 0L;
+				long diagonal = fitsBelow ? horizontalStarts[k] : 0L;
+				for (int s = 1; s <= SPAN; s++) {
+					horizontal &= equalLanes(word, matrix.shiftedWord(row, k, s));
+					if (fitsBelow) {
+						vertical &= equalLanes(word, matrix.word(row + s, k));
+						diagonal &= equalLanes(word, matrix.shiftedWord(row + s, k, s));
+					}
+				}
+				if (register(horizontal, word, SequenceMatches.ROW, row, k, matches)
+						|| register(vertical, word, SequenceMatches.COLUMN, row, k, matches)
+						|| register(diagonal, word, SequenceMatches.DIAGONAL, row, k, matches)) {
+					return true;
+				}
+			}
+		}
+		return matches.isComplete();
+	}
+	
+	/**
+	 * Returns a word with the low bit of lane <tt>j</tt> set if both words hold the same base in lane <tt>j</tt>.
+	 */
+	static long equalLanes(long a, long b) {
+		long diff = a ^ b;
+		return ~(diff | (diff >>> 1)) & LOW_BITS;
+	}
+	
+	/**
+	 * Returns the low bits of the lanes of word <tt>k</tt> whose column is less than <tt>limit</tt>.
+	 */
+	private static long lanesBelow(int k, int limit) {
+		int lanes = limit - k * BASES_PER_WORD;
+		if (lanes <= 0) {
+			return 0L;
+		}
+		if (lanes >= BASES_PER_WORD) {
+			return LOW_BITS;
+		}
+		return ((1L << (lanes * BITS_PER_BASE)) - 1) & LOW_BITS;
+	}
+	
+	private static boolean register(long hits, long word, int direction, int row, int k, SequenceMatches matches) {
+		while (hits != 0) {
+			int lane = Long.numberOfTrailingZeros(hits) / BITS_PER_BASE;
+			int column = k * BASES_PER_WORD + lane;
+			int base = (int) ((word >>> (lane * BITS_PER_BASE)) & BASE_MASK);
+			int line = direction == SequenceMatches.ROW ? row 
+					: direction == SequenceMatches.COLUMN ? column 
+					: column - row;
+			if (matches.add(direction, line, base)) {
+				return true;
+			}
+			hits &= hits - 1;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,138 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import java.util.Objects;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Finds runs of VALID_SEQUENCE_LENGTH equal bases comparing whole rows lane by lane.
+ * 
+ * Bases are stored one per byte in a single array, row after row, each row followed by SPAN
+ * padding bytes that never match a base. For each row, three difference vectors are computed:
+ * <br> - horizontally: the row XOR the same row shifted 1, 2 and 3 lanes.
+ * <br> - vertically: the row XOR the next three rows.
+ * <br> - obliquely: the row XOR the row s positions below shifted s lanes, for s = 1, 2, 3.
+ * <br>
+ * A zero lane in a difference vector is the start of a sequence.
+ * The difference loops are branch-free and work on plain arrays with constant offsets, the shape
+ * HotSpot's superword optimization compiles to SIMD instructions when the CPU supports them
+ * (and to plain scalar code otherwise).
+ */
+public class VectorRunScanner {
+
+	private static final int SPAN = DnaValidator.VALID_SEQUENCE_LENGTH - 1;
+	
+	/**
+	 * Value of the bytes after the end of each row. Different from every base code.
+	 */
+	private static final byte PADDING = 4;
+	
+	private final int size;
+	
+	/**
+	 * Distance between the start of two consecutive rows.
+	 */
+	private final int stride;
+	
+	private final byte[] bases;
+	
+	private VectorRunScanner(int size) {
+		this.size = size;
+		this.stride = size + SPAN;
+		this.bases = new byte[size * stride];
+	}
+	
+	/**
+	 * Loads the given DNA, validating it at the same time.
+	 * @param dna
+	 * @throws InvalidDnaException if DNA sequence size is invalid or contains not allowed characters.
+	 */
+	public static VectorRunScanner of(String[] dna) throws InvalidDnaException {
+		if (Objects.isNull(dna)) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		DnaValidator.validateSize(dna.length);
+		VectorRunScanner scanner = new VectorRunScanner(dna.length);
+		for (int row = 0; row < dna.length; row++) {
+			String sequence = dna[row];
+			if (Objects.isNull(sequence) || sequence.length() != dna.length) {
+				throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+			}
+			int offset = row * scanner.stride;
+			for (int column = 0; column < dna.length; column++) {
+				int code = DnaMatrix.encode(sequence.charAt(column));
+				if (code < 0) {
+					throw new InvalidDnaException("Invalid character in the given sequence ");
+				}
+				scanner.bases[offset + column] = (byte) code;
+			}
+			for (int column = dna.length; column < scanner.stride; column++) {
+				scanner.bases[offset + column] = PADDING;
+			}
+		}
+		return scanner;
+	}
+	
+	/**
+	 * Scans every sequence starting in rows <tt>[fromRow, toRow)</tt>. Rows up to SPAN positions 
+	 * after <tt>toRow</tt> are read to find vertical and oblique sequences crossing the band edge.
+	 * 
+	 * @param fromRow first row (inclusive)
+	 * @param toRow last row (exclusive)
+	 * @param matches registry of the sequences found
+	 * @return <code>true</code> as soon as <tt>matches</tt> is complete
+	 */
+	public boolean scan(int fromRow, int toRow, SequenceMatches matches) {
+		byte[] horizontal = new byte[size];
+		byte[] vertical = new byte[size];
+		byte[] diagonal = new byte[size];
+		
+		for (int row = fromRow; row < toRow; row++) {
+			int offset = row * stride;
+			differences(offset, offset + 1, offset + 2, offset + 3, horizontal);
+			if (find(horizontal, SequenceMatches.ROW, row, offset, matches)) {
+				return true;
+			}
+			if (row + SPAN < size) {
+				differences(offset, offset + stride, offset + 2 * stride, offset + 3 * stride, vertical);
+				differences(offset, offset + stride + 1, offset + 2 * (stride + 1), offset + 3 * (stride + 1), diagonal);
+				if (find(vertical, SequenceMatches.COLUMN, row, offset, matches)
+						|| find(diagonal, SequenceMatches.DIAGONAL, row, offset, matches)) {
+					return true;
+				}
+			}
+		}
+		return matches.isComplete();
+	}
+	
+	/**
+	 * Computes, for every column, the OR of the differences between the base at <tt>origin</tt> and
+	 * the bases at <tt>first</tt>, <tt>second</tt> and <tt>third</tt>. Zero means all four bases are equal.
+	 */
+	private void differences(int origin, int first, int second, int third, byte[] result) {
+		byte[] b = bases;
+		for (int i = 0; i < size; i++) {
+			byte base = b[origin + i];
+			result[i] = (byte) ((base ^ b[first + i]) | (base ^ b[second + i]) | (base ^ b[third + i]));
+		}
+	}
+	
+	private boolean find(byte[] differences, int direction, int row, int offset, SequenceMatches matches) {
+		for (int column = 0; column < size; column++) {
+			if (differences[column] == 0) {
+				int line = direction == SequenceMatches.ROW ? row 
+						: direction == SequenceMatches.COLUMN ? column 
+						: column - row;
+				if (matches.add(direction, line, bases[offset + column])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	public int size() {
+		return size;
+	}
+}
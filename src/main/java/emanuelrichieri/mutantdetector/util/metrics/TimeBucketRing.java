@@ -0,0 +1,105 @@
+package emanuelrichieri.mutantdetector.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free counters of the last N time buckets (e.g. the last 300 seconds).
+ * 
+ * Each bucket holds a fixed number of counters (slots) and covers <code>bucketMillis</code> 
+ * milliseconds, aligned to the epoch. Buckets live in a ring: once the time moves past the 
+ * ring, the oldest bucket is replaced by a new one with a compare-and-set, so writers 
+ * never block each other and nothing has to be cleaned up in background.
+ * 
+ * Buckets older than the ring are reported as zero. An increment racing with the replacement 
+ * of its (already expired) bucket may be lost.
+ */
+public class TimeBucketRing {
+
+	private final long bucketMillis;
+	
+	private final int slots;
+	
+	private final AtomicReferenceArray<Bucket> buckets;
+	
+	public TimeBucketRing(long bucketMillis, int capacity, int slots) {
+		this.bucketMillis = bucketMillis;
+		this.slots = slots;
+		this.buckets = new AtomicReferenceArray<Bucket>(capacity);
+	}
+	
+	/**
+	 * Adds one to a counter of the bucket covering the given time.
+	 * @param timeMillis
+	 * @param slot
+	 */
+	public void increment(long timeMillis, int slot) {
+		long epoch = timeMillis / bucketMillis;
+		int index = (int) (epoch % buckets.length());
+		Bucket bucket = buckets.get(index);
+		while (bucket == null || bucket.epoch < epoch) {
+			Bucket fresh = new Bucket(epoch, slots);
+			if (buckets.compareAndSet(index, bucket, fresh)) {
+				bucket = fresh;
+			} else {
+				bucket = buckets.get(index);
+			}
+		}
+		// a newer bucket means the given time is a whole ring behind: it is not counted
+		if (bucket.epoch == epoch) {
+			bucket.counts.incrementAndGet(slot);
+		}
+	}
+	
+	/**
+	 * Reads the counters of the last buckets.
+	 * @param timeMillis time covered by the last bucket read
+	 * @param count number of buckets to read, at most the capacity
+	 * @return the counters of each bucket, oldest first.
+	 */
+	public long[][] read(long timeMillis, int count) {
+		if (count > buckets.length()) {
+			throw new IllegalArgumentException("Cannot read more than " + buckets.length() + " buckets");
+		}
+		long last = timeMillis / bucketMillis;
+		long[][] counts = new long[count][slots];
+		for (int i = 0; i < count; i++) {
+			long epoch = last - count + 1 + i;
+			Bucket bucket = buckets.get((int) (epoch % buckets.length()));
+			if (bucket != null && bucket.epoch == epoch) {
+				for (int slot = 0; slot < slots; slot++) {
+					counts[i][slot] = bucket.counts.get(slot);
+				}
+			}
+		}
+		return counts;
+	}
+	
+	/**
+	 * @param timeMillis
+	 * @return the start time of the bucket covering the given time.
+	 */
+	public long bucketStart(long timeMillis) {
+		return timeMillis / bucketMillis * bucketMillis;
+	}
+	
+	public long bucketMillis() {
+		return bucketMillis;
+	}
+	
+	public int capacity() {
+		return buckets.length();
+	}
+	
+	private static class Bucket {
+		
+		private final long epoch;
+		
+		private final AtomicLongArray counts;
+		
+		Bucket(long epoch, int slots) {
+			this.epoch = epoch;
+			this.counts = new AtomicLongArray(slots);
+		}
+	}
+}
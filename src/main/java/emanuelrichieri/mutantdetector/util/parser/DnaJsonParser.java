@@ -0,0 +1,282 @@
+package emanuelrichieri.mutantdetector.util.parser;
+
+import static emanuelrichieri.mutantdetector.util.matrix.DnaMatrix.BASES_PER_WORD;
+import static emanuelrichieri.mutantdetector.util.matrix.DnaMatrix.BITS_PER_BASE;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.validator.DnaValidator;
+
+/**
+ * Reads a <code>{"dna": ["ATGC...", ...]}</code> JSON document byte by byte, packing the bases 
+ * straight into a {@link DnaMatrix}, without building any String.
+ * 
+ * Characters and the NxN shape are validated while reading, so invalid input is rejected 
+ * at the first offending byte. Other fields of the document are skipped, but a repeated 
+ * "dna" field and any content after the document are rejected.
+ */
+public class DnaJsonParser {
+
+	private static final byte[] DNA_FIELD = {'d', 'n', 'a'};
+	
+	private static final String MALFORMED = "Invalid DNA request body. Expected {\"dna\": [\"...\", ...]}";
+	
+	private final InputStream input;
+	
+	/**
+	 * Last byte read, -1 at the end of the input.
+	 */
+	private int current;
+	
+	private DnaJsonParser(InputStream input) {
+		this.input = input instanceof BufferedInputStream ? input : new BufferedInputStream(input);
+	}
+	
+	/**
+	 * Parses the given JSON document.
+	 * @param input UTF-8 JSON document
+	 * @return the packed DNA
+	 * @throws InvalidDnaException if the document is malformed or DNA is not valid.
+	 * @throws IOException if the input cannot be read
+	 */
+	public static DnaMatrix parse(InputStream input) throws InvalidDnaException, IOException {
+		return new DnaJsonParser(input).parseDocument();
+	}
+	
+	private DnaMatrix parseDocument() throws InvalidDnaException, IOException {
+		DnaMatrix matrix = null;
+		boolean dnaRead = false;
+		next();
+		expect('{');
+		skipWhitespace();
+		if (current != '}') {
+			do {
+				skipWhitespace();
+				boolean dnaField = readKey();
+				skipWhitespace();
+				expect(':');
+				skipWhitespace();
+				if (dnaField) {
+					if (dnaRead) {
+						throw new InvalidDnaException("Invalid DNA request body. Repeated \"dna\" field");
+					}
+					dnaRead = true;
+					matrix = current == 'n' ? skipLiteral("null", null) : parseDna();
+				} else {
+					skipValue();
+				}
+				skipWhitespace();
+			} while (consume(','));
+		}
+		expect('}');
+		skipWhitespace();
+		if (current >= 0) {
+			throw new InvalidDnaException(MALFORMED);
+		}
+		if (matrix == null) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		return matrix;
+	}
+	
+	/**
+	 * Reads the array of rows.
+	 */
+	private DnaMatrix parseDna() throws InvalidDnaException, IOException {
+		expect('[');
+		skipWhitespace();
+		if (current == ']') {
+			DnaValidator.validateSize(0);
+		}
+		DnaMatrix matrix = firstRow();
+		int size = matrix.size();
+		int row = 1;
+		skipWhitespace();
+		while (consume(',')) {
+			skipWhitespace();
+			if (row >= size) {
+				throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+			}
+			expect('"');
+			long word = 0;
+			int column = 0;
+			while (current != '"') {
+				if (column >= size) {
+					throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+				}
+				word |= (long) code() << ((column % BASES_PER_WORD) * BITS_PER_BASE);
+				column++;
+				if (column % BASES_PER_WORD == 0) {
+					matrix.setWord(row, column / BASES_PER_WORD - 1, word);
+					word = 0;
+				}
+				next();
+			}
+			if (column != size) {
+				throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+			}
+			if (column % BASES_PER_WORD != 0) {
+				matrix.setWord(row, column / BASES_PER_WORD, word);
+			}
+			next();
+			row++;
+			skipWhitespace();
+		}
+		expect(']');
+		if (row != size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		return matrix;
+	}
+	
+	/**
+	 * Reads the first row, which sets N, and allocates the matrix.
+	 */
+	private DnaMatrix firstRow() throws InvalidDnaException, IOException {
+		expect('"');
+		byte[] codes = new byte[64];
+		int length = 0;
+		while (current != '"') {
+			if (length == codes.length) {
+				codes = Arrays.copyOf(codes, length * 2);
+			}
+			codes[length++] = (byte) code();
+			next();
+		}
+		next();
+		DnaMatrix matrix = new DnaMatrix(length);
+		for (int column = 0; column < length; column++) {
+			matrix.set(0, column, codes[column]);
+		}
+		return matrix;
+	}
+	
+	/**
+	 * Returns the code of the current byte, which must be an allowed base.
+	 */
+	private int code() throws InvalidDnaException {
+		if (current < 0) {
+			throw new InvalidDnaException(MALFORMED);
+		}
+		int code = DnaMatrix.encode(current);
+		if (code < 0) {
+			throw new InvalidDnaException("Invalid character in the given sequence ");
+		}
+		return code;
+	}
+	
+	/**
+	 * Reads a field name, returning whether it is "dna".
+	 */
+	private boolean readKey() throws InvalidDnaException, IOException {
+		expect('"');
+		int length = 0;
+		boolean matches = true;
+		while (current != '"') {
+			if (current < 0) {
+				throw new InvalidDnaException(MALFORMED);
+			}
+			if (current == '\\') {
+				matches = false;
+				next();
+			}
+			matches = matches && length < DNA_FIELD.length && current == DNA_FIELD[length];
+			length++;
+			next();
+		}
+		next();
+		return matches && length == DNA_FIELD.length;
+	}
+	
+	/**
+	 * Skips any JSON value.
+	 */
+	private void skipValue() throws InvalidDnaException, IOException {
+		switch (current) {
+		case '"':
+			skipString();
+			break;
+		case '{':
+		case '[':
+			int depth = 0;
+			do {
+				if (current < 0) {
+					throw new InvalidDnaException(MALFORMED);
+				}
+				if (current == '"') {
+					skipString();
+					continue;
+				}
+				if (current == '{' || current == '[') {
+					depth++;
+				} else if (current == '}' || current == ']') {
+					depth--;
+				}
+				next();
+			} while (depth > 0);
+			break;
+		default:
+			// number, true, false or null
+			if (current < 0 || current == ',' || current == '}') {
+				throw new InvalidDnaException(MALFORMED);
+			}
+			while (current >= 0 && current != ',' && current != '}' && !isWhitespace(current)) {
+				next();
+			}
+		}
+	}
+	
+	private void skipString() throws InvalidDnaException, IOException {
+		expect('"');
+		while (current != '"') {
+			if (current < 0) {
+				throw new InvalidDnaException(MALFORMED);
+			}
+			if (current == '\\') {
+				next();
+			}
+			next();
+		}
+		next();
+	}
+	
+	private <T> T skipLiteral(String literal, T value) throws InvalidDnaException, IOException {
+		for (int i = 0; i < literal.length(); i++) {
+			expect(literal.charAt(i));
+		}
+		return value;
+	}
+	
+	private void skipWhitespace() throws IOException {
+		while (isWhitespace(current)) {
+			next();
+		}
+	}
+	
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+	
+	private boolean consume(char c) throws IOException {
+		if (current == c) {
+			next();
+			return true;
+		}
+		return false;
+	}
+	
+	private void expect(char c) throws InvalidDnaException, IOException {
+		if (!consume(c)) {
+			throw new InvalidDnaException(MALFORMED);
+		}
+	}
+	
+	private void next() throws IOException {
+		current = input.read();
+	}
+}
@@ -0,0 +1,143 @@
+package emanuelrichieri.mutantdetector.util.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue drained by a background thread, which hands the queued items to a writer in batches.
+ * 
+ * A batch is written once it has <tt>flushSize</tt> items, or <tt>flushInterval</tt> milliseconds 
+ * after its first item was taken, whichever comes first. Items are never blocked on: {@link #offer(Object)} 
+ * fails when the queue is full or closed, and the caller is expected to write the item itself.
+ * 
+ * {@link #close()} stops accepting items and waits until every queued item has been written.
+ * 
+ * @param <T> queued items
+ */
+public class WriteBehindQueue<T> {
+
+	private Logger logger = LoggerFactory.getLogger("WriteBehindQueue");
+	
+	/**
+	 * Queued by {@link #close()} after the last item, so the writer thread stops without waiting for a poll timeout.
+	 */
+	private static final Object CLOSED = new Object();
+	
+	private final BlockingQueue<Object> queue;
+	
+	private final int flushSize;
+	
+	private final long flushInterval;
+	
+	private final Consumer<List<T>> writer;
+	
+	private final Thread thread;
+	
+	private volatile boolean running = true;
+	
+	/**
+	 * Creates the queue and starts its writer thread.
+	 * @param name name of the writer thread
+	 * @param capacity max number of queued items
+	 * @param flushSize max number of items of a batch
+	 * @param flushInterval max milliseconds an item waits for its batch to fill
+	 * @param writer writes a batch. Exceptions are logged and the batch discarded.
+	 */
+	public WriteBehindQueue(String name, int capacity, int flushSize, long flushInterval, Consumer<List<T>> writer) {
+		this.queue = new ArrayBlockingQueue<Object>(capacity + 1);
+		this.flushSize = flushSize;
+		this.flushInterval = flushInterval;
+		this.writer = writer;
+		this.thread = new Thread(this::run, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	/**
+	 * Queues an item, without waiting.
+	 * @param item
+	 * @return <code>false</code> if the queue is full or closed, <code>true</code> otherwise.
+	 */
+	public boolean offer(T item) {
+		// the extra slot is kept for CLOSED
+		return running && queue.remainingCapacity() > 1 && queue.offer(item);
+	}
+	
+	/**
+	 * @return the number of items waiting to be written.
+	 */
+	public int size() {
+		return queue.contains(CLOSED) ? queue.size() - 1 : queue.size();
+	}
+	
+	/**
+	 * Stops accepting items and writes the queued ones before returning.
+	 * @throws InterruptedException if interrupted while waiting for the writer thread
+	 */
+	public void close() throws InterruptedException {
+		running = false;
+		queue.put(CLOSED);
+		thread.join();
+		// items offered while the queue was being closed
+		List<T> rest = new ArrayList<T>();
+		for (Object item = queue.poll(); item != null; item = queue.poll()) {
+			if (item != CLOSED) {
+				rest.add(cast(item));
+			}
+		}
+		if (!rest.isEmpty()) {
+			this.write(rest);
+		}
+	}
+	
+	private void run() {
+		List<T> batch = new ArrayList<T>(flushSize);
+		try {
+			boolean closed = false;
+			while (!closed) {
+				Object item = queue.take();
+				if (item == CLOSED) {
+					return;
+				}
+				batch.add(cast(item));
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+				while (batch.size() < flushSize) {
+					long wait = deadline - System.nanoTime();
+					Object next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					if (next == CLOSED) {
+						closed = true;
+						break;
+					}
+					batch.add(cast(next));
+				}
+				this.write(batch);
+				batch = new ArrayList<T>(flushSize);
+			}
+		} catch (InterruptedException ex) {
+			logger.error("Write-behind thread interrupted with " + (batch.size() + queue.size()) + " pending items", ex);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T cast(Object item) {
+		return (T) item;
+	}
+	
+	private void write(List<T> batch) {
+		try {
+			this.writer.accept(batch);
+		} catch (RuntimeException ex) {
+			logger.error("Error writing " + batch.size() + " queued items", ex);
+		}
+	}
+}
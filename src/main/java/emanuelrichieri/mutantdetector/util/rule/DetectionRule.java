@@ -0,0 +1,118 @@
+package emanuelrichieri.mutantdetector.util.rule;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+/**
+ * A mutant detection rule: a DNA is mutant when it contains at least <tt>matchesNeeded</tt> runs of 
+ * <tt>runLength</tt> equal characters of the <tt>alphabet</tt>, in the given directions. 
+ * As in MutantDetectorService, a line counts each character once, however many runs of it there are.
+ * 
+ * The default rule (ACGT, 4, 2, rows, columns and diagonals) is the one of MutantDetectorService.
+ */
+public class DetectionRule {
+
+	public enum Direction {
+		/** left to right */
+		ROW,
+		/** top to bottom */
+		COLUMN,
+		/** top-left to bottom-right */
+		DIAGONAL,
+		/** top-right to bottom-left */
+		ANTI_DIAGONAL
+	}
+	
+	private final String alphabet;
+	
+	private final int runLength;
+	
+	private final int matchesNeeded;
+	
+	private final Set<Direction> directions;
+	
+	/**
+	 * <code>true</code> for every char value contained in the alphabet.
+	 */
+	private final boolean[] allowed = new boolean[128];
+	
+	/**
+	 * @throws IllegalArgumentException if the alphabet is empty or has repeated or non ASCII characters,
+	 * 	if the run length or the matches needed are less than 1, or if there are no directions
+	 */
+	public DetectionRule(String alphabet, int runLength, int matchesNeeded, Set<Direction> directions) {
+		if (Objects.isNull(alphabet) || alphabet.isEmpty()) {
+			throw new IllegalArgumentException("The rule alphabet cannot be empty.");
+		}
+		long codes = 0;
+		for (int i = 0; i < alphabet.length(); i++) {
+			char c = alphabet.charAt(i);
+			// compiled rules tell characters apart by their 6 lowest bits
+			if (c >= allowed.length || (codes & (1L << (c & 63))) != 0) {
+				throw new IllegalArgumentException("Invalid character " + c + " in the rule alphabet.");
+			}
+			codes |= 1L << (c & 63);
+			allowed[c] = true;
+		}
+		if (runLength < 1 || matchesNeeded < 1) {
+			throw new IllegalArgumentException("The run length and the matches needed must be greater than 0.");
+		}
+		if (Objects.isNull(directions) || directions.isEmpty()) {
+			throw new IllegalArgumentException("The rule needs at least one direction.");
+		}
+		this.alphabet = alphabet;
+		this.runLength = runLength;
+		this.matchesNeeded = matchesNeeded;
+		this.directions = Collections.unmodifiableSet(EnumSet.copyOf(directions));
+	}
+	
+	/**
+	 * Verifies that the given DNA is a NxN matrix (N >= runLength) which only contains characters of the alphabet.
+	 * @param dna
+	 * @throws InvalidDnaException if DNA sequence size is invalid or contains not allowed characters.
+	 */
+	public void validate(String[] dna) throws InvalidDnaException {
+		if (Objects.isNull(dna)) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		if (dna.length < runLength) {
+			throw new InvalidDnaException("Invalid DNA size. Must be at least " + runLength + "x" + runLength);
+		}
+		for (String row : dna) {
+			if (Objects.isNull(row) || row.length() != dna.length) {
+				throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+			}
+			for (int i = 0; i < row.length(); i++) {
+				char c = row.charAt(i);
+				if (c >= allowed.length || !allowed[c]) {
+					throw new InvalidDnaException("Invalid character in the given sequence ");
+				}
+			}
+		}
+	}
+	
+	public String getAlphabet() {
+		return alphabet;
+	}
+	
+	public int getRunLength() {
+		return runLength;
+	}
+	
+	public int getMatchesNeeded() {
+		return matchesNeeded;
+	}
+	
+	public Set<Direction> getDirections() {
+		return directions;
+	}
+	
+	@Override
+	public String toString() {
+		return "alphabet=" + alphabet + ", run-length=" + runLength + ", matches-needed=" + matchesNeeded + ", directions=" + directions;
+	}
+}
@@ -0,0 +1,210 @@
+package emanuelrichieri.mutantdetector.util.rule;
+
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Predicate;
+
+import emanuelrichieri.mutantdetector.util.rule.DetectionRule.Direction;
+
+/**
+ * Compiles a {@link DetectionRule} at startup into a method handle specialized for it, built with
+ * <code>java.lang.invoke</code> combinators, so it runs on a JRE.
+ * 
+ * The comparison of the cells of a run is unrolled into one {@link MethodHandles#guardWithTest} per offset
+ * (<code>b == cell(+1) && b == cell(+2) && ...</code>), each with its row and column offsets bound by
+ * {@link MethodHandles#insertArguments}. Each enabled direction gets its own scanner, with the unrolled run,
+ * the run length and the matches needed bound the same way, and the scanners are chained with
+ * {@link MethodHandles#foldArguments}. Disabled directions are not scanned at all.
+ * 
+ * No class is generated: the tree of handles is the compiled rule. It is bound into a {@link ConstantCallSite},
+ * and HotSpot (8u60 and later) customizes the invoked tree once it is hot, turning the bound arguments into
+ * constants and inlining the chain.
+ * 
+ * The predicate tells whether an already validated DNA matches the rule.
+ */
+public class DetectionRuleCompiler {
+	
+	private static final MethodType RUN_TYPE = MethodType.methodType(boolean.class, String[].class, int.class, int.class, char.class);
+	
+	private static final MethodType SCANNER_TYPE = MethodType.methodType(int.class, String[].class, int.class);
+	
+	private static final MethodHandle SAME_AT;
+	
+	private static final MethodHandle REACHED;
+	
+	private static final MethodHandle SCAN_ROWS;
+	
+	private static final MethodHandle SCAN_COLUMNS;
+	
+	private static final MethodHandle SCAN_DIAGONALS;
+	
+	private static final MethodHandle SCAN_ANTI_DIAGONALS;
+	
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodType scan = MethodType.methodType(int.class, MethodHandle.class, int.class, int.class, String[].class, int.class);
+		try {
+			SAME_AT = lookup.findStatic(DetectionRuleCompiler.class, "sameAt",
+					MethodType.methodType(boolean.class, int.class, int.class, String[].class, int.class, int.class, char.class));
+			REACHED = lookup.findStatic(DetectionRuleCompiler.class, "reached", MethodType.methodType(boolean.class, int.class, int.class));
+			SCAN_ROWS = lookup.findStatic(DetectionRuleCompiler.class, "scanRows", scan);
+			SCAN_COLUMNS = lookup.findStatic(DetectionRuleCompiler.class, "scanColumns", scan);
+			SCAN_DIAGONALS = lookup.findStatic(DetectionRuleCompiler.class, "scanDiagonals", scan);
+			SCAN_ANTI_DIAGONALS = lookup.findStatic(DetectionRuleCompiler.class, "scanAntiDiagonals", scan);
+		} catch (ReflectiveOperationException ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+	
+	private DetectionRuleCompiler() { }
+	
+	/**
+	 * Builds a predicate specialized for the given rule.
+	 */
+	public static Predicate<String[]> compile(DetectionRule rule) {
+		// found = scanner(dna, ... scanner(dna, 0)), each one returning as soon as the matches are enough
+		MethodHandle chain = MethodHandles.dropArguments(MethodHandles.identity(int.class), 0, String[].class);
+		for (Direction direction : rule.getDirections()) {
+			MethodHandle scanner = scanner(direction, rule.getRunLength(), rule.getMatchesNeeded());
+			// (found so far, dna, found) -> scanner(dna, found so far)
+			MethodHandle next = MethodHandles.permuteArguments(scanner,
+					MethodType.methodType(int.class, int.class, String[].class, int.class), 1, 0);
+			chain = MethodHandles.foldArguments(next, chain);
+		}
+		MethodHandle matches = MethodHandles.filterReturnValue(MethodHandles.insertArguments(chain, 1, 0),
+				MethodHandles.insertArguments(REACHED, 1, rule.getMatchesNeeded()));
+		return new CompiledRule(new ConstantCallSite(matches).dynamicInvoker());
+	}
+	
+	/**
+	 * Builds the unrolled test of a run starting at (row, column) with the char <code>first</code>:
+	 * <code>(String[] dna, int row, int column, char first) boolean</code>, one guard per offset.
+	 */
+	static MethodHandle unrollRun(int runLength, int rowStep, int columnStep) {
+		MethodHandle test = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, RUN_TYPE.parameterArray());
+		MethodHandle mismatch = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, RUN_TYPE.parameterArray());
+		for (int offset = runLength - 1; offset >= 1; offset--) {
+			MethodHandle cell = MethodHandles.insertArguments(SAME_AT, 0, offset * rowStep, offset * columnStep);
+			test = MethodHandles.guardWithTest(cell, test, mismatch);
+		}
+		return test;
+	}
+	
+	/**
+	 * @return <code>(String[] dna, int found) int</code>: the matches found in the lines of the direction, plus <code>found</code>
+	 */
+	static MethodHandle scanner(Direction direction, int runLength, int matchesNeeded) {
+		MethodHandle scan;
+		switch (direction) {
+		case ROW:
+			scan = MethodHandles.insertArguments(SCAN_ROWS, 0, unrollRun(runLength, 0, 1), runLength - 1, matchesNeeded);
+			break;
+		case COLUMN:
+			scan = MethodHandles.insertArguments(SCAN_COLUMNS, 0, unrollRun(runLength, 1, 0), runLength - 1, matchesNeeded);
+			break;
+		case DIAGONAL:
+			scan = MethodHandles.insertArguments(SCAN_DIAGONALS, 0, unrollRun(runLength, 1, 1), runLength - 1, matchesNeeded);
+			break;
+		default:
+			scan = MethodHandles.insertArguments(SCAN_ANTI_DIAGONALS, 0, unrollRun(runLength, 1, -1), runLength - 1, matchesNeeded);
+		}
+		return scan.asType(SCANNER_TYPE);
+	}
+	
+	private static boolean sameAt(int rowOffset, int columnOffset, String[] dna, int row, int column, char first) {
+		return dna[row + rowOffset].charAt(column + columnOffset) == first;
+	}
+	
+	private static boolean reached(int found, int matchesNeeded) {
+		return found >= matchesNeeded;
+	}
+	
+	/*
+	 * One scanner per direction, so the steps of each one are literals of its own code.
+	 * As in MutantDetectorService, a line counts each character once, however many runs of it there are.
+	 */
+	
+	private static int scanRows(MethodHandle run, int last, int matchesNeeded, String[] dna, int found) throws Throwable {
+		for (int row = 0; row < dna.length && found < matchesNeeded; row++) {
+			found = scanLine(run, last, matchesNeeded, dna, row, 0, 0, 1, found);
+		}
+		return found;
+	}
+	
+	private static int scanColumns(MethodHandle run, int last, int matchesNeeded, String[] dna, int found) throws Throwable {
+		for (int column = 0; column < dna.length && found < matchesNeeded; column++) {
+			found = scanLine(run, last, matchesNeeded, dna, 0, column, 1, 0, found);
+		}
+		return found;
+	}
+	
+	/**
+	 * Diagonals enter the matrix through the first row or the first column.
+	 */
+	private static int scanDiagonals(MethodHandle run, int last, int matchesNeeded, String[] dna, int found) throws Throwable {
+		for (int column = 0; column < dna.length && found < matchesNeeded; column++) {
+			found = scanLine(run, last, matchesNeeded, dna, 0, column, 1, 1, found);
+		}
+		for (int row = 1; row < dna.length && found < matchesNeeded; row++) {
+			found = scanLine(run, last, matchesNeeded, dna, row, 0, 1, 1, found);
+		}
+		return found;
+	}
+	
+	/**
+	 * Anti-diagonals enter the matrix through the first row or the last column.
+	 */
+	private static int scanAntiDiagonals(MethodHandle run, int last, int matchesNeeded, String[] dna, int found) throws Throwable {
+		for (int column = 0; column < dna.length && found < matchesNeeded; column++) {
+			found = scanLine(run, last, matchesNeeded, dna, 0, column, 1, -1, found);
+		}
+		for (int row = 1; row < dna.length && found < matchesNeeded; row++) {
+			found = scanLine(run, last, matchesNeeded, dna, row, dna.length - 1, 1, -1, found);
+		}
+		return found;
+	}
+	
+	private static int scanLine(MethodHandle run, int last, int matchesNeeded, String[] dna,
+			int row, int column, int rowStep, int columnStep, int found) throws Throwable {
+		int n = dna.length;
+		long seen = 0;
+		for (; row + last * rowStep < n && column + last * columnStep >= 0 && column + last * columnStep < n; row += rowStep, column += columnStep) {
+			char b = dna[row].charAt(column);
+			if ((boolean) run.invokeExact(dna, row, column, b)) {
+				long bit = 1L << (b & 63);
+				if ((seen & bit) == 0) {
+					seen |= bit;
+					if (++found >= matchesNeeded) {
+						return found;
+					}
+				}
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * The predicate of a compiled rule: invokes the target of its constant call site.
+	 */
+	private static class CompiledRule implements Predicate<String[]> {
+		
+		private final MethodHandle matches;
+		
+		CompiledRule(MethodHandle matches) {
+			this.matches = matches;
+		}
+		
+		@Override
+		public boolean test(String[] dna) {
+			try {
+				return (boolean) matches.invokeExact(dna);
+			} catch (RuntimeException | Error ex) {
+				throw ex;
+			} catch (Throwable ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+}
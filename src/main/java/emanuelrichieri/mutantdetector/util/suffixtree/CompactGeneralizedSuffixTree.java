@@ -0,0 +1,525 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import emanuelrichieri.mutantdetector.util.suffixtree.GeneralizedSuffixTree.ResultInfo;
+
+/**
+ * A Generalized Suffix Tree over the DNA alphabet (A, C, G, T) stored as a structure of arrays.
+ * 
+ * Nodes are int ids into parallel primitive arrays instead of objects:
+ * <br> - children: 4 child ids per node, one for each base (0 means no child, the root is never a child).
+ * <br> - suffix links.
+ * <br> - label of the edge entering each node, as [start, end) offsets into a single text buffer
+ *   where all the inserted keys are stored one after the other, 1 byte per base.
+ * <br> - payload: the indexes whose key has a suffix ending at each node, as linked lists of entries.
+ * <br>
+ * Each key is added with Ukkonen's algorithm starting from the root. Its end acts as a unique terminator:
+ * the suffixes still implicit when the key ends are made explicit (splitting edges if needed) and
+ * the key index is added to their payload, so every suffix of every key ends at a node.
+ * The indexes of the keys containing a word are then the payloads of the subtree below it.
+ * 
+ * It keeps the {@link GeneralizedSuffixTree} API, with a fraction of its heap usage.
+ * Its arrays can be saved as a binary snapshot, to be searched later through {@link MappedGeneralizedSuffixTree}.
+ */
+public class CompactGeneralizedSuffixTree implements IGeneralizedSuffixTree {
+
+    private static final int ALPHABET_SIZE = 4;
+    
+    private static final int ROOT = 0;
+    
+    /**
+     * Id used for "no node" and "no entry".
+     */
+    private static final int NONE = 0;
+    
+    /**
+     * End of the edges entering leaves created by the key being inserted, which grow with it.
+     */
+    private static final int OPEN = -1;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    /**
+     * Code for each char value, -1 if it is not part of the alphabet.
+     */
+    private static final byte[] CODES = new byte[128];
+    
+    static {
+        Arrays.fill(CODES, (byte) -1);
+        CODES['A'] = 0;
+        CODES['C'] = 1;
+        CODES['G'] = 2;
+        CODES['T'] = 3;
+    }
+    
+    // text buffer
+    private byte[] text = new byte[INITIAL_CAPACITY];
+    private int textLength = 0;
+    
+    // nodes
+    private int[] children = new int[INITIAL_CAPACITY * ALPHABET_SIZE];
+    private int[] suffixLinks = new int[INITIAL_CAPACITY];
+    private int[] edgeStarts = new int[INITIAL_CAPACITY];
+    private int[] edgeEnds = new int[INITIAL_CAPACITY];
+    private int[] payloadHeads = new int[INITIAL_CAPACITY];
+    private int nodeCount = 1; // root
+    
+    // payload entries, entry 0 is unused
+    private int[] payloadValues = new int[INITIAL_CAPACITY];
+    private int[] payloadNexts = new int[INITIAL_CAPACITY];
+    private int payloadCount = 1;
+    
+    // leaves with an OPEN end, created while inserting the current key
+    private int[] openLeaves = new int[INITIAL_CAPACITY];
+    private int openLeafCount = 0;
+    
+    /**
+     * The index of the last item that was added to the GST
+     */
+    private int last = 0;
+    
+    private int distinctIndexes = 0;
+    
+    // Ukkonen's active point and the end of the key being inserted
+    private int activeNode;
+    private int activeEdge;
+    private int activeLength;
+    private int remainder;
+    private int currentEnd;
+    
+    /**
+     * The node where the previous suffix of the current key ends. Its suffix link points to
+     * the node where the next one ends, so leaves also get suffix links: later keys can reach
+     * them as active nodes.
+     */
+    private int lastSuffixNode;
+
+    @Override
+    public Collection<Integer> search(String word) {
+        return search(word, -1);
+    }
+
+    @Override
+    public Collection<Integer> search(String word, int results) {
+        int node = searchNode(word);
+        if (node == NONE) {
+            return Collections.emptyList();
+        }
+        return collect(node, results);
+    }
+
+    @Override
+    public ResultInfo searchWithCount(String word, int to) {
+        int node = searchNode(word);
+        if (node == NONE) {
+            return new ResultInfo(Collections.emptyList(), 0);
+        }
+        Set<Integer> all = collect(node, -1);
+        Collection<Integer> results = all;
+        if (to > -1 && all.size() > to) {
+            Set<Integer> limited = new LinkedHashSet<Integer>();
+            for (Integer index : all) {
+                if (limited.size() == to) {
+                    break;
+                }
+                limited.add(index);
+            }
+            results = limited;
+        }
+        return new ResultInfo(results, all.size());
+    }
+
+    @Override
+    public int count(String word, int limit) {
+        int node = searchNode(word);
+        if (node == NONE || limit == 0) {
+            return 0;
+        }
+        return collect(node, new BitSet(), limit);
+    }
+
+    @Override
+    public BitSet searchIndexes(String word) {
+        BitSet result = new BitSet();
+        int node = searchNode(word);
+        if (node != NONE) {
+            collect(node, result, -1);
+        }
+        return result;
+    }
+
+    @Override
+    public int computeCount() {
+        return distinctIndexes;
+    }
+
+    /**
+     * Writes the tree as a binary snapshot, that can be opened with {@link MappedGeneralizedSuffixTree#open(Path)}.
+     * The snapshot is written to a temporary file first, which then replaces the given one.
+     * @see MappedGeneralizedSuffixTree snapshot format
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MappedGeneralizedSuffixTree.MAGIC);
+            output.writeInt(MappedGeneralizedSuffixTree.VERSION);
+            output.writeInt(nodeCount);
+            output.writeInt(payloadCount);
+            output.writeInt(textLength);
+            output.writeInt(distinctIndexes);
+            output.writeInt(last);
+            writeInts(output, children, nodeCount * ALPHABET_SIZE);
+            writeInts(output, edgeStarts, nodeCount);
+            writeInts(output, edgeEnds, nodeCount);
+            writeInts(output, payloadHeads, nodeCount);
+            writeInts(output, payloadValues, payloadCount);
+            writeInts(output, payloadNexts, payloadCount);
+            output.write(text, 0, textLength);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            output.writeInt(values[i]);
+        }
+    }
+
+    @Override
+    public void insert(String key, int index) throws IllegalStateException {
+        if (index < last) {
+            throw new IllegalStateException("The input index must not be less than any of the previously inserted ones. Got " + index + ", expected at least " + last);
+        }
+        int start = textLength;
+        appendText(key);
+        if (distinctIndexes == 0 || index != last) {
+            distinctIndexes++;
+        }
+        last = index;
+        
+        activeNode = ROOT;
+        activeEdge = start;
+        activeLength = 0;
+        remainder = 0;
+        openLeafCount = 0;
+        lastSuffixNode = NONE;
+        for (int position = start; position < textLength; position++) {
+            extend(position, index);
+        }
+        terminate(textLength, index);
+        for (int i = 0; i < openLeafCount; i++) {
+            edgeEnds[openLeaves[i]] = textLength;
+        }
+    }
+    
+    /**
+     * Ukkonen's phase for the base at the given position: adds it to every pending suffix.
+     */
+    private void extend(int position, int index) {
+        currentEnd = position + 1;
+        remainder++;
+        int lastNewNode = NONE;
+        
+        while (remainder > 0) {
+            if (activeLength == 0) {
+                activeEdge = position;
+            }
+            int next = child(activeNode, text[activeEdge]);
+            if (next == NONE) {
+                // rule 2: new leaf from the active node
+                setChild(activeNode, text[activeEdge], newLeaf(position, index));
+                if (lastNewNode != NONE) {
+                    suffixLinks[lastNewNode] = activeNode;
+                    lastNewNode = NONE;
+                }
+            } else {
+                if (walkDown(next)) {
+                    continue;
+                }
+                if (text[edgeStarts[next] + activeLength] == text[position]) {
+                    // rule 3: the suffix is already in the tree, the phase ends
+                    if (lastNewNode != NONE && activeNode != ROOT) {
+                        suffixLinks[lastNewNode] = activeNode;
+                    }
+                    activeLength++;
+                    break;
+                }
+                // rule 2: split the edge and add a new leaf
+                int split = splitEdge(next);
+                setChild(split, text[position], newLeaf(position, index));
+                if (lastNewNode != NONE) {
+                    suffixLinks[lastNewNode] = split;
+                }
+                lastNewNode = split;
+            }
+            remainder--;
+            moveToNextSuffix(position - remainder + 1);
+        }
+    }
+    
+    /**
+     * Makes explicit the suffixes still pending when the key ends, adding the key index to them.
+     * Equivalent to a phase for a unique terminator, without adding edges for it.
+     */
+    private void terminate(int end, int index) {
+        int lastNewNode = NONE;
+        while (remainder > 0) {
+            int node;
+            if (activeLength == 0) {
+                node = activeNode;
+            } else {
+                int next = child(activeNode, text[activeEdge]);
+                if (walkDown(next)) {
+                    continue;
+                }
+                node = splitEdge(next);
+            }
+            if (lastNewNode != NONE) {
+                suffixLinks[lastNewNode] = node;
+            }
+            lastNewNode = activeLength == 0 ? NONE : node;
+            addPayload(node, index);
+            linkSuffix(node);
+            remainder--;
+            moveToNextSuffix(end - remainder);
+        }
+    }
+    
+    /**
+     * Moves the active point to the next shorter suffix, starting at the given position.
+     */
+    private void moveToNextSuffix(int suffixStart) {
+        if (activeNode == ROOT && activeLength > 0) {
+            activeLength--;
+            activeEdge = suffixStart;
+        } else if (activeNode != ROOT) {
+            activeNode = suffixLinks[activeNode];
+        }
+    }
+    
+    /**
+     * Moves the active point to the given child if the active length covers its whole edge.
+     */
+    private boolean walkDown(int next) {
+        int length = edgeLength(next);
+        if (activeLength >= length) {
+            activeEdge += length;
+            activeLength -= length;
+            activeNode = next;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Splits the edge entering <tt>next</tt> at the active length, returning the new middle node.
+     */
+    private int splitEdge(int next) {
+        int split = newNode(edgeStarts[next], edgeStarts[next] + activeLength);
+        setChild(activeNode, text[activeEdge], split);
+        edgeStarts[next] += activeLength;
+        setChild(split, text[edgeStarts[next]], next);
+        return split;
+    }
+    
+    /**
+     * Returns the node (if present) whose path from the root starts with the given word, or NONE.
+     */
+    private int searchNode(String word) {
+        int node = ROOT;
+        int i = 0;
+        while (i < word.length()) {
+            int code = code(word.charAt(i));
+            if (code < 0) {
+                return NONE;
+            }
+            int next = child(node, code);
+            if (next == NONE) {
+                return NONE;
+            }
+            int start = edgeStarts[next];
+            int length = Math.min(edgeLength(next), word.length() - i);
+            for (int j = 0; j < length; j++) {
+                if (text[start + j] != code(word.charAt(i + j))) {
+                    return NONE;
+                }
+            }
+            i += length;
+            node = next;
+        }
+        return node == ROOT ? NONE : node;
+    }
+    
+    /**
+     * Collects the payloads of the subtree rooted at the given node, using an explicit stack.
+     * @param numElements the number of results to return. Use -1 to get all
+     */
+    private Set<Integer> collect(int node, int numElements) {
+        Set<Integer> result = new LinkedHashSet<Integer>();
+        int[] stack = new int[INITIAL_CAPACITY];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int entry = payloadHeads[current]; entry != NONE; entry = payloadNexts[entry]) {
+                result.add(payloadValues[entry]);
+                if (result.size() == numElements) {
+                    return result;
+                }
+            }
+            for (int code = ALPHABET_SIZE - 1; code >= 0; code--) {
+                int child = children[current * ALPHABET_SIZE + code];
+                if (child != NONE) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Same as {@link #collect(int, int)}, but adds the payloads to a BitSet instead of boxing them.
+     * @param limit the max number of indexes to collect. Use -1 to get all
+     * @return the number of indexes collected
+     */
+    private int collect(int node, BitSet result, int limit) {
+        int count = 0;
+        int[] stack = new int[INITIAL_CAPACITY];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int entry = payloadHeads[current]; entry != NONE; entry = payloadNexts[entry]) {
+                int index = payloadValues[entry];
+                if (!result.get(index)) {
+                    result.set(index);
+                    if (++count == limit) {
+                        return count;
+                    }
+                }
+            }
+            for (int code = ALPHABET_SIZE - 1; code >= 0; code--) {
+                int child = children[current * ALPHABET_SIZE + code];
+                if (child != NONE) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Appends the key to the text buffer, validating its characters first.
+     */
+    private void appendText(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (code(key.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Illegal input character " + key.charAt(i) + ".");
+            }
+        }
+        if (textLength + key.length() > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + key.length()));
+        }
+        for (int i = 0; i < key.length(); i++) {
+            text[textLength++] = (byte) code(key.charAt(i));
+        }
+    }
+    
+    private int newNode(int start, int end) {
+        if (nodeCount == suffixLinks.length) {
+            int capacity = nodeCount * 2;
+            children = Arrays.copyOf(children, capacity * ALPHABET_SIZE);
+            suffixLinks = Arrays.copyOf(suffixLinks, capacity);
+            edgeStarts = Arrays.copyOf(edgeStarts, capacity);
+            edgeEnds = Arrays.copyOf(edgeEnds, capacity);
+            payloadHeads = Arrays.copyOf(payloadHeads, capacity);
+        }
+        int node = nodeCount++;
+        edgeStarts[node] = start;
+        edgeEnds[node] = end;
+        suffixLinks[node] = ROOT;
+        return node;
+    }
+    
+    private int newLeaf(int start, int index) {
+        int leaf = newNode(start, OPEN);
+        addPayload(leaf, index);
+        if (openLeafCount == openLeaves.length) {
+            openLeaves = Arrays.copyOf(openLeaves, openLeafCount * 2);
+        }
+        openLeaves[openLeafCount++] = leaf;
+        linkSuffix(leaf);
+        return leaf;
+    }
+    
+    /**
+     * Links the node of the previous suffix of the current key to the given one, the node of the next suffix.
+     */
+    private void linkSuffix(int node) {
+        if (lastSuffixNode != NONE) {
+            suffixLinks[lastSuffixNode] = node;
+        }
+        lastSuffixNode = node;
+    }
+    
+    /**
+     * Adds the index to the node payload. Indexes arrive in non-decreasing order,
+     * so a repeated one can only be the most recently added.
+     */
+    private void addPayload(int node, int index) {
+        int head = payloadHeads[node];
+        if (head != NONE && payloadValues[head] == index) {
+            return;
+        }
+        if (payloadCount == payloadValues.length) {
+            payloadValues = Arrays.copyOf(payloadValues, payloadCount * 2);
+            payloadNexts = Arrays.copyOf(payloadNexts, payloadCount * 2);
+        }
+        int entry = payloadCount++;
+        payloadValues[entry] = index;
+        payloadNexts[entry] = head;
+        payloadHeads[node] = entry;
+    }
+    
+    private int edgeLength(int node) {
+        int end = edgeEnds[node] == OPEN ? currentEnd : edgeEnds[node];
+        return end - edgeStarts[node];
+    }
+    
+    private int child(int node, int code) {
+        return children[node * ALPHABET_SIZE + code];
+    }
+    
+    private void setChild(int node, int code, int child) {
+        children[node * ALPHABET_SIZE + code] = child;
+    }
+    
+    private static int code(char c) {
+        return c < CODES.length ? CODES[c] : -1;
+    }
+    
+    /**
+     * Returns the number of nodes, root included.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -2,18 +2,60 @@ package emanuelrichieri.mutantdetector.util.suffixtree;
 
 /**
  * Represents an Edge in the Suffix Tree.
- * It has a label and a destination Node
+ * It has a label and a destination Node.
+ * 
+ * The label is not stored as a String of its own: it is the region [start, end) 
+ * of the key that created the edge, so splitting an edge only moves offsets.
  */
 class Edge {
-    private String label;
+    private final String source;
+    private int start;
+    private final int end;
     private Node destination;
 
+    public Edge(String source, int start, int end, Node dest) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        this.destination = dest;
+    }
+
+    /**
+     * Builds the label String. Only meant for debugging, the tree works on offsets.
+     */
     public String getLabel() {
-        return label;
+        return source.substring(start, end);
+    }
+
+    public int length() {
+        return end - start;
+    }
+
+    public char charAt(int i) {
+        return source.charAt(start + i);
+    }
+
+    /**
+     * Drops the first <tt>length</tt> chars of the label.
+     */
+    public void cutStart(int length) {
+        this.start += length;
+    }
+
+    /**
+     * Tests whether the region [from, from + length) of the given string is equal to 
+     * the first <tt>length</tt> chars of the label.
+     */
+    public boolean labelMatches(String str, int from, int length) {
+        return length <= length() && str.regionMatches(from, source, start, length);
+    }
+
+    public String getSource() {
+        return source;
     }
 
-    public void setLabel(String label) {
-        this.label = label;
+    public int getStart() {
+        return start;
     }
 
     public Node getDestination() {
@@ -24,9 +66,4 @@ class Edge {
         this.destination = dest;
     }
 
-    public Edge(String label, Node dest) {
-        this.label = label;
-        this.destination = dest;
-    }
-
 }
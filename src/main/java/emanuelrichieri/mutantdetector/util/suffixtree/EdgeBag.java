@@ -11,16 +11,17 @@ class EdgeBag {
     private byte[] chars;
     private Edge[] values;
     private static final int BSEARCH_THRESHOLD = 6; // Minimum length to do binary search
+    private static final byte[] NO_CHARS = new byte[0];
+    private static final Edge[] NO_EDGES = new Edge[0];
 
-    public Edge put(Character character, Edge e) {
-        char c = character.charValue();
+    public Edge put(char c, Edge e) {
         if (c != (char) (byte) c) {
             throw new IllegalArgumentException("Illegal input character " + c + ".");
         }
         
         if (chars == null) {
-            chars = new byte[0];
-            values = new Edge[0];
+            chars = NO_CHARS;
+            values = NO_EDGES;
         }
         int idx = search(c);
         Edge previous = null;
@@ -73,8 +74,15 @@ class EdgeBag {
         return -1;
     }
 
+    /**
+     * Returns the i-th edge, 0 <= i < size(). Allows walking the edges without allocating an iterator.
+     */
+    Edge valueAt(int i) {
+        return values[i];
+    }
+
     public Collection<Edge> values() {
-        return Arrays.asList(values == null ? new Edge[0] : values);
+        return Arrays.asList(values == null ? NO_EDGES : values);
     }
     
     /**
@@ -1,5 +1,6 @@
 package emanuelrichieri.mutantdetector.util.suffixtree;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -10,17 +11,30 @@ import java.util.Collections;
  * @see <a href="http://web.ist.utl.pt/joao.carreira/presentation.pdf"/> 
 
  */
-public class GeneralizedSuffixTree {
+public class GeneralizedSuffixTree implements IGeneralizedSuffixTree {
 
     /**
      * The index of the last item that was added to the GST
      */
     private int last = 0;
+
+    /**
+     * The number of keys inserted so far, and the value it had when the node counts were cached
+     */
+    private int insertions = 0;
+    private int countedInsertions = -1;
     
     private final Node root = new Node();
     
     // The last leaf that was added during the update operation
     private Node activeLeaf = root;
+    
+    // The key being inserted. Every string handled while inserting is a region of it, given by offsets
+    private String key;
+    
+    // Second results of canonize, update and testAndSplit, kept in fields to avoid allocating pairs on every step
+    private int resultStart;
+    private boolean endpoint;
 
     /**
      * Searches for the given word within the GST.
@@ -31,6 +45,7 @@ public class GeneralizedSuffixTree {
      * @param word the key to search for
      * @return the collection of indexes associated with the input <tt>word</tt>
      */
+    @Override
     public Collection<Integer> search(String word) {
         return search(word, -1);
     }
@@ -42,6 +57,7 @@ public class GeneralizedSuffixTree {
      * @param results the max number of results to return
      * @return at most <tt>results</tt> values for the given word
      */
+    @Override
     public Collection<Integer> search(String word, int results) {
         Node tmpNode = searchNode(word);
         if (tmpNode == null) {
@@ -58,15 +74,51 @@ public class GeneralizedSuffixTree {
      * @return at most <tt>results</tt> values for the given word
      * @see GeneralizedSuffixTree#ResultInfo
      */
+    @Override
     public ResultInfo searchWithCount(String word, int to) {
         Node tmpNode = searchNode(word);
         if (tmpNode == null) {
             return new ResultInfo(Collections.emptyList(), 0);
         }
 
+        // make sure the cached counts are not stale
+        computeCount();
         return new ResultInfo(tmpNode.getData(to), tmpNode.getResultCount());
     }
 
+    /**
+     * Counts the distinct indexes whose key contains the given word, 
+     * stopping the subtree walk as soon as <tt>limit</tt> indexes are found.
+     *
+     * @param word the key to search for
+     * @param limit the max number of indexes to count, -1 to count all
+     * @return the number of indexes associated with the input <tt>word</tt>, at most <tt>limit</tt>
+     */
+    @Override
+    public int count(String word, int limit) {
+        Node tmpNode = searchNode(word);
+        if (tmpNode == null || limit == 0) {
+            return 0;
+        }
+        return tmpNode.collectData(new BitSet(), 0, limit);
+    }
+
+    /**
+     * Searches for the given word within the GST.
+     *
+     * @param word the key to search for
+     * @return the indexes associated with the input <tt>word</tt>, as a BitSet
+     */
+    @Override
+    public BitSet searchIndexes(String word) {
+        BitSet result = new BitSet();
+        Node tmpNode = searchNode(word);
+        if (tmpNode != null) {
+            tmpNode.collectData(result, 0, -1);
+        }
+        return result;
+    }
+
     /**
      * Returns the tree node (if present) that corresponds to the given string.
 	 * Verifies if exists a path from the root to a node such that the concatenation
@@ -85,14 +137,13 @@ public class GeneralizedSuffixTree {
                 // there is no edge starting with this char
                 return null;
             } else {
-                String label = currentEdge.getLabel();
-                int lenToMatch = Math.min(word.length() - i, label.length());
-                if (!word.regionMatches(i, label, 0, lenToMatch)) {
+                int lenToMatch = Math.min(word.length() - i, currentEdge.length());
+                if (!currentEdge.labelMatches(word, i, lenToMatch)) {
                     // the label on the edge does not correspond to the one in the string to search
                     return null;
                 }
 
-                if (label.length() >= word.length() - i) {
+                if (currentEdge.length() >= word.length() - i) {
                     return currentEdge.getDestination();
                 } else {
                     // advance to next node
@@ -114,6 +165,7 @@ public class GeneralizedSuffixTree {
      * @param index the value that will be added to the index
      * @throws IllegalStateException if an invalid index is passed as input
      */
+    @Override
     public void insert(String key, int index) throws IllegalStateException {
         if (index < last) {
             throw new IllegalStateException("The input index must not be less than any of the previously inserted ones. Got " + index + ", expected at least " + last);
@@ -121,128 +173,133 @@ public class GeneralizedSuffixTree {
             last = index;
         }
 
+        // the cached counts don't include this key
+        insertions++;
+
         // reset activeLeaf
         activeLeaf = root;
+        this.key = key;
 
-        String remainder = key;
         Node node = root;
+        // the active string is always key[start, i): the part of the key read so far 
+        // that must be appended to the path of node
+        int start = 0;
 
         // proceed with tree construction (closely related to procedure in Ukkonen's paper)
-        String text = "";
         // iterate over the string, one char at a time
-        for (int i = 0; i < remainder.length(); i++) {
-            text += remainder.charAt(i);
-            // use intern to make sure the resulting string is in the pool.
-            // comparing interns is faster than string equals
-            text = text.intern();
-
-            // line 7: update the tree with the new transitions due to this new char
-            Pair<Node, String> active = update(node, text, remainder.substring(i), index);
+        for (int i = 0; i < key.length(); i++) {
+            // line 7: update the tree with the new transitions due to this new char (active string key[start, i + 1))
+            node = update(node, start, i + 1, index);
+            start = resultStart;
             // line 8: make sure the active pair is canonical
-            active = canonize(active.getFirst(), active.getSecond());
-            
-            node = active.getFirst();
-            text = active.getSecond();
+            node = canonize(node, start, i + 1);
+            start = resultStart;
         }
 
         // add leaf suffix link, is necessary
         if (null == activeLeaf.getSuffix() && activeLeaf != root && activeLeaf != node) {
             activeLeaf.setSuffix(node);
         }
+        this.key = null;
     }
 
     /**
-     * Tests whether the string stringPart + t is contained in the subtree that has inputNode as root.
+     * Tests whether the string key[from, to) + t is contained in the subtree that has inputNode as root.
      * If that's not the case, and there exists a path of edges e1, e2, ... such that
-     *     e1.label + e2.label + ... + $end = stringPart
+     *     e1.label + e2.label + ... + $end = key[from, to)
      * and there is an edge g such that
-     *     g.label = stringPart + rest
+     *     g.label = key[from, to) + rest
      * Then g will be split in two different edges, one having $end as label, and the other one
      * having rest as label.
      * 
      * @see Extension rules from page 19 on <a href="http://web.ist.utl.pt/joao.carreira/presentation.pdf"/> 
      * 
      * @param inputNode the starting node
-     * @param stringPart the string to search
+     * @param from start of the string to search
+     * @param to end of the string to search
      * @param t the following character
-     * @param remainder the remainder of the string to add to the index
+     * @param restStart start of the remainder of the key to add to the index, key[restStart, key.length())
      * @param value the value to add to the index
-     * @return a pair containing
-     *                  true/false depending on whether (stringPart + t) is contained in the subtree starting in inputNode
-     *                  the last node that can be reached by following the path denoted by stringPart starting from inputNode
-     *         
+     * @return the last node that can be reached by following the path denoted by key[from, to) starting from inputNode.
+     *         {@link #endpoint} is set to true/false depending on whether (key[from, to) + t) is contained 
+     *         in the subtree starting in inputNode
      */
-    private Pair<Boolean, Node> testAndSplit(final Node inputNode, final String stringPart, final char t, final String remainder, final int value) {
+    private Node testAndSplit(final Node inputNode, final int from, final int to, final char t, final int restStart, final int value) {
         // descend the tree as far as possible
-        Pair<Node, String> farthestFound = canonize(inputNode, stringPart);
+        Node node = canonize(inputNode, from, to); // Farthest node reachable from inputNode by key[from, to)
+        int strStart = resultStart; // key[strStart, to) is the remaining str not reachable 
+        int strLength = to - strStart;
         
-        Node node = farthestFound.getFirst(); // Farthest node reachable from inputNode by stringPart
-        String str = farthestFound.getSecond(); // Remaining str not reachable 
-
-        if (!"".equals(str)) {
-            Edge g = node.getEdge(str.charAt(0));
+        if (strLength > 0) {
+            Edge g = node.getEdge(key.charAt(strStart));
 
-            String label = g.getLabel();
             // must see whether "str" is substring of the label of an edge
-            if (label.length() > str.length() && label.charAt(str.length()) == t) {
+            if (g.length() > strLength && g.charAt(strLength) == t) {
                 // the rest of the edge label starts with t
-            	return new Pair<Boolean, Node>(true, node);
+                endpoint = true;
+                return node;
             } else {
             	// the rest of the edge label is empty (label.length == str.length) or doesn't start with t
             	
                 // need to split the edge
-                String newlabel = label.substring(str.length());
-                assert (label.startsWith(str));
+                assert (g.labelMatches(key, strStart, strLength));
 
                 // build a new node
                 Node r = new Node();
-                // build a new edge
-                Edge newedge = new Edge(str, r);
+                // build a new edge, labeled with the first strLength chars of g
+                Edge newedge = new Edge(g.getSource(), g.getStart(), g.getStart() + strLength, r);
 
-                g.setLabel(newlabel);
+                g.cutStart(strLength);
 
                 // link s -> r
-                r.addEdge(newlabel.charAt(0), g);
-                node.addEdge(str.charAt(0), newedge);
+                r.addEdge(g.charAt(0), g);
+                node.addEdge(key.charAt(strStart), newedge);
 
-                return new Pair<Boolean, Node>(false, r);
+                endpoint = false;
+                return r;
             }
 
         } else { 
-        	// All stringPart is reachable
-        	// analyzing remainder  (remainder starts with t) 
+        	// All key[from, to) is reachable
+        	// analyzing remainder key[restStart, key.length()) (remainder starts with t) 
         	
+            int remainderLength = key.length() - restStart;
             Edge e = node.getEdge(t);
             if (null == e) {
                 // if there is no t-transtion from s
-                return new Pair<Boolean, Node>(false, node);
+                endpoint = false;
+                return node;
             } else {
-                if (remainder.equals(e.getLabel())) {
+                if (e.length() == remainderLength && e.labelMatches(key, restStart, remainderLength)) {
                 	// All remainder from stringPart is in the tree in the found edge
                     // update payload of destination node
                     e.getDestination().addRef(value);
-                    return new Pair<Boolean, Node>(true, node);
+                    endpoint = true;
+                    return node;
                     
-                } else if (remainder.startsWith(e.getLabel())) {
+                } else if (remainderLength > e.length() && e.labelMatches(key, restStart, e.length())) {
                 	// Part of the remainder from stringPart is in the tree
                 	// and in the found edge
-                    return new Pair<Boolean, Node>(true, node);
+                    endpoint = true;
+                    return node;
                     
-                } else if (e.getLabel().startsWith(remainder)) {
+                } else if (e.labelMatches(key, restStart, remainderLength)) {
                 	// edge label contains a part of remainder
                     // need to split as above
                     Node newNode = new Node();
                     newNode.addRef(value);
                     // newNode will be reachable by newEdge
-                    Edge newEdge = new Edge(remainder, newNode);
+                    Edge newEdge = new Edge(key, restStart, key.length(), newNode);
                     // Spliting edge from remainder end 
-                    e.setLabel(e.getLabel().substring(remainder.length()));
-                    newNode.addEdge(e.getLabel().charAt(0), e); // newNode add edge with remainder first char
+                    e.cutStart(remainderLength);
+                    newNode.addEdge(e.charAt(0), e); // newNode add edge with remainder first char
                     node.addEdge(t, newEdge); // newEdge connects node with newNode
-                    return new Pair<Boolean, Node>(false, node);
+                    endpoint = false;
+                    return node;
                 } else {
                     // they are different words. No prefix. but they may still share some common substr
-                    return new Pair<Boolean, Node>(true, node);
+                    endpoint = true;
+                    return node;
                 }
             }
         }
@@ -250,64 +307,65 @@ public class GeneralizedSuffixTree {
     }
 
     /**
-     * Return a (Node, String) (n, remainder) pair such that 
-     *  <br> - n is a farthest descendant of node (the input node) that can be reached by 
-     *  	following a path of edges denoting a prefix of inputstr 
-     *  <br> - and remainder will be string that must be appended to the concatenation of labels 
-     *  	from s to n to get inpustr. (i.e., part of inputstr not reachable following a path of edges)
+     * Return the farthest descendant n of node (the input node) that can be reached by 
+     * following a path of edges denoting a prefix of key[from, to). 
+     * {@link #resultStart} is set so that key[resultStart, to) is the string that must be appended 
+     * to the concatenation of labels from node to n to get key[from, to). 
+     * (i.e., part of key[from, to) not reachable following a path of edges)
      */
-    private Pair<Node, String> canonize(final Node node, final String inputstr) {
-
-        if ("".equals(inputstr)) {
-            return new Pair<Node, String>(node, inputstr);
+    private Node canonize(final Node node, final int from, final int to) {
+        resultStart = from;
+        if (from == to) {
+            return node;
         } else {
             Node currentNode = node;
-            String str = inputstr;
-            Edge g = node.getEdge(str.charAt(0));
+            int start = from;
+            Edge g = node.getEdge(key.charAt(start));
             // descend the tree as long as a proper label is found
             
             // while an edge is found from the remaining str (remaining str starts with edge label)
-            while (g != null && str.startsWith(g.getLabel())) {
-                str = str.substring(g.getLabel().length());
+            while (g != null && to - start >= g.length() && g.labelMatches(key, start, g.length())) {
+                start += g.length();
                 currentNode = g.getDestination();
-                if (str.length() > 0) {
-                    g = currentNode.getEdge(str.charAt(0));
+                if (start < to) {
+                    g = currentNode.getEdge(key.charAt(start));
+                } else {
+                    break;
                 }
             }
 
-            return new Pair<Node, String>(currentNode, str);
+            resultStart = start;
+            return currentNode;
         }
     }
 
     /**
-     * Updates the tree starting from inputNode and by adding stringPart.
+     * Updates the tree starting from inputNode and by adding key[from, to).
      * 
-     * Returns a reference (Node, String) pair for the string that has been added so far.
+     * Returns a reference (Node, key[resultStart, to)) pair for the string that has been added so far.
      * This means:
      * - the Node will be the Node that can be reached by the longest path string (S1)
      *   that can be obtained by concatenating consecutive edges in the tree and
      *   that is a substring of the string added so far to the tree.
-     * - the String will be the remainder that must be added to S1 to get the string
+     * - key[resultStart, to) will be the remainder that must be added to S1 to get the string
      *   added so far.
      * 
      * @param inputNode the node to start from
-     * @param stringPart the string to add to the tree
-     * @param rest the rest of the string
+     * @param from start of the string to add to the tree
+     * @param to end of the string to add to the tree. The rest of the key is key[to - 1, key.length())
      * @param value the value to add to the index
      */
-    private Pair<Node, String> update(final Node inputNode, final String stringPart, final String rest, final int value) {
+    private Node update(final Node inputNode, final int from, final int to, final int value) {
         Node s = inputNode;
-        String tempstr = stringPart;
-        char newChar = stringPart.charAt(stringPart.length() - 1); // Last char of the string part is the new char to add
+        int tempStart = from; // tempstr is key[tempStart, to)
+        char newChar = key.charAt(to - 1); // Last char of the string part is the new char to add
+        int restStart = to - 1;
 
         // line 1
         Node oldroot = root;
 
         // line 1b
-        Pair<Boolean, Node> ret = testAndSplit(s, tempstr.substring(0, tempstr.length() - 1), newChar, rest, value);
-
-        Node r = ret.getSecond();
-        boolean endpoint = ret.getFirst();
+        Node r = testAndSplit(s, tempStart, to - 1, newChar, restStart, value);
 
         Node leaf;
         // line 2
@@ -322,7 +380,7 @@ public class GeneralizedSuffixTree {
                 // must build a new leaf
                 leaf = new Node();
                 leaf.addRef(value);
-                Edge newedge = new Edge(rest, leaf);
+                Edge newedge = new Edge(key, restStart, key.length(), leaf);
                 r.addEdge(newChar, newedge);
             }
 
@@ -344,18 +402,15 @@ public class GeneralizedSuffixTree {
             if (null == s.getSuffix()) { // root node
                 assert (root == s);
                 // this is a special case to handle what is referred to as node _|_ on the paper
-                tempstr = tempstr.substring(1);
+                tempStart++;
             } else {
-                Pair<Node, String> canret = canonize(s.getSuffix(), safeCutLastChar(tempstr));
-                s = canret.getFirst();
-                // use intern to ensure that tempstr is a reference from the string pool
-                tempstr = (canret.getSecond() + tempstr.charAt(tempstr.length() - 1)).intern();
+                // canonize tempstr without its last char, then add it back
+                s = canonize(s.getSuffix(), tempStart, Math.max(tempStart, to - 1));
+                tempStart = resultStart;
             }
 
             // line 7
-            ret = testAndSplit(s, safeCutLastChar(tempstr), newChar, rest, value);
-            r = ret.getSecond();
-            endpoint = ret.getFirst();
+            r = testAndSplit(s, tempStart, Math.max(tempStart, to - 1), newChar, restStart, value);
 
         }
 
@@ -365,22 +420,25 @@ public class GeneralizedSuffixTree {
         }
         oldroot = root;
 
-        return new Pair<Node, String>(s, tempstr);
+        resultStart = tempStart;
+        return s;
     }
 
     Node getRoot() {
         return root;
     }
 
-    private String safeCutLastChar(String seq) {
-        if (seq.length() == 0) {
-            return "";
-        }
-        return seq.substring(0, seq.length() - 1);
-    }
-
+    /**
+     * Computes the number of distinct indexes stored in the GST, caching the count of every node.
+     * The counts are computed again only if a key was inserted since the last call.
+     */
+    @Override
     public int computeCount() {
-        return root.computeAndCacheCount();
+        if (countedInsertions != insertions) {
+            root.computeAndCacheCount();
+            countedInsertions = insertions;
+        }
+        return root.getResultCount();
     }
 
     /**
@@ -404,26 +462,4 @@ public class GeneralizedSuffixTree {
             this.results = results;
         }
     }
-
-    /**
-     * A private class used to return a tuples of two elements
-     */
-    private class Pair<A, B> {
-
-        private final A first;
-        private final B second;
-
-        public Pair(A first, B second) {
-            this.first = first;
-            this.second = second;
-        }
-
-        public A getFirst() {
-            return first;
-        }
-
-        public B getSecond() {
-            return second;
-        }
-    }
 }
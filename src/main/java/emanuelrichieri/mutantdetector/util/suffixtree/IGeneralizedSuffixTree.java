@@ -0,0 +1,18 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+/**
+ * A Generalized Suffix Tree: an index of string keys, each one associated to an int index, 
+ * that finds the indexes of the keys containing a given word, and where new keys can be inserted.
+ */
+public interface IGeneralizedSuffixTree extends ISearchableGeneralizedSuffixTree {
+
+    /**
+     * Adds the specified <tt>index</tt> to the GST under the given <tt>key</tt>.
+     * Entries must be inserted so that their indexes are in non-decreasing order.
+     *
+     * @param key the string key that will be added to the index
+     * @param index the value that will be added to the index
+     * @throws IllegalStateException if an invalid index is passed as input
+     */
+    public void insert(String key, int index) throws IllegalStateException;
+}
@@ -0,0 +1,64 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import emanuelrichieri.mutantdetector.util.suffixtree.GeneralizedSuffixTree.ResultInfo;
+
+/**
+ * The searches of a Generalized Suffix Tree: an index of string keys, each one associated to an int index, 
+ * that finds the indexes of the keys containing a given word.
+ * Read-only trees, such as a mapped snapshot, only implement these.
+ */
+public interface ISearchableGeneralizedSuffixTree {
+
+    /**
+     * Searches for the given word within the GST.
+     *
+     * @param word the key to search for
+     * @return the collection of indexes associated with the input <tt>word</tt>
+     */
+    public Collection<Integer> search(String word);
+    
+    /**
+     * Searches for the given word within the GST and returns at most the given number of matches.
+     *
+     * @param word the key to search for
+     * @param results the max number of results to return, -1 to return all
+     * @return at most <tt>results</tt> values for the given word
+     */
+    public Collection<Integer> search(String word, int results);
+    
+    /**
+     * Searches for the given word within the GST and returns at most the given number of matches,
+     * together with the total number of matches.
+     *
+     * @param word the key to search for
+     * @param to the max number of results to return
+     * @see GeneralizedSuffixTree#ResultInfo
+     */
+    public ResultInfo searchWithCount(String word, int to);
+    
+    /**
+     * Counts the distinct indexes whose key contains the given word, without boxing them.
+     * The subtree walk stops as soon as <tt>limit</tt> indexes are found.
+     *
+     * @param word the key to search for
+     * @param limit the max number of indexes to count, -1 to count all
+     * @return the number of indexes associated with the input <tt>word</tt>, at most <tt>limit</tt>
+     */
+    public int count(String word, int limit);
+    
+    /**
+     * Searches for the given word within the GST, returning the indexes as a BitSet.
+     *
+     * @param word the key to search for
+     * @return the set of indexes associated with the input <tt>word</tt>
+     */
+    public BitSet searchIndexes(String word);
+    
+    /**
+     * Computes the number of distinct indexes stored in the GST.
+     */
+    public int computeCount();
+}
@@ -0,0 +1,241 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import emanuelrichieri.mutantdetector.util.suffixtree.GeneralizedSuffixTree.ResultInfo;
+
+/**
+ * A read-only Generalized Suffix Tree that runs its searches straight off a snapshot file
+ * written by {@link CompactGeneralizedSuffixTree#writeSnapshot(Path)}, mapped in memory.
+ * There is no deserialization pass: opening a snapshot only checks its header, and the pages
+ * of the file are loaded by the OS as the searches touch them.
+ * 
+ * Snapshot format (big-endian ints, the arrays of {@link CompactGeneralizedSuffixTree} one after the other):
+ * <br> - header: MAGIC, VERSION, node count, payload entry count, text length, distinct indexes, last index.
+ * <br> - children: 4 child ids per node, one for each base.
+ * <br> - edge starts and edge ends: label of the edge entering each node, as [start, end) offsets into the text.
+ * <br> - payload heads: first payload entry of each node.
+ * <br> - payload values and payload nexts: payload entries, as linked lists.
+ * <br> - text: all the inserted keys, 1 byte per base.
+ * <br>
+ * Suffix links are only needed to insert, so they are not stored.
+ * A single MappedByteBuffer is used, so snapshots are limited to 2GB.
+ */
+public class MappedGeneralizedSuffixTree implements ISearchableGeneralizedSuffixTree {
+
+    static final int MAGIC = 0x47535431; // "GST1"
+    
+    static final int VERSION = 1;
+    
+    static final int HEADER_INTS = 7;
+
+    private static final int ALPHABET_SIZE = 4;
+    
+    private static final int ROOT = 0;
+    
+    private static final int NONE = 0;
+    
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ByteBuffer buffer;
+    
+    private final int distinctIndexes;
+    
+    // byte offsets of each section
+    private final int children;
+    private final int edgeStarts;
+    private final int edgeEnds;
+    private final int payloadHeads;
+    private final int payloadValues;
+    private final int payloadNexts;
+    private final int text;
+
+    private MappedGeneralizedSuffixTree(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid suffix tree snapshot");
+        }
+        int nodeCount = buffer.getInt(8);
+        int payloadCount = buffer.getInt(12);
+        int textLength = buffer.getInt(16);
+        this.distinctIndexes = buffer.getInt(20);
+        
+        this.children = HEADER_INTS * Integer.BYTES;
+        this.edgeStarts = children + nodeCount * ALPHABET_SIZE * Integer.BYTES;
+        this.edgeEnds = edgeStarts + nodeCount * Integer.BYTES;
+        this.payloadHeads = edgeEnds + nodeCount * Integer.BYTES;
+        this.payloadValues = payloadHeads + nodeCount * Integer.BYTES;
+        this.payloadNexts = payloadValues + payloadCount * Integer.BYTES;
+        this.text = payloadNexts + payloadCount * Integer.BYTES;
+        if (nodeCount < 1 || payloadCount < 1 || textLength < 0 || (long) text + textLength != buffer.capacity()) {
+            throw new IOException("Invalid suffix tree snapshot");
+        }
+    }
+
+    /**
+     * Maps the given snapshot file read-only.
+     * @throws IOException if the file cannot be read or it is not a valid snapshot
+     */
+    public static MappedGeneralizedSuffixTree open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Suffix tree snapshot too large: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedGeneralizedSuffixTree(buffer);
+        }
+    }
+
+    @Override
+    public Collection<Integer> search(String word) {
+        return search(word, -1);
+    }
+
+    @Override
+    public Collection<Integer> search(String word, int results) {
+        int node = searchNode(word);
+        if (node == NONE) {
+            return Collections.emptyList();
+        }
+        Set<Integer> result = new LinkedHashSet<Integer>();
+        BitSet indexes = new BitSet();
+        collect(node, indexes, results);
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @Override
+    public ResultInfo searchWithCount(String word, int to) {
+        int node = searchNode(word);
+        if (node == NONE) {
+            return new ResultInfo(Collections.emptyList(), 0);
+        }
+        BitSet indexes = new BitSet();
+        int total = collect(node, indexes, -1);
+        Set<Integer> results = new LinkedHashSet<Integer>();
+        for (int i = indexes.nextSetBit(0); i >= 0 && results.size() != to; i = indexes.nextSetBit(i + 1)) {
+            results.add(i);
+        }
+        return new ResultInfo(results, total);
+    }
+
+    @Override
+    public int count(String word, int limit) {
+        int node = searchNode(word);
+        if (node == NONE || limit == 0) {
+            return 0;
+        }
+        return collect(node, new BitSet(), limit);
+    }
+
+    @Override
+    public BitSet searchIndexes(String word) {
+        BitSet result = new BitSet();
+        int node = searchNode(word);
+        if (node != NONE) {
+            collect(node, result, -1);
+        }
+        return result;
+    }
+
+    @Override
+    public int computeCount() {
+        return distinctIndexes;
+    }
+
+    /**
+     * Returns the index of the last key inserted in the tree the snapshot was written from.
+     */
+    public int getLastIndex() {
+        return buffer.getInt(24);
+    }
+
+    /**
+     * Returns the node (if present) whose path from the root starts with the given word, or NONE.
+     */
+    private int searchNode(String word) {
+        int node = ROOT;
+        int i = 0;
+        while (i < word.length()) {
+            int code = code(word.charAt(i));
+            if (code < 0) {
+                return NONE;
+            }
+            int next = intAt(children, node * ALPHABET_SIZE + code);
+            if (next == NONE) {
+                return NONE;
+            }
+            int start = intAt(edgeStarts, next);
+            int length = Math.min(intAt(edgeEnds, next) - start, word.length() - i);
+            for (int j = 0; j < length; j++) {
+                if (buffer.get(text + start + j) != code(word.charAt(i + j))) {
+                    return NONE;
+                }
+            }
+            i += length;
+            node = next;
+        }
+        return node == ROOT ? NONE : node;
+    }
+
+    /**
+     * Adds the payloads of the subtree rooted at the given node to a BitSet, using an explicit stack.
+     * @param limit the max number of indexes to collect. Use -1 to get all
+     * @return the number of indexes collected
+     */
+    private int collect(int node, BitSet result, int limit) {
+        int count = 0;
+        int[] stack = new int[INITIAL_CAPACITY];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int entry = intAt(payloadHeads, current); entry != NONE; entry = intAt(payloadNexts, entry)) {
+                int index = intAt(payloadValues, entry);
+                if (!result.get(index)) {
+                    result.set(index);
+                    if (++count == limit) {
+                        return count;
+                    }
+                }
+            }
+            for (int code = ALPHABET_SIZE - 1; code >= 0; code--) {
+                int child = intAt(children, current * ALPHABET_SIZE + code);
+                if (child != NONE) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int intAt(int section, int i) {
+        return buffer.getInt(section + i * Integer.BYTES);
+    }
+
+    private static int code(char c) {
+        switch (c) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package emanuelrichieri.mutantdetector.util.suffixtree;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -16,8 +17,8 @@ class Node {
      * In this case, it is used to store all property indexes.
      * 
      * As it is handled, it resembles an ArrayList: when it becomes full it 
-     * is copied to another bigger array (whose size is equals to data.length +
-     * INCREMENT).
+     * is copied to another bigger array (whose size is data.length * GROWTH_FACTOR,
+     * at least FIRST_SIZE), so inserting n indexes costs O(log n) copies instead of n.
      * 
      * Originally it was a List<Integer> but it took too much memory, changing
      * it to int[] take less memory because indexes are stored using native
@@ -31,13 +32,21 @@ class Node {
      */
     private int lastIdx = 0;
     /**
-     * The starting size of the int[] array containing the payload
+     * The starting payload, shared by all the nodes that have no indexes yet
      */
-    private static final int START_SIZE = 0;
+    private static final int[] EMPTY_DATA = new int[0];
     /**
-     * The increment in size used when the payload array is full
+     * The size of the payload array the first time an index is added
      */
-    private static final int INCREMENT = 1;
+    private static final int FIRST_SIZE = 2;
+    /**
+     * The growth factor used when the payload array is full
+     */
+    private static final int GROWTH_FACTOR = 2;
+    /**
+     * The starting size of the explicit stacks used to walk a subtree
+     */
+    private static final int STACK_SIZE = 16;
     /**
      * The set of edges starting from this node
      */
@@ -53,7 +62,8 @@ class Node {
      * node and in underlying ones (i.e. nodes that can be reached through paths
      * starting from <tt>this</tt>.
      * 
-     * This must be calculated explicitly using computeAndCacheCount
+     * This must be calculated explicitly using computeAndCacheCount, and it is stale 
+     * as soon as a new key is inserted in the tree: GeneralizedSuffixTree keeps track of that.
      * @see Node#computeAndCacheCount() 
      */
     private int resultCount = -1;
@@ -64,7 +74,7 @@ class Node {
     Node() {
         edges = new EdgeBag();
         suffix = null;
-        data = new int[START_SIZE];
+        data = EMPTY_DATA;
     }
 
     /**
@@ -85,27 +95,48 @@ class Node {
      * @return the first <tt>numElements</tt> associated to this node and children
      */
     Collection<Integer> getData(int numElements) {
-        Set<Integer> result = new HashSet<Integer>();
-        for (int num : data) {
-            result.add(num);
-            if (result.size() == numElements) {
-                return result;
-            }
-        }
-        for (Edge edge : edges.values()) {
-        	if (numElements > -1 && result.size() >= numElements) {
-        		return result;
-        	}
-	        for (int num : edge.getDestination().getData()) {
-	            result.add(num);
-	            if (result.size() == numElements) {
-	                return result;
-	            }
-	        }
+        BitSet indexes = new BitSet();
+        Set<Integer> result = new HashSet<Integer>(collectData(indexes, 0, numElements) * 2);
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            result.add(i);
         }
         return result;
     }
 
+    /**
+     * Adds to <tt>result</tt> the indexes associated to this node and its children, without boxing them.
+     * Stops as soon as <tt>limit</tt> distinct indexes have been collected.
+     * 
+     * The subtree is walked with an explicit stack, so its depth is not bounded by the thread stack size.
+     * 
+     * @param result the indexes collected so far
+     * @param count the number of indexes in <tt>result</tt>
+     * @param limit the max number of indexes to collect. Use -1 to get all
+     * @return the number of indexes in <tt>result</tt> after adding the ones of this subtree
+     */
+    int collectData(BitSet result, int count, int limit) {
+        Node[] stack = new Node[STACK_SIZE];
+        int top = 0;
+        stack[top++] = this;
+        while (top > 0 && count != limit) {
+            Node node = stack[--top];
+            for (int i = 0; i < node.lastIdx && count != limit; i++) {
+                if (!result.get(node.data[i])) {
+                    result.set(node.data[i]);
+                    count++;
+                }
+            }
+            EdgeBag children = node.edges;
+            if (top + children.size() > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children.size()));
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack[top++] = children.valueAt(i).getDestination();
+            }
+        }
+        return count;
+    }
+
     /**
      * Adds the given <tt>index</tt> to the set of indexes associated with <tt>this</tt>
      */
@@ -122,7 +153,7 @@ class Node {
             if (iter.contains(index)) {
                 break;
             }
-            iter.addRef(index);
+            iter.addIndex(index);
             iter = iter.suffix;
         }
 
@@ -144,27 +175,60 @@ class Node {
      * Computes the number of results that are stored on this node and on its
      * children, and caches the result.
      * 
-     * Performs the same operation on subnodes as well
+     * Performs the same operation on subnodes as well.
+     * 
+     * The subtree is walked in post-order with an explicit stack: when a node is done, the BitSets 
+     * of its children are on top of a second stack, and they are merged into the first one, 
+     * which becomes the BitSet of the node. So only the BitSets of the pending siblings are alive at once.
      * @return the number of results
      */
     protected int computeAndCacheCount() {
-        computeAndCacheCountRecursive();
-        return resultCount;
-    }
-
-    private Set<Integer> computeAndCacheCountRecursive() {
-        Set<Integer> result = new HashSet<Integer>();
-        for (int num : data) {
-            result.add(num);
-        }
-        for (Edge edge : edges.values()) {
-            for (int num : edge.getDestination().computeAndCacheCountRecursive()) {
-                result.add(num);
+        Node[] stack = new Node[STACK_SIZE];
+        boolean[] expanded = new boolean[STACK_SIZE];
+        BitSet[] done = new BitSet[STACK_SIZE];
+        int top = 0;
+        int doneTop = 0;
+        stack[top++] = this;
+        while (top > 0) {
+            Node node = stack[top - 1];
+            int childCount = node.edges.size();
+            if (!expanded[top - 1]) {
+                // first visit: children go first
+                expanded[top - 1] = true;
+                if (top + childCount > stack.length) {
+                    int size = Math.max(stack.length * 2, top + childCount);
+                    stack = Arrays.copyOf(stack, size);
+                    expanded = Arrays.copyOf(expanded, size);
+                }
+                for (int i = childCount - 1; i >= 0; i--) {
+                    stack[top] = node.edges.valueAt(i).getDestination();
+                    expanded[top++] = false;
+                }
+            } else {
+                // second visit: the BitSets of the children are the last childCount ones
+                top--;
+                BitSet result;
+                if (childCount == 0) {
+                    result = new BitSet();
+                } else {
+                    doneTop -= childCount;
+                    result = done[doneTop];
+                    for (int i = 1; i < childCount; i++) {
+                        result.or(done[doneTop + i]);
+                        done[doneTop + i] = null;
+                    }
+                }
+                for (int i = 0; i < node.lastIdx; i++) {
+                    result.set(node.data[i]);
+                }
+                node.resultCount = result.cardinality();
+                if (doneTop == done.length) {
+                    done = Arrays.copyOf(done, done.length * 2);
+                }
+                done[doneTop++] = result;
             }
         }
-
-        resultCount = result.size();
-        return result;
+        return resultCount;
     }
 
     /**
@@ -175,8 +239,7 @@ class Node {
      * @throws IllegalStateException when this method is called without having called
      * computeAndCacheCount first
      * @see Node#computeAndCacheCount() 
-     * @todo this should raise an exception when the subtree is changed but count
-     * wasn't updated
+     * @see GeneralizedSuffixTree#computeCount() 
      */
     public int getResultCount() throws IllegalStateException {
         if (-1 == resultCount) {
@@ -208,7 +271,7 @@ class Node {
 
     private void addIndex(int index) {
         if (lastIdx == data.length) {
-            int[] copy = new int[data.length + INCREMENT];
+            int[] copy = new int[Math.max(FIRST_SIZE, data.length * GROWTH_FACTOR)];
             System.arraycopy(data, 0, copy, 0, data.length);
             data = copy;
         }
@@ -0,0 +1,82 @@
+package emanuelrichieri.mutantdetector.util.validator;
+
+import java.util.Objects;
+
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+/**
+ * Validates the shape and content of a DNA sequence matrix before any detection work is done.
+ * 
+ * Allowed characters are looked up in a table indexed by char value, so each base
+ * is checked with a single array access instead of a regex match.
+ */
+public class DnaValidator {
+
+	public final static String ALLOWED_CHARACTERS = "ACGT";
+	
+	public final static Integer VALID_SEQUENCE_LENGTH = 4;
+	
+	/**
+	 * <code>true</code> for every char value contained in ALLOWED_CHARACTERS.
+	 */
+	private static final boolean[] ALLOWED_TABLE = new boolean[128];
+	
+	static {
+		for (int i = 0; i < ALLOWED_CHARACTERS.length(); i++) {
+			ALLOWED_TABLE[ALLOWED_CHARACTERS.charAt(i)] = true;
+		}
+	}
+	
+	private DnaValidator() { }
+	
+	/**
+	 * Tests whether the given character is one of the ALLOWED_CHARACTERS.
+	 */
+	public static boolean isAllowed(char c) {
+		return c < ALLOWED_TABLE.length && ALLOWED_TABLE[c];
+	}
+	
+	/**
+	 * Verifies that the given DNA is a NxN matrix (N >= VALID_SEQUENCE_LENGTH) 
+	 * which only contains ALLOWED_CHARACTERS.
+	 * @param dna
+	 * @throws InvalidDnaException if DNA sequence size is invalid or contains not allowed characters.
+	 */
+	public static void validate(String[] dna) throws InvalidDnaException {
+		if (Objects.isNull(dna)) {
+			throw new InvalidDnaException("Dna cannot be null.");
+		}
+		validateSize(dna.length);
+		for (String row : dna) {
+			validateRow(row, dna.length);
+		}
+	}
+	
+	/**
+	 * Verifies that a DNA of size NxN is big enough to contain a sequence.
+	 * @param size N
+	 * @throws InvalidDnaException if size is less than VALID_SEQUENCE_LENGTH
+	 */
+	public static void validateSize(int size) throws InvalidDnaException {
+		if (size < VALID_SEQUENCE_LENGTH) {
+			throw new InvalidDnaException("Invalid DNA size. Must be at least " + VALID_SEQUENCE_LENGTH + "x" + VALID_SEQUENCE_LENGTH);
+		}
+	}
+	
+	/**
+	 * Verifies a single row of a NxN DNA matrix.
+	 * @param row
+	 * @param size N
+	 * @throws InvalidDnaException if row length is not N or it contains not allowed characters.
+	 */
+	public static void validateRow(CharSequence row, int size) throws InvalidDnaException {
+		if (Objects.isNull(row) || row.length() != size) {
+			throw new InvalidDnaException("Invalid DNA. Sequence matrix must be NxN");
+		}
+		for (int i = 0; i < size; i++) {
+			if (!isAllowed(row.charAt(i))) {
+				throw new InvalidDnaException("Invalid character in the given sequence ");
+			}
+		}
+	}
+}
@@ -2,6 +2,7 @@ package emanuelrichieri.mutantdetector;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import emanuelrichieri.mutantdetector.domain.entities.Dna;
 import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
@@ -20,4 +21,57 @@ public class MockData {
 	
 	public static final List<Dna> HUMAN_DNA_LIST = Arrays.asList(HUMAN_DNA, HUMAN_DNA, HUMAN_DNA);
 	public static final List<Dna> MUTANT_DNA_LIST = Arrays.asList(MUTANT_DNA, MUTANT_DNA);
+
+	/**
+	 * Builds a random NxN DNA matrix. Bases are drawn in blocks so that runs of equal letters are frequent.
+	 */
+	public static String[] randomDna(Random random, int size) {
+		String bases = "ACGT";
+		String[] dna = new String[size];
+		for (int row = 0; row < size; row++) {
+			StringBuilder sequence = new StringBuilder(size);
+			char base = bases.charAt(random.nextInt(4));
+			for (int column = 0; column < size; column++) {
+				if (random.nextInt(4) != 0) {
+					base = bases.charAt(random.nextInt(4));
+				}
+				sequence.append(base);
+			}
+			dna[row] = sequence.toString();
+		}
+		return dna;
+	}
+
+	/**
+	 * Builds a NxN DNA matrix without any sequence of equal letters in any direction.
+	 * Returned as chars so that tests can plant sequences on it.
+	 */
+	public static char[][] noSequencesDna(int size) {
+		String bases = "ACGT";
+		char[][] dna = new char[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				dna[row][column] = bases.charAt((column + 2 * row) % 4);
+			}
+		}
+		return dna;
+	}
+	
+	/**
+	 * Writes a sequence of four equal bases starting at the given position.
+	 */
+	public static char[][] plantSequence(char[][] dna, int row, int column, int rowStep, int columnStep, char base) {
+		for (int i = 0; i < 4; i++) {
+			dna[row + i * rowStep][column + i * columnStep] = base;
+		}
+		return dna;
+	}
+	
+	public static String[] toStrings(char[][] dna) {
+		String[] result = new String[dna.length];
+		for (int row = 0; row < dna.length; row++) {
+			result[row] = new String(dna[row]);
+		}
+		return result;
+	}
 }
@@ -1,8 +1,16 @@
 package emanuelrichieri.mutantdetector.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -13,15 +21,24 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import emanuelrichieri.mutantdetector.MockData;
 import emanuelrichieri.mutantdetector.controller.MutantRestController;
+import emanuelrichieri.mutantdetector.io.DnaBatchDTO;
+import emanuelrichieri.mutantdetector.io.DnaCacheStatsDTO;
 import emanuelrichieri.mutantdetector.io.DnaDTO;
+import emanuelrichieri.mutantdetector.io.DnaSearchDTO;
 import emanuelrichieri.mutantdetector.io.DnaStatsDTO;
+import emanuelrichieri.mutantdetector.io.DnaTimeseriesDTO;
 import emanuelrichieri.mutantdetector.io.ResponseDTO;
+import emanuelrichieri.mutantdetector.service.IDnaMetricsService;
+import emanuelrichieri.mutantdetector.service.IDnaSearchService;
 import emanuelrichieri.mutantdetector.service.IDnaService;
+import emanuelrichieri.mutantdetector.service.IDnaStreamService;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -30,6 +47,15 @@ public class MutantRestControllerTest {
 	@Mock
 	IDnaService dnaService;
 	
+	@Mock
+	IDnaSearchService dnaSearchService;
+	
+	@Mock
+	IDnaStreamService dnaStreamService;
+	
+	@Mock
+	IDnaMetricsService dnaMetricsService;
+	
 	@InjectMocks
 	MutantRestController controller;
 	
@@ -69,9 +95,70 @@ public class MutantRestControllerTest {
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);		
 	}
 	
+	@Test
+	void isMutantCompact() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantMatrix(Mockito.any(DnaMatrix.class))).thenReturn(true);
+		ResponseEntity<ResponseDTO> response = controller.isMutantCompact(json(MockData.MUTANT_DNA_SEQUENCE));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+	
+	@Test
+	void isNotMutantCompact() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantMatrix(Mockito.any(DnaMatrix.class))).thenReturn(false);
+		ResponseEntity<ResponseDTO> response = controller.isMutantCompact(json(MockData.HUMAN_DNA_SEQUENCE));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+	}
+	
+	@Test
+	void isMutantCompactInvalidDna() {
+		ResponseEntity<ResponseDTO> response = controller.isMutantCompact(json(new String[] {"ACGT", "AXGT", "ACGT", "ACGT"}));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verify(dnaMetricsService).recordRejected();
+	}
+	
+	/**
+	 * DNA rejected by the service is counted there, not again by the controller.
+	 */
+	@Test
+	void isMutantCompactRejectedByService() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantMatrix(Mockito.any(DnaMatrix.class))).thenThrow(InvalidDnaException.class);
+		ResponseEntity<ResponseDTO> response = controller.isMutantCompact(json(MockData.HUMAN_DNA_SEQUENCE));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		verify(dnaMetricsService, never()).recordRejected();
+	}
+	
+	@Test
+	void isMutantCompactInternalError() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantMatrix(Mockito.any(DnaMatrix.class))).thenThrow(RepositoryException.class);
+		ResponseEntity<ResponseDTO> response = controller.isMutantCompact(json(MockData.HUMAN_DNA_SEQUENCE));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+	
+	@Test
+	void search() throws InvalidDnaException {
+		when(dnaSearchService.search("CAGT", null)).thenReturn(new DnaSearchDTO("CAGT", 2, Arrays.asList(1L, 4L)));
+		ResponseEntity<?> response = controller.search("CAGT", null);
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(((DnaSearchDTO) response.getBody()).getIds()).containsExactly(1L, 4L);
+	}
+	
+	@Test
+	void searchInvalidMotif() throws InvalidDnaException {
+		when(dnaSearchService.search("CXGT", 10)).thenThrow(InvalidDnaException.class);
+		ResponseEntity<?> response = controller.search("CXGT", 10);
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+	
 	@Test
 	void getStats() throws RepositoryException {
-		when(dnaService.getStats()).thenReturn(new DnaStatsDTO());
+		when(dnaService.getStats()).thenReturn(new DnaStatsDTO(0L, 0L));
 		ResponseEntity<?> response = controller.getStats();
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
 	}
@@ -83,4 +170,74 @@ public class MutantRestControllerTest {
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);		
 	}
 	
+	private static InputStream json(String[] dna) {
+		String body = "{\"dna\": [\"" + String.join("\", \"", dna) + "\"]}";
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	void isMutantBatch() throws InvalidDnaException, RepositoryException {
+		DnaBatchDTO batchDTO = new DnaBatchDTO(0L, 1L, 0L, null);
+		when(dnaService.isMutantBatch(Mockito.any())).thenReturn(batchDTO);
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		ResponseEntity<?> response = controller.isMutantBatch(Arrays.asList(dnaDTO));
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).isEqualTo(batchDTO);
+	}
+	
+	@Test
+	void isMutantBatchInvalidSize() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantBatch(Mockito.any())).thenThrow(InvalidDnaException.class);
+		ResponseEntity<?> response = controller.isMutantBatch(Arrays.asList());
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+	
+	@Test
+	void isMutantBatchInternalError() throws InvalidDnaException, RepositoryException {
+		when(dnaService.isMutantBatch(Mockito.any())).thenThrow(RepositoryException.class);
+		ResponseEntity<?> response = controller.isMutantBatch(Arrays.asList());
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+	
+	@Test
+	void isMutantStream() throws IOException {
+		InputStream body = new ByteArrayInputStream(new byte[0]);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.isMutantStream(body, response);
+		
+		assertThat(response.getContentType()).isEqualTo(MutantRestController.APPLICATION_NDJSON);
+		Mockito.verify(dnaStreamService).classify(body, response.getOutputStream());
+	}
+	
+	@Test
+	void getCacheStats() {
+		DnaCacheStatsDTO cacheStatsDTO = new DnaCacheStatsDTO(true, 1, 10, 100L, 1000L, 3L, 1L, 0L);
+		when(dnaService.getCacheStats()).thenReturn(cacheStatsDTO);
+		ResponseEntity<?> response = controller.getCacheStats();
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(((DnaCacheStatsDTO) response.getBody()).getHit_ratio()).isEqualTo(0.75);
+	}
+	
+	@Test
+	void getTimeseries() {
+		DnaTimeseriesDTO timeseriesDTO = new DnaTimeseriesDTO("15m", 60L, 1L, 2L, 0L, null, null);
+		when(dnaMetricsService.getTimeseries("15m")).thenReturn(timeseriesDTO);
+		ResponseEntity<?> response = controller.getTimeseries("15m");
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).isEqualTo(timeseriesDTO);
+	}
+	
+	@Test
+	void getTimeseriesInvalidWindow() {
+		when(dnaMetricsService.getTimeseries("15x")).thenThrow(IllegalArgumentException.class);
+		ResponseEntity<?> response = controller.getTimeseries("15x");
+		
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
 }
@@ -9,9 +9,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import emanuelrichieri.mutantdetector.MockData;
 import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaDigest;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+import emanuelrichieri.mutantdetector.util.matrix.PackedDnaCodec;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -43,5 +48,44 @@ public class DnaTest {
 		assertThat(humanClassification).isEqualTo(DnaClassification.HUMAN);
 		assertThat(mutantClassification).isEqualTo(DnaClassification.MUTANT);
 	}
-
+	
+	@Test
+	void digest() {
+		Dna dna = new Dna(MockData.HUMAN_DNA_SEQUENCE, DnaClassification.HUMAN);
+		assertThat(dna.getDnaDigest()).hasSize(32).isEqualTo(Dna.digestOf(MockData.HUMAN_DNA_SEQUENCE));
+		
+		dna.setDnaSequence(MockData.MUTANT_DNA_SEQUENCE);
+		assertThat(dna.getDnaDigest()).isEqualTo(Dna.digestOf(MockData.MUTANT_DNA_SEQUENCE)).isNotEqualTo(Dna.digestOf(MockData.HUMAN_DNA_SEQUENCE));
+		assertThat(Dna.digestOf(new String[] {"AB"})).isNull();
+	}
+	
+	/**
+	 * The sequence is stored packed, and only decoded when it is read.
+	 */
+	@Test
+	void packedSequence() throws InvalidDnaException {
+		Dna stored = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		assertThat(stored.getDnaPacked()).isEqualTo(PackedDnaCodec.pack(DnaMatrix.of(MockData.MUTANT_DNA_SEQUENCE)));
+		
+		Dna loaded = new Dna();
+		ReflectionTestUtils.setField(loaded, "dnaPacked", stored.getDnaPacked());
+		assertThat(ReflectionTestUtils.getField(loaded, "dnaSequence")).isNull();
+		assertThat(loaded.getDnaSequence()).isEqualTo(MockData.MUTANT_DNA_SEQUENCE);
+		assertThat(new Dna(new String[] {"AB"}, DnaClassification.HUMAN).getDnaPacked()).isNull();
+	}
+	
+	/**
+	 * A DNA built from its matrix and digest is the same as one built from its sequence.
+	 */
+	@Test
+	void fromMatrix() throws InvalidDnaException {
+		DnaMatrix matrix = DnaMatrix.of(MockData.MUTANT_DNA_SEQUENCE);
+		Dna dna = new Dna(matrix, DnaDigest.of(matrix), DnaClassification.MUTANT);
+		Dna expected = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		
+		assertThat(dna.getDnaPacked()).isEqualTo(expected.getDnaPacked());
+		assertThat(dna.getDnaDigest()).isEqualTo(expected.getDnaDigest());
+		assertThat(dna.getDnaSequence()).isEqualTo(MockData.MUTANT_DNA_SEQUENCE);
+		assertThat(dna.getClassification()).isEqualTo(DnaClassification.MUTANT);
+	}
 }
@@ -0,0 +1,87 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.domain.repository.DnaUpsertResult.Outcome;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DnaBatchRepositoryTest {
+
+	@Mock
+	JdbcTemplate jdbcTemplate;
+	
+	@InjectMocks
+	DnaBatchRepository batchRepository;
+	
+	/**
+	 * Without ON CONFLICT, a DNA inserted by a concurrent upsert after the lookup is updated instead of failing.
+	 */
+	@Test
+	void concurrentInsertIsUpdated() {
+		Dna dna = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		List<Object[]> stored = Collections.singletonList(new Object[] {7L, dna.getDnaPacked()});
+		when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Object[]>>any(), Mockito.<Object>any()))
+				.thenReturn(new ArrayList<Object[]>(), stored);
+		when(jdbcTemplate.update(Mockito.any(PreparedStatementCreator.class), Mockito.any(KeyHolder.class)))
+				.thenThrow(new DataIntegrityViolationException("dna_digest_index"));
+		when(jdbcTemplate.update(Mockito.anyString(), Mockito.<Object>any())).thenReturn(1);
+		
+		DnaUpsertResult result = batchRepository.upsert(dna);
+		assertThat(result.getOutcome()).isEqualTo(Outcome.UPDATED);
+		assertThat(result.getId()).isEqualTo(7L);
+	}
+	
+	/**
+	 * The concurrent upsert stored the same classification: nothing changed.
+	 */
+	@Test
+	void concurrentInsertIsUnchanged() {
+		Dna dna = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		List<Object[]> stored = Collections.singletonList(new Object[] {7L, dna.getDnaPacked()});
+		when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Object[]>>any(), Mockito.<Object>any()))
+				.thenReturn(new ArrayList<Object[]>(), stored);
+		when(jdbcTemplate.update(Mockito.any(PreparedStatementCreator.class), Mockito.any(KeyHolder.class)))
+				.thenThrow(new DataIntegrityViolationException("dna_digest_index"));
+		when(jdbcTemplate.update(Mockito.anyString(), Mockito.<Object>any())).thenReturn(0);
+		
+		assertThat(batchRepository.upsertAll(Collections.singletonList(dna)).get(0).getOutcome()).isEqualTo(Outcome.UNCHANGED);
+	}
+	
+	/**
+	 * Any other integrity violation is not hidden.
+	 */
+	@Test
+	void insertFails() {
+		Dna dna = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		when(jdbcTemplate.query(Mockito.anyString(), Mockito.<RowMapper<Object[]>>any(), Mockito.<Object>any()))
+				.thenReturn(new ArrayList<Object[]>());
+		when(jdbcTemplate.update(Mockito.any(PreparedStatementCreator.class), Mockito.any(KeyHolder.class)))
+				.thenThrow(new DataIntegrityViolationException("classification"));
+		
+		assertThatThrownBy(() -> batchRepository.upsert(dna)).isInstanceOf(DataIntegrityViolationException.class);
+	}
+}
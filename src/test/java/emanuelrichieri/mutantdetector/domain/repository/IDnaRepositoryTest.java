@@ -0,0 +1,67 @@
+package emanuelrichieri.mutantdetector.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+
+public class IDnaRepositoryTest {
+
+	/**
+	 * Lets Mockito call the default methods of the interface.
+	 */
+	static abstract class DnaRepository implements IDnaRepository { }
+	
+	private IDnaRepository repository = Mockito.mock(DnaRepository.class, Mockito.CALLS_REAL_METHODS);
+	
+	@Test
+	void findByDnaSequence() {
+		Dna stored = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		when(repository.findByDnaDigest(Dna.digestOf(MockData.MUTANT_DNA_SEQUENCE))).thenReturn(stored);
+		
+		assertThat(repository.findByDnaSequence(MockData.MUTANT_DNA_SEQUENCE.clone())).isSameAs(stored);
+	}
+	
+	/**
+	 * A stored DNA with the same digest but a different sequence is not returned.
+	 */
+	@Test
+	void findByDnaSequenceCollision() {
+		Dna stored = new Dna(MockData.HUMAN_DNA_SEQUENCE, DnaClassification.HUMAN);
+		when(repository.findByDnaDigest(Mockito.anyString())).thenReturn(stored);
+		when(repository.findByDnaDigestIn(Mockito.any())).thenReturn(Collections.singletonList(stored));
+		
+		assertThat(repository.findByDnaSequence(MockData.MUTANT_DNA_SEQUENCE)).isNull();
+		assertThat(repository.findByDnaSequenceIn(Arrays.asList(MockData.MUTANT_DNA_SEQUENCE, MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL))).isEmpty();
+	}
+	
+	@Test
+	void findByInvalidDnaSequence() {
+		assertThat(repository.findByDnaSequence(new String[] {"AB"})).isNull();
+		assertThat(repository.findByDnaSequenceIn(Arrays.asList(new String[][] {{"AB"}}))).isEmpty();
+		verify(repository, never()).findByDnaDigest(Mockito.any());
+		verify(repository, never()).findByDnaDigestIn(Mockito.any());
+	}
+	
+	@Test
+	void findByDnaSequenceIn() {
+		Dna mutant = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		Dna human = new Dna(MockData.HUMAN_DNA_SEQUENCE, DnaClassification.HUMAN);
+		when(repository.findByDnaDigestIn(Mockito.argThat(digests -> digests.size() == 2 
+				&& digests.contains(mutant.getDnaDigest()) && digests.contains(human.getDnaDigest()))))
+			.thenReturn(Arrays.asList(mutant, human));
+		
+		assertThat(repository.findByDnaSequenceIn(Arrays.asList(MockData.MUTANT_DNA_SEQUENCE, MockData.HUMAN_DNA_SEQUENCE)))
+			.containsExactly(mutant, human);
+	}
+}
@@ -0,0 +1,51 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.AhoCorasickMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AhoCorasickMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	AhoCorasickMutantDetectorService service;
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	@Test
+	void configuredSignatures() throws InvalidDnaException {
+		ReflectionTestUtils.setField(service, "signatures", new String[] {"GATTACA", " CAG", "GATTACA"});
+		ReflectionTestUtils.setField(service, "matchingSequencesNeeded", 1);
+		service.compile();
+		
+		char[][] dna = MockData.noSequencesDna(8);
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		// CAG down the third column
+		dna[0][2] = 'C';
+		dna[1][2] = 'A';
+		dna[2][2] = 'G';
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+		
+		ReflectionTestUtils.setField(service, "matchingSequencesNeeded", 2);
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		// and GATTACA in the diagonal starting at (1, 0)
+		for (int i = 0; i < "GATTACA".length(); i++) {
+			dna[1 + i][i] = "GATTACA".charAt(i);
+		}
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+	}
+}
@@ -0,0 +1,51 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.CompiledMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class CompiledMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	CompiledMutantDetectorService service;
+	
+	@BeforeEach
+	void compile() {
+		service.compile();
+	}
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	@Test
+	void configuredRule() throws InvalidDnaException {
+		ReflectionTestUtils.setField(service, "runLength", 3);
+		ReflectionTestUtils.setField(service, "matchesNeeded", 1);
+		ReflectionTestUtils.setField(service, "directions", new String[] {"anti-diagonal"});
+		service.compile();
+		
+		char[][] dna = MockData.noSequencesDna(6);
+		// a run down a row does not count
+		MockData.plantSequence(dna, 0, 0, 0, 1, 'T');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		MockData.plantSequence(dna, 2, 4, 1, -1, 'G');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+		// 3x3 is big enough for runs of 3
+		assertThat(this.service.isMutant(new String[] {"ACG", "AGT", "GTC"})).isEqualTo(true);
+	}
+}
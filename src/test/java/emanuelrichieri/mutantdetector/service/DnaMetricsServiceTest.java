@@ -0,0 +1,77 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.io.DnaTimeseriesDTO;
+import emanuelrichieri.mutantdetector.service.implementation.DnaMetricsService;
+
+public class DnaMetricsServiceTest {
+
+	private static final long NOW = 1600000000000L;
+	
+	private DnaMetricsService metricsService;
+	
+	@BeforeEach
+	void start() {
+		metricsService = new DnaMetricsService();
+		metricsService.start();
+	}
+	
+	@Test
+	void perSecondTimeseries() {
+		metricsService.recordClassification(true, 6, NOW - 2000);
+		metricsService.recordClassification(false, 6, NOW - 2000);
+		metricsService.recordClassification(true, 100, NOW);
+		metricsService.recordRejected(NOW);
+		metricsService.recordClassification(false, 6, NOW - 60000);
+		
+		DnaTimeseriesDTO timeseries = metricsService.getTimeseries("30s", NOW);
+		assertThat(timeseries.getWindow()).isEqualTo("30s");
+		assertThat(timeseries.getResolution_seconds()).isEqualTo(1L);
+		assertThat(timeseries.getCount_mutant_dna()).isEqualTo(2L);
+		assertThat(timeseries.getCount_human_dna()).isEqualTo(1L);
+		assertThat(timeseries.getCount_invalid_dna()).isEqualTo(1L);
+		assertThat(timeseries.getSize_mix()).containsEntry("4-7", 2L).containsEntry("64-127", 1L).containsEntry("128+", 0L);
+		assertThat(timeseries.getBuckets()).hasSize(30);
+		assertThat(timeseries.getBuckets().get(29).getTimestamp()).isEqualTo(NOW);
+		assertThat(timeseries.getBuckets().get(29).getCount_invalid_dna()).isEqualTo(1L);
+		assertThat(timeseries.getBuckets().get(27).getCount_human_dna()).isEqualTo(1L);
+		assertThat(timeseries.getBuckets().get(27).getCount_mutant_dna()).isEqualTo(1L);
+	}
+	
+	/**
+	 * Windows longer than the per-second buckets are answered with per-minute buckets.
+	 */
+	@Test
+	void perMinuteTimeseries() {
+		metricsService.recordClassification(false, 6, NOW - 3600000);
+		metricsService.recordClassification(false, 8, NOW - 600000);
+		metricsService.recordClassification(true, 8, NOW);
+		
+		DnaTimeseriesDTO timeseries = metricsService.getTimeseries("1h", NOW);
+		assertThat(timeseries.getResolution_seconds()).isEqualTo(60L);
+		assertThat(timeseries.getBuckets()).hasSize(60);
+		assertThat(timeseries.getCount_human_dna()).isEqualTo(1L);
+		assertThat(timeseries.getCount_mutant_dna()).isEqualTo(1L);
+		assertThat(timeseries.getSize_mix()).containsEntry("8-15", 2L);
+		assertThat(metricsService.getTimeseries("2h", NOW).getCount_human_dna()).isEqualTo(2L);
+	}
+	
+	@Test
+	void defaultWindow() {
+		DnaTimeseriesDTO timeseries = metricsService.getTimeseries(null, NOW);
+		assertThat(timeseries.getWindow()).isEqualTo("1m");
+		assertThat(timeseries.getBuckets()).hasSize(60);
+	}
+	
+	@Test
+	void invalidWindow() {
+		assertThatThrownBy(() -> metricsService.getTimeseries("15x", NOW)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> metricsService.getTimeseries("0s", NOW)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> metricsService.getTimeseries("25h", NOW)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,227 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.domain.entities.Dna;
+import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.domain.repository.IDnaRepository;
+import emanuelrichieri.mutantdetector.io.DnaSearchDTO;
+import emanuelrichieri.mutantdetector.service.implementation.DnaSearchService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DnaSearchServiceTest {
+
+	@Mock
+	private IDnaRepository dnaRepository;
+	
+	@InjectMocks
+	private DnaSearchService dnaSearchService;
+	
+	@BeforeEach
+	void buildIndex() {
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenReturn(Arrays.asList(
+				dna(10L, MockData.HUMAN_DNA_SEQUENCE), 
+				dna(20L, MockData.MUTANT_DNA_SEQUENCE), 
+				dna(30L, MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL)));
+		dnaSearchService.buildIndex();
+	}
+	
+	@Test
+	void search() throws InvalidDnaException {
+		DnaSearchDTO result = dnaSearchService.search("CAGTGC", null);
+		assertThat(result.getMotif()).isEqualTo("CAGTGC");
+		assertThat(result.getTotal_results()).isEqualTo(2);
+		assertThat(result.getIds()).containsExactly(10L, 20L);
+		
+		assertThat(dnaSearchService.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+		assertThat(dnaSearchService.search("ACGTACGT", null).getTotal_results()).isEqualTo(0);
+	}
+	
+	@Test
+	void searchLimit() throws InvalidDnaException {
+		DnaSearchDTO result = dnaSearchService.search("A", 2);
+		assertThat(result.getTotal_results()).isEqualTo(3);
+		assertThat(result.getIds()).containsExactly(10L, 20L);
+		
+		assertThatThrownBy(() -> dnaSearchService.search("A", 0)).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	@Test
+	void searchInvalidMotif() {
+		assertThatThrownBy(() -> dnaSearchService.search("", null)).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> dnaSearchService.search(null, null)).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> dnaSearchService.search("CAXT", null)).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * New DNA are indexed in background, and every queued one is indexed when the indexer stops.
+	 */
+	@Test
+	void index() throws InvalidDnaException, InterruptedException {
+		dnaSearchService.index(dna(40L, new String[] {"GATTACA", "GATTACA", "GATTACA", "GATTACA"}));
+		// not stored yet
+		dnaSearchService.index(dna(null, new String[] {"TTACAG", "TTACAG", "TTACAG", "TTACAG"}));
+		dnaSearchService.stopIndexer();
+		
+		assertThat(dnaSearchService.search("TTAC", null).getIds()).containsExactly(40L);
+		assertThat(dnaSearchService.search("CAG", null).getIds()).containsExactly(10L, 20L);
+	}
+	
+	/**
+	 * Startup fails instead of answering searches from a partial index.
+	 */
+	@Test
+	void buildIndexFails() {
+		DnaSearchService failing = new DnaSearchService();
+		ReflectionTestUtils.setField(failing, "repository", dnaRepository);
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenThrow(new IllegalStateException("connection refused"));
+		
+		assertThatThrownBy(() -> failing.buildIndex()).isInstanceOf(IllegalStateException.class);
+	}
+	
+	/**
+	 * The repository is read by id pages, each one starting after the last id of the previous one.
+	 */
+	@Test
+	void buildIndexByPages() throws InvalidDnaException {
+		DnaSearchService paged = new DnaSearchService();
+		ReflectionTestUtils.setField(paged, "repository", dnaRepository);
+		ReflectionTestUtils.setField(paged, "pageSize", 2);
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenReturn(Arrays.asList(
+				dna(10L, MockData.HUMAN_DNA_SEQUENCE), 
+				dna(20L, MockData.MUTANT_DNA_SEQUENCE)));
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(20L), any())).thenReturn(Collections.singletonList(
+				dna(30L, MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL)));
+		paged.buildIndex();
+		
+		assertThat(paged.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+		verify(dnaRepository, never()).findByIdGreaterThanOrderById(eq(30L), any());
+	}
+	
+	/**
+	 * The index built from the repository is saved, and a restarted service maps it 
+	 * and only reads the DNA stored after it.
+	 */
+	@Test
+	void snapshot(@TempDir Path directory) throws InvalidDnaException {
+		Path file = directory.resolve("dna.gst");
+		restart(file, 10);
+		assertThat(Files.exists(file)).isTrue();
+		
+		Mockito.clearInvocations(dnaRepository);
+		when(dnaRepository.findIdsBetween(eq(0L), eq(30L), any())).thenReturn(Arrays.asList(10L, 20L, 30L));
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(30L), any())).thenReturn(Collections.singletonList(dna(40L, new String[] {"GATTACA", "GATTACA", "GATTACA", "GATTACA"})));
+		DnaSearchService restarted = restart(file, 10);
+		verify(dnaRepository, never()).findByIdGreaterThanOrderById(eq(0L), any());
+		verify(dnaRepository, never()).findAllById(any());
+		
+		restarted.index(dna(50L, new String[] {"CAGTGC", "CAGTGC", "CAGTGC", "CAGTGC"}));
+		assertThat(restarted.search("CAGTGC", null).getIds()).containsExactly(10L, 20L, 50L);
+		assertThat(restarted.search("TTAC", null).getIds()).containsExactly(40L);
+		assertThat(restarted.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+	}
+	
+	/**
+	 * A DNA with an id lower than the greatest one of the snapshot, committed after it was built, is indexed.
+	 */
+	@Test
+	void snapshotCommittedLate(@TempDir Path directory) throws InvalidDnaException {
+		Path file = directory.resolve("dna.gst");
+		restart(file, 10);
+		
+		when(dnaRepository.findIdsBetween(eq(0L), eq(30L), any())).thenReturn(Arrays.asList(10L, 15L, 20L, 30L));
+		when(dnaRepository.findAllById(Collections.singletonList(15L))).thenReturn(Collections.singletonList(dna(15L, new String[] {"GATTACA", "GATTACA", "GATTACA", "GATTACA"})));
+		DnaSearchService restarted = restart(file, 10);
+		
+		assertThat(restarted.search("TTAC", null).getIds()).containsExactly(15L);
+		assertThat(restarted.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+	}
+	
+	/**
+	 * When too many DNA were stored after the snapshot, the index is built again and the snapshot rewritten, 
+	 * with the greatest id of the old snapshot as commit watermark.
+	 */
+	@Test
+	void snapshotRefresh(@TempDir Path directory) throws InvalidDnaException {
+		Path file = directory.resolve("dna.gst");
+		restart(file, 10);
+		
+		Dna stored = dna(40L, new String[] {"GATTACA", "GATTACA", "GATTACA", "GATTACA"});
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(30L), any())).thenReturn(Collections.singletonList(stored));
+		when(dnaRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenReturn(Arrays.asList(
+				dna(10L, MockData.HUMAN_DNA_SEQUENCE), 
+				dna(20L, MockData.MUTANT_DNA_SEQUENCE), 
+				dna(30L, MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL),
+				stored));
+		Mockito.clearInvocations(dnaRepository);
+		DnaSearchService refreshed = restart(file, 0);
+		verify(dnaRepository).findByIdGreaterThanOrderById(eq(0L), any());
+		assertThat(refreshed.search("TTAC", null).getIds()).containsExactly(40L);
+		
+		Mockito.clearInvocations(dnaRepository);
+		DnaSearchService restarted = restart(file, 10);
+		verify(dnaRepository).findIdsBetween(eq(30L), eq(40L), any());
+		verify(dnaRepository, never()).findByIdGreaterThanOrderById(eq(0L), any());
+		assertThat(restarted.search("TTAC", null).getIds()).containsExactly(40L);
+		assertThat(restarted.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+	}
+	
+	/**
+	 * A tree file from a different snapshot than the ids file is not loaded.
+	 */
+	@Test
+	void snapshotMismatch(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("dna.gst");
+		restart(file, 10);
+		Files.write(file, new byte[] {0}, StandardOpenOption.APPEND);
+		
+		Mockito.clearInvocations(dnaRepository);
+		DnaSearchService restarted = restart(file, 10);
+		verify(dnaRepository).findByIdGreaterThanOrderById(eq(0L), any());
+		assertThat(restarted.search("CCCC", null).getIds()).containsExactly(20L, 30L);
+	}
+	
+	private DnaSearchService restart(Path file, int snapshotRefresh) {
+		DnaSearchService service = new DnaSearchService();
+		ReflectionTestUtils.setField(service, "repository", dnaRepository);
+		ReflectionTestUtils.setField(service, "snapshotFile", file.toString());
+		ReflectionTestUtils.setField(service, "snapshotRefresh", snapshotRefresh);
+		// indexed on the calling thread, as when the queue is full
+		ReflectionTestUtils.setField(service, "indexQueueCapacity", 0);
+		service.buildIndex();
+		return service;
+	}
+	
+	private static Dna dna(Long id, String[] sequence) {
+		Dna dna = new Dna(sequence, DnaClassification.HUMAN);
+		dna.setId(id);
+		return dna;
+	}
+}
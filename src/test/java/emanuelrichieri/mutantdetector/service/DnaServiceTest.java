@@ -2,9 +2,17 @@ package emanuelrichieri.mutantdetector.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -13,16 +21,24 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import emanuelrichieri.mutantdetector.MockData;
 import emanuelrichieri.mutantdetector.domain.entities.Dna;
 import emanuelrichieri.mutantdetector.domain.entities.Dna.DnaClassification;
+import emanuelrichieri.mutantdetector.domain.repository.DnaUpsertResult;
+import emanuelrichieri.mutantdetector.domain.repository.IDnaBatchRepository;
 import emanuelrichieri.mutantdetector.domain.repository.IDnaRepository;
+import emanuelrichieri.mutantdetector.io.DnaBatchDTO;
+import emanuelrichieri.mutantdetector.io.DnaCacheStatsDTO;
 import emanuelrichieri.mutantdetector.io.DnaDTO;
 import emanuelrichieri.mutantdetector.io.DnaStatsDTO;
 import emanuelrichieri.mutantdetector.service.implementation.DnaService;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -31,11 +47,29 @@ public class DnaServiceTest {
 	@Mock
 	private IDnaRepository dnaRepository;
 	
+	@Mock
+	private IDnaBatchRepository batchRepository;
+	
 	@Mock
 	private IMutantDetectorService mutantDetectorService;
 	
+	@Mock
+	private IDnaSearchService dnaSearchService;
+	
+	@Mock
+	private IDnaMetricsService metricsService;
+	
+	@Mock
+	private TransactionTemplate transactionTemplate;
+	
 	@InjectMocks
 	private DnaService dnaService;
+	
+	@BeforeEach
+	void runTransactions() {
+		when(transactionTemplate.execute(Mockito.any())).thenAnswer(invocation -> 
+			invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+	}
 
 	/**
 	 * Test saving mutant Dna entity into database. 
@@ -86,12 +120,14 @@ public class DnaServiceTest {
 	void isMutantNewDna() throws InvalidDnaException, RepositoryException {
 		DnaDTO dnaDTO = new DnaDTO();
 		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
-		when(dnaRepository.findByDnaSequence(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(null);
-		when(dnaRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
 		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(true);
 		
 		Boolean result = dnaService.isMutant(dnaDTO);
 		assertThat(result).isEqualTo(true);
+		verify(batchRepository).upsert(Mockito.argThat(dna -> dna != null 
+				&& Arrays.equals(dna.getDnaSequence(), MockData.MUTANT_DNA_SEQUENCE)
+				&& dna.getClassification() == DnaClassification.MUTANT));
 	}
 
 	/**
@@ -103,12 +139,13 @@ public class DnaServiceTest {
 	void isMutantExistingDna() throws InvalidDnaException, RepositoryException {
 		DnaDTO dnaDTO = new DnaDTO();
 		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
-		when(dnaRepository.findByDnaSequence(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(MockData.MUTANT_DNA);
-		when(dnaRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.unchanged(1L));
 		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(true);
 		
 		Boolean result = dnaService.isMutant(dnaDTO);
 		assertThat(result).isEqualTo(true);
+		verify(dnaRepository, never()).findByDnaSequence(Mockito.any());
+		verify(dnaRepository, never()).save(Mockito.any());
 	}
 
 	/**
@@ -120,17 +157,19 @@ public class DnaServiceTest {
 	void isNotMutantNewDna() throws InvalidDnaException, RepositoryException {
 		DnaDTO dnaDTO = new DnaDTO();
 		dnaDTO.setDna(MockData.HUMAN_DNA_SEQUENCE);
-		when(dnaRepository.findByDnaSequence(MockData.HUMAN_DNA_SEQUENCE)).thenReturn(null);
-		when(dnaRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
 		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(false);
 
 		Boolean result = dnaService.isMutant(dnaDTO);
 		assertThat(result).isEqualTo(false);
+		verify(batchRepository).upsert(Mockito.argThat(dna -> dna != null 
+				&& Arrays.equals(dna.getDnaSequence(), MockData.HUMAN_DNA_SEQUENCE)
+				&& dna.getClassification() == DnaClassification.HUMAN));
 	}
 	
 
 	/**
-	 * Test when dna belongs to a human and it is already recorded in the database. 
+	 * Test when dna belongs to a human and it is already recorded in the database with another classification. 
 	 * @throws InvalidDnaException
 	 * @throws RepositoryException
 	 */
@@ -138,34 +177,321 @@ public class DnaServiceTest {
 	void isNotMutantExistingDna() throws InvalidDnaException, RepositoryException {
 		DnaDTO dnaDTO = new DnaDTO();
 		dnaDTO.setDna(MockData.HUMAN_DNA_SEQUENCE);
-		when(dnaRepository.findByDnaSequence(MockData.HUMAN_DNA_SEQUENCE)).thenReturn(MockData.HUMAN_DNA);
-		when(dnaRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.updated(1L));
 		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(false);
 
 		Boolean result = dnaService.isMutant(dnaDTO);
 		assertThat(result).isEqualTo(false);
+		verify(dnaSearchService, never()).index(Mockito.any());
+	}
+	
+	/**
+	 * Test a packed dna, which is stored unpacked.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	@Test
+	void isMutantPackedDna() throws InvalidDnaException, RepositoryException {
+		DnaMatrix matrix = DnaMatrix.of(MockData.MUTANT_DNA_SEQUENCE);
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
+		when(mutantDetectorService.isMutantMatrix(matrix)).thenReturn(true);
+		
+		Boolean result = dnaService.isMutantMatrix(matrix);
+		assertThat(result).isEqualTo(true);
+		verify(batchRepository).upsert(Mockito.argThat(dna -> dna != null && Arrays.equals(dna.getDnaSequence(), MockData.MUTANT_DNA_SEQUENCE)));
+	}
+	
+	/**
+	 * Test that new DNA is added to the search index, and existing DNA is not added again.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	@Test
+	void isMutantIndexesNewDna() throws InvalidDnaException, RepositoryException {
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(7L));
+		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(true);
+		
+		dnaService.isMutant(dnaDTO);
+		verify(dnaSearchService).index(Mockito.argThat(dna -> dna != null 
+				&& Arrays.equals(dna.getDnaSequence(), MockData.MUTANT_DNA_SEQUENCE) && dna.getId() == 7L));
+		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.unchanged(7L));
+		Mockito.clearInvocations(dnaSearchService);
+		dnaService.isMutant(dnaDTO);
+		verify(dnaSearchService, never()).index(Mockito.any());
+	}
+	
+	/**
+	 * Test an upsert failure is reported as a repository error.
+	 */
+	@Test
+	void isMutantUpsertException() throws InvalidDnaException {
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		when(batchRepository.upsert(Mockito.any())).thenThrow(RuntimeException.class);
+		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(true);
+		
+		assertThatThrownBy(() -> dnaService.isMutant(dnaDTO)).isInstanceOf(RepositoryException.class);
 	}
 	
 	@Test
 	void getStats() throws RepositoryException {
-		when(dnaRepository.findByClassification(DnaClassification.HUMAN)).thenReturn(MockData.HUMAN_DNA_LIST);
-		when(dnaRepository.findByClassification(DnaClassification.MUTANT)).thenReturn(MockData.MUTANT_DNA_LIST);
+		when(dnaRepository.countByClassification(DnaClassification.HUMAN)).thenReturn(4L);
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenReturn(10L);
 		
-		Integer countHumanDna = MockData.HUMAN_DNA_LIST.size();
-		Integer countMutantDna = MockData.MUTANT_DNA_LIST.size();
-		Double ratio =  countMutantDna / countHumanDna * 1.0;
+		DnaStatsDTO result = dnaService.getStats();
+		assertThat(result.getCount_human_dna()).isEqualTo(4L);
+		assertThat(result.getCount_mutant_dna()).isEqualTo(10L);
+		assertThat(result.getRatio()).isEqualTo(2.5);
+		verify(dnaRepository, never()).findByClassification(Mockito.any());
+	}
+	
+	/**
+	 * Without human DNA the ratio is not defined, it is reported as 0.
+	 * @throws RepositoryException
+	 */
+	@Test
+	void getStatsWithoutHumanDna() throws RepositoryException {
+		when(dnaRepository.countByClassification(DnaClassification.HUMAN)).thenReturn(0L);
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenReturn(3L);
 		
 		DnaStatsDTO result = dnaService.getStats();
-		assertThat(result.getCount_human_dna()).isEqualTo(countHumanDna.longValue());
-		assertThat(result.getCount_mutant_dna()).isEqualTo(countMutantDna.longValue());
-		assertThat(result.getRatio()).isEqualTo(ratio);
+		assertThat(result.getCount_mutant_dna()).isEqualTo(3L);
+		assertThat(result.getRatio()).isEqualTo(0.0);
 	}
 	
 	@Test
 	void getStatsException() {
-		when(dnaRepository.findByClassification(DnaClassification.HUMAN)).thenThrow(new IllegalArgumentException());
-		when(dnaRepository.findByClassification(DnaClassification.MUTANT)).thenThrow(new IllegalArgumentException());
+		when(dnaRepository.countByClassification(DnaClassification.HUMAN)).thenThrow(new IllegalArgumentException());
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenThrow(new IllegalArgumentException());
 		
 		assertThatThrownBy(() -> dnaService.getStats()).isInstanceOf(RepositoryException.class);
 	}
+	
+	/**
+	 * Once counted from the database, stats follow the stored classifications without querying it again, 
+	 * and the same snapshot is returned while they do not change.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	@Test
+	void getStatsCounted() throws InvalidDnaException, RepositoryException {
+		when(dnaRepository.countByClassification(DnaClassification.HUMAN)).thenReturn(4L);
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenReturn(10L);
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		when(mutantDetectorService.isMutant(MockData.HUMAN_DNA_SEQUENCE)).thenReturn(false);
+		DnaDTO mutantDTO = new DnaDTO();
+		mutantDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		DnaDTO humanDTO = new DnaDTO();
+		humanDTO.setDna(MockData.HUMAN_DNA_SEQUENCE);
+		dnaService.startStats();
+		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
+		dnaService.isMutant(mutantDTO);
+		DnaStatsDTO stats = dnaService.getStats();
+		assertThat(stats.getCount_human_dna()).isEqualTo(4L);
+		assertThat(stats.getCount_mutant_dna()).isEqualTo(11L);
+		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.updated(2L));
+		dnaService.isMutant(humanDTO);
+		stats = dnaService.getStats();
+		assertThat(stats.getCount_human_dna()).isEqualTo(5L);
+		assertThat(stats.getCount_mutant_dna()).isEqualTo(10L);
+		assertThat(stats.getRatio()).isEqualTo(2.0);
+		
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.unchanged(2L));
+		dnaService.isMutant(humanDTO);
+		assertThat(dnaService.getStats()).isSameAs(stats);
+		dnaService.stopStats();
+		verify(dnaRepository).countByClassification(DnaClassification.HUMAN);
+		verify(dnaRepository).countByClassification(DnaClassification.MUTANT);
+	}
+	
+	/**
+	 * Reconciling replaces the counted stats with the DNA stored in the database.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	@Test
+	void reconcileStats() throws InvalidDnaException, RepositoryException {
+		when(mutantDetectorService.isMutant(Mockito.any())).thenReturn(true);
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		dnaService.reconcileStats();
+		dnaService.isMutant(dnaDTO);
+		assertThat(dnaService.getStats().getCount_mutant_dna()).isEqualTo(1L);
+		
+		when(dnaRepository.countByClassification(DnaClassification.HUMAN)).thenReturn(3L);
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenReturn(6L);
+		dnaService.reconcileStats();
+		DnaStatsDTO stats = dnaService.getStats();
+		assertThat(stats.getCount_human_dna()).isEqualTo(3L);
+		assertThat(stats.getCount_mutant_dna()).isEqualTo(6L);
+	}
+	
+	/**
+	 * Results keep the request order, invalid DNA get an error and repeated DNA are written once.
+	 * Stored DNA are updated only if their classification changed, in a single transaction.
+	 */
+	@Test
+	void isMutantBatch() throws InvalidDnaException, RepositoryException {
+		String[] invalidDna = {"AB"};
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		when(mutantDetectorService.isMutant(MockData.HUMAN_DNA_SEQUENCE)).thenReturn(false);
+		when(mutantDetectorService.isMutant(invalidDna)).thenThrow(new InvalidDnaException("Invalid DNA size. Must be at least 4x4"));
+		// the mutant DNA is new, the human one was stored as mutant
+		when(batchRepository.upsertAll(Mockito.any())).thenReturn(Arrays.asList(DnaUpsertResult.inserted(null), DnaUpsertResult.updated(null)));
+		Dna storedMutantDna = new Dna(MockData.MUTANT_DNA_SEQUENCE, DnaClassification.MUTANT);
+		storedMutantDna.setId(8L);
+		when(dnaRepository.findByDnaSequenceIn(Mockito.any())).thenReturn(Collections.singletonList(storedMutantDna));
+		when(dnaRepository.countByClassification(DnaClassification.MUTANT)).thenReturn(1L);
+		dnaService.reconcileStats();
+		
+		List<DnaDTO> batch = new ArrayList<DnaDTO>();
+		for (String[] dna : new String[][] {MockData.MUTANT_DNA_SEQUENCE, invalidDna, MockData.HUMAN_DNA_SEQUENCE, MockData.MUTANT_DNA_SEQUENCE}) {
+			DnaDTO dnaDTO = new DnaDTO();
+			dnaDTO.setDna(dna);
+			batch.add(dnaDTO);
+		}
+		dnaService.startBatchPool();
+		DnaBatchDTO result;
+		try {
+			result = dnaService.isMutantBatch(batch);
+		} finally {
+			dnaService.stopBatchPool();
+		}
+		
+		assertThat(result.getCount_mutant_dna()).isEqualTo(2L);
+		assertThat(result.getCount_human_dna()).isEqualTo(1L);
+		assertThat(result.getCount_invalid_dna()).isEqualTo(1L);
+		assertThat(result.getResults()).extracting("classification").containsExactly("MUTANT", null, "HUMAN", "MUTANT");
+		assertThat(result.getResults().get(1).getError()).isEqualTo("Invalid DNA size. Must be at least 4x4");
+		verify(batchRepository).upsertAll(Mockito.argThat(dnaList -> Objects.nonNull(dnaList) && dnaList.size() == 2 
+				&& Arrays.equals(dnaList.get(0).getDnaSequence(), MockData.MUTANT_DNA_SEQUENCE) 
+				&& dnaList.get(0).getClassification() == DnaClassification.MUTANT
+				&& Arrays.equals(dnaList.get(1).getDnaSequence(), MockData.HUMAN_DNA_SEQUENCE)
+				&& dnaList.get(1).getClassification() == DnaClassification.HUMAN));
+		verify(transactionTemplate).execute(Mockito.any());
+		verify(dnaSearchService).index(storedMutantDna);
+		verify(dnaRepository, never()).save(Mockito.any());
+		DnaStatsDTO stats = dnaService.getStats();
+		assertThat(stats.getCount_human_dna()).isEqualTo(1L);
+		assertThat(stats.getCount_mutant_dna()).isEqualTo(1L);
+	}
+	
+	@Test
+	void isMutantBatchInvalidSize() {
+		ReflectionTestUtils.setField(dnaService, "batchMaxSize", 1);
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		
+		assertThatThrownBy(() -> dnaService.isMutantBatch(Collections.emptyList())).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> dnaService.isMutantBatch(Arrays.asList(dnaDTO, dnaDTO))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	@Test
+	void isMutantBatchRepositoryException() throws InvalidDnaException {
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		when(batchRepository.upsertAll(Mockito.any())).thenThrow(RuntimeException.class);
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		
+		dnaService.startBatchPool();
+		try {
+			assertThatThrownBy(() -> dnaService.isMutantBatch(Arrays.asList(dnaDTO))).isInstanceOf(RepositoryException.class);
+		} finally {
+			dnaService.stopBatchPool();
+		}
+	}
+	
+	/**
+	 * In write-behind mode classifications are answered without touching the repository,
+	 * and stored in a single transaction when the queue is drained.
+	 */
+	@Test
+	void isMutantWriteBehind() throws InvalidDnaException, RepositoryException, InterruptedException {
+		ReflectionTestUtils.setField(dnaService, "writeBehindEnabled", true);
+		ReflectionTestUtils.setField(dnaService, "writeBehindFlushInterval", 60000L);
+		when(batchRepository.upsertAll(Mockito.any())).thenReturn(Arrays.asList(DnaUpsertResult.inserted(null), DnaUpsertResult.inserted(null)));
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		when(mutantDetectorService.isMutant(MockData.HUMAN_DNA_SEQUENCE)).thenReturn(false);
+		DnaDTO mutantDTO = new DnaDTO();
+		mutantDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		DnaDTO humanDTO = new DnaDTO();
+		humanDTO.setDna(MockData.HUMAN_DNA_SEQUENCE);
+		
+		dnaService.startWriteBehind();
+		assertThat(dnaService.isMutant(mutantDTO)).isTrue();
+		assertThat(dnaService.isMutant(humanDTO)).isFalse();
+		verify(batchRepository, never()).upsert(Mockito.any());
+		
+		dnaService.stopWriteBehind();
+		verify(transactionTemplate).execute(Mockito.any());
+		verify(batchRepository).upsertAll(Mockito.argThat(dnaList -> Objects.nonNull(dnaList) && dnaList.size() == 2 
+				&& dnaList.get(0).getClassification() == DnaClassification.MUTANT
+				&& dnaList.get(1).getClassification() == DnaClassification.HUMAN));
+	}
+	
+	/**
+	 * Repeated DNA are answered from the cache, without running the detector nor querying the repository.
+	 */
+	@Test
+	void isMutantCached() throws InvalidDnaException, RepositoryException {
+		ReflectionTestUtils.setField(dnaService, "cacheEnabled", true);
+		dnaService.startCache();
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		
+		assertThat(dnaService.isMutant(dnaDTO)).isTrue();
+		Mockito.clearInvocations(mutantDetectorService, batchRepository);
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE.clone());
+		assertThat(dnaService.isMutant(dnaDTO)).isTrue();
+		assertThat(dnaService.isMutantMatrix(DnaMatrix.of(MockData.MUTANT_DNA_SEQUENCE))).isTrue();
+		
+		verify(mutantDetectorService, never()).isMutant(Mockito.any());
+		verify(mutantDetectorService, never()).isMutantMatrix(Mockito.any());
+		verify(batchRepository, never()).upsert(Mockito.any());
+		DnaCacheStatsDTO stats = dnaService.getCacheStats();
+		assertThat(stats.getEnabled()).isTrue();
+		assertThat(stats.getEntries()).isEqualTo(1);
+		assertThat(stats.getHits()).isEqualTo(2L);
+		assertThat(stats.getMisses()).isEqualTo(1L);
+		assertThat(stats.getWeight_bytes()).isEqualTo(6L * Long.BYTES + DnaService.CACHE_ENTRY_OVERHEAD);
+	}
+	
+	@Test
+	void cacheDisabled() {
+		assertThat(dnaService.getCacheStats().getEnabled()).isFalse();
+	}
+	
+	/**
+	 * Classified and rejected DNA are counted in the metrics, with the size of classified ones.
+	 * @throws InvalidDnaException
+	 * @throws RepositoryException
+	 */
+	@Test
+	void isMutantRecordsMetrics() throws InvalidDnaException, RepositoryException {
+		String[] invalidDna = {"AB"};
+		when(mutantDetectorService.isMutant(MockData.MUTANT_DNA_SEQUENCE)).thenReturn(true);
+		when(mutantDetectorService.isMutant(invalidDna)).thenThrow(new InvalidDnaException("Invalid DNA size. Must be at least 4x4"));
+		when(mutantDetectorService.isMutantMatrix(Mockito.any())).thenReturn(false);
+		when(batchRepository.upsert(Mockito.any())).thenReturn(DnaUpsertResult.inserted(1L));
+		DnaDTO dnaDTO = new DnaDTO();
+		dnaDTO.setDna(MockData.MUTANT_DNA_SEQUENCE);
+		DnaDTO invalidDTO = new DnaDTO();
+		invalidDTO.setDna(invalidDna);
+		
+		dnaService.isMutant(dnaDTO);
+		dnaService.isMutantMatrix(DnaMatrix.of(MockData.HUMAN_DNA_SEQUENCE));
+		assertThatThrownBy(() -> dnaService.isMutant(invalidDTO)).isInstanceOf(InvalidDnaException.class);
+		
+		verify(metricsService).recordClassification(true, 6);
+		verify(metricsService).recordClassification(false, 6);
+		verify(metricsService).recordRejected();
+	}
 }
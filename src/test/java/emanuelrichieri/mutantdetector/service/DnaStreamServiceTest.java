@@ -0,0 +1,196 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.io.DnaDTO;
+import emanuelrichieri.mutantdetector.io.DnaStreamResultDTO;
+import emanuelrichieri.mutantdetector.service.implementation.DnaStreamService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.exception.RepositoryException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DnaStreamServiceTest {
+
+	@Mock
+	private IDnaService dnaService;
+	
+	@InjectMocks
+	private DnaStreamService streamService;
+	
+	private ObjectMapper objectMapper = new ObjectMapper();
+	
+	@BeforeEach
+	void startPool() {
+		ReflectionTestUtils.setField(streamService, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(streamService, "maxInFlight", 3);
+		streamService.startPool();
+	}
+	
+	@AfterEach
+	void stopPool() {
+		streamService.stopPool();
+	}
+	
+	@Test
+	void classify() throws IOException, InvalidDnaException, RepositoryException {
+		when(dnaService.isMutant(withDna(MockData.MUTANT_DNA_SEQUENCE))).thenReturn(true);
+		when(dnaService.isMutant(withDna(MockData.HUMAN_DNA_SEQUENCE))).thenReturn(false);
+		when(dnaService.isMutant(withDna(new String[] {"AB"}))).thenThrow(new InvalidDnaException("Invalid DNA size. Must be at least 4x4"));
+		String input = record(MockData.MUTANT_DNA_SEQUENCE) + "\n"
+				+ "\n"
+				+ record(MockData.HUMAN_DNA_SEQUENCE) + "\r\n"
+				+ "{\"dna\": [\"AB\"]}\n"
+				+ "{\"dna\": \n"
+				+ record(MockData.MUTANT_DNA_SEQUENCE);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		long records = streamService.classify(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+		
+		List<DnaStreamResultDTO> results = results(output);
+		assertThat(records).isEqualTo(5);
+		assertThat(results).extracting("line").containsExactly(1L, 3L, 4L, 5L, 6L);
+		assertThat(results).extracting("classification").containsExactly("MUTANT", "HUMAN", null, null, "MUTANT");
+		assertThat(results.get(2).getError()).isEqualTo("Invalid DNA size. Must be at least 4x4");
+		assertThat(results.get(3).getError()).startsWith("Invalid DNA record");
+	}
+	
+	/**
+	 * No more than max-in-flight records are being classified at the same time.
+	 */
+	@Test
+	void boundedInFlightRecords() throws IOException, InvalidDnaException, RepositoryException {
+		ReflectionTestUtils.setField(streamService, "maxInFlight", 2);
+		ReflectionTestUtils.setField(streamService, "threads", 8);
+		streamService.stopPool();
+		streamService.startPool();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		when(dnaService.isMutant(Mockito.any())).thenAnswer(invocation -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			running.decrementAndGet();
+			return true;
+		});
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			input.append(record(MockData.MUTANT_DNA_SEQUENCE)).append('\n');
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		long records = streamService.classify(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), output);
+		
+		assertThat(records).isEqualTo(40);
+		assertThat(results(output)).hasSize(40);
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+	}
+	
+	@Test
+	void closedOutput() throws IOException, InvalidDnaException, RepositoryException {
+		when(dnaService.isMutant(Mockito.any())).thenReturn(true);
+		OutputStream closed = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("Broken pipe");
+			}
+		};
+		String input = record(MockData.MUTANT_DNA_SEQUENCE) + "\n" + record(MockData.MUTANT_DNA_SEQUENCE);
+		
+		assertThatThrownBy(() -> streamService.classify(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), closed))
+			.isInstanceOf(IOException.class);
+	}
+	
+	/**
+	 * A record longer than the max line length is answered with an error, and the next ones are read.
+	 */
+	@Test
+	void longRecord() throws IOException, InvalidDnaException, RepositoryException {
+		when(dnaService.isMutant(Mockito.any())).thenReturn(true);
+		String record = record(MockData.MUTANT_DNA_SEQUENCE);
+		ReflectionTestUtils.setField(streamService, "maxLineLength", record.length());
+		String input = record(MockData.randomDna(new Random(17), 40)) + "\n" + record;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		long records = streamService.classify(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+		
+		List<DnaStreamResultDTO> results = results(output);
+		assertThat(records).isEqualTo(2);
+		assertThat(results.get(0).getError()).isEqualTo("Invalid DNA record. Longer than " + record.length() + " characters");
+		assertThat(results.get(1).getClassification()).isEqualTo("MUTANT");
+	}
+	
+	/**
+	 * When the input fails (the client aborts), the records already read are finished before returning.
+	 */
+	@Test
+	void abortedInput() throws IOException, InvalidDnaException, RepositoryException {
+		AtomicInteger finished = new AtomicInteger();
+		when(dnaService.isMutant(Mockito.any())).thenAnswer(invocation -> {
+			Thread.sleep(20);
+			finished.incrementAndGet();
+			return true;
+		});
+		byte[] records = (record(MockData.MUTANT_DNA_SEQUENCE) + "\n" + record(MockData.MUTANT_DNA_SEQUENCE) + "\n").getBytes(StandardCharsets.UTF_8);
+		InputStream aborted = new SequenceInputStream(new ByteArrayInputStream(records), new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Connection reset");
+			}
+		});
+		
+		assertThatThrownBy(() -> streamService.classify(aborted, new ByteArrayOutputStream())).isInstanceOf(IOException.class);
+		assertThat(finished.get()).isEqualTo(2);
+	}
+	
+	private DnaDTO withDna(String[] dna) {
+		return Mockito.argThat(dnaDTO -> dnaDTO != null && Arrays.equals(dnaDTO.getDna(), dna));
+	}
+	
+	private String record(String[] dna) throws IOException {
+		return objectMapper.writeValueAsString(Collections.singletonMap("dna", dna));
+	}
+	
+	/**
+	 * Parses the result lines, sorted by input line.
+	 */
+	private List<DnaStreamResultDTO> results(ByteArrayOutputStream output) throws IOException {
+		List<DnaStreamResultDTO> results = new ArrayList<DnaStreamResultDTO>();
+		for (String line : new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+			results.add(objectMapper.readValue(line, DnaStreamResultDTO.class));
+		}
+		results.sort(Comparator.comparing(DnaStreamResultDTO::getLine));
+		return results;
+	}
+}
@@ -0,0 +1,79 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+
+/**
+ * Contract every {@link IMutantDetectorService} engine must fulfill with the default rule: 
+ * the same classifications as the suffix tree engine ({@link MutantDetectorService}) and the same validations.
+ * Subclasses provide the engine and test its own edge cases.
+ */
+public abstract class MutantDetectorEngineTest {
+
+	protected final MutantDetectorService suffixTreeService = new MutantDetectorService();
+	
+	/**
+	 * @return the engine under test, ready to classify
+	 */
+	protected abstract IMutantDetectorService engine();
+	
+	@Test
+	void isMutant() throws InvalidDnaException {
+		assertThat(this.engine().isMutant(MockData.MUTANT_DNA_SEQUENCE)).isEqualTo(true);
+		assertThat(this.engine().isMutant(MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL)).isEqualTo(true);
+		assertThat(this.engine().isMutant(MockData.HUMAN_DNA_SEQUENCE)).isEqualTo(false);
+	}
+	
+	/**
+	 * Both engines must classify random matrices the same way, from their rows or already packed.
+	 */
+	@Test
+	void sameResultAsSuffixTree() throws InvalidDnaException {
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			String[] dna = MockData.randomDna(random, 4 + random.nextInt(6));
+			Boolean expected = this.suffixTreeService.isMutant(dna);
+			assertThat(this.engine().isMutant(dna)).isEqualTo(expected);
+			assertThat(this.engine().isMutantMatrix(DnaMatrix.of(dna))).isEqualTo(expected);
+		}
+	}
+	
+	@Test
+	void invalidDna() {
+		assertThatThrownBy(() -> this.engine().isMutant(null)).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test at least 4x4 DNA constraint
+	 */
+	@Test
+	void invalidDnaSizeException() {
+		assertThatThrownBy(() -> this.engine().isMutant(new String[] {"AAA", "AAA", "AAA"})).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test NxN constraint
+	 */
+	@Test
+	void invalidDnaSequenceLengthException() {
+		assertThatThrownBy(() -> this.engine().isMutant(new String[] {"AAAA", "AAA", "AAAA", "AAAA"})).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> this.engine().isMutant(new String[] {"AAAA", "AAAA", "AAAA", null})).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test allowed characters constraint
+	 */
+	@Test
+	void invalidCharactersException() {
+		assertThatThrownBy(() -> this.engine().isMutant(new String[] {"ABAA", "ASAA", "AAAA", "AAAA"})).isInstanceOf(InvalidDnaException.class);
+	}
+}
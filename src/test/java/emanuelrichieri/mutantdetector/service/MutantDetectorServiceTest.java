@@ -3,6 +3,8 @@ package emanuelrichieri.mutantdetector.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -12,6 +14,7 @@ import org.mockito.quality.Strictness;
 
 import emanuelrichieri.mutantdetector.MockData;
 import emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService;
+import emanuelrichieri.mutantdetector.service.implementation.RunLengthMutantDetectorService;
 import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
 
 @ExtendWith(MockitoExtension.class)
@@ -62,4 +65,24 @@ public class MutantDetectorServiceTest {
 	void invalidCharactersException() {
 		assertThatThrownBy(() -> service.isMutant(new String[] {"ABA", "ASA", "AAA"})).isInstanceOf(InvalidDnaException.class);		
 	}
+	
+	/**
+	 * Every row is validated before any line is extracted, so a short row 
+	 * is reported as invalid DNA even if it comes last.
+	 */
+	@Test
+	void invalidLastRowException() {
+		assertThatThrownBy(() -> service.isMutant(new String[] {"AAAA", "AAAA", "AAAA", "AA"})).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> service.isMutant(new String[] {"AAAA", "AAAA", "AAAA", null})).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	@Test
+	void sameResultAsRunLengthEngine() throws InvalidDnaException {
+		RunLengthMutantDetectorService runLength = new RunLengthMutantDetectorService();
+		Random random = new Random(42);
+		for (int test = 0; test < 200; test++) {
+			String[] dna = MockData.randomDna(random, 4 + random.nextInt(6));
+			assertThat(service.isMutant(dna)).isEqualTo(runLength.isMutant(dna));
+		}
+	}
 }
@@ -0,0 +1,46 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.PackedMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class PackedMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	PackedMutantDetectorService service;
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	/**
+	 * Sequences crossing the boundary between two packed words (columns 31 and 32).
+	 */
+	@Test
+	void sequencesAcrossWords() throws InvalidDnaException {
+		char[][] dna = MockData.noSequencesDna(70);
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 10, 30, 0, 1, 'G');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 40, 29, 1, 1, 'T');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+		
+		dna = MockData.plantSequence(MockData.noSequencesDna(70), 66, 63, 1, 0, 'C');
+		MockData.plantSequence(dna, 0, 66, 0, 1, 'C');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+	}
+}
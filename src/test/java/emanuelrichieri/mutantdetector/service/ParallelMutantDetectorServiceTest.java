@@ -0,0 +1,72 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.ParallelMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ParallelMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	ParallelMutantDetectorService service;
+	
+	/**
+	 * Scan every matrix in parallel, in bands of 4 rows.
+	 */
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "threshold", 4);
+		ReflectionTestUtils.setField(service, "bandRows", 4);
+	}
+	
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	/**
+	 * Sequences crossing the edge between two bands must be found once.
+	 */
+	@Test
+	void sequencesAcrossBands() throws InvalidDnaException {
+		char[][] dna = MockData.noSequencesDna(64);
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 30, 10, 1, 0, 'G');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 46, 40, 1, 1, 'A');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+	}
+	
+	/**
+	 * Small matrices are scanned on the calling thread.
+	 */
+	@Test
+	void belowThreshold() throws InvalidDnaException {
+		ReflectionTestUtils.setField(service, "threshold", 1000);
+		char[][] dna = MockData.plantSequence(MockData.noSequencesDna(64), 60, 3, 1, 0, 'T');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 0, 60, 0, 1, 'C');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+	}
+}
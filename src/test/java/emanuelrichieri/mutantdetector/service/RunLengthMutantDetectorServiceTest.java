@@ -0,0 +1,36 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import emanuelrichieri.mutantdetector.service.implementation.RunLengthMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class RunLengthMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	RunLengthMutantDetectorService service;
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	/**
+	 * A single line counts each base only once, as the suffix tree engine does.
+	 */
+	@Test
+	void sameBaseTwiceInLineIsOneMatch() throws InvalidDnaException {
+		String[] dna = {"AAAACAAAA", "CGTCGTCGT", "GTCATCAGT", "TCATCAGTC", "CGTAGTCAG", "GTCGTACGT", "TCATCAGTC", "CATGTCGCA", "GTCATCAGA"};
+		assertThat(this.service.isMutant(dna)).isEqualTo(false);
+		assertThat(this.suffixTreeService.isMutant(dna)).isEqualTo(false);
+	}
+}
@@ -0,0 +1,120 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.MutantDetectorService;
+import emanuelrichieri.mutantdetector.service.implementation.StreamingMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class StreamingMutantDetectorServiceTest {
+
+	@InjectMocks
+	StreamingMutantDetectorService service;
+	
+	@InjectMocks
+	MutantDetectorService suffixTreeService;
+	
+	@Test
+	void isMutant() throws InvalidDnaException, IOException {
+		assertThat(this.service.isMutant(Arrays.asList(MockData.MUTANT_DNA_SEQUENCE).iterator())).isEqualTo(true);
+		assertThat(this.service.isMutant(Arrays.asList(MockData.MUTANT_DNA_SEQUENCE_ALL_EQUAL).iterator())).isEqualTo(true);
+		assertThat(this.service.isMutant(Arrays.asList(MockData.HUMAN_DNA_SEQUENCE).iterator())).isEqualTo(false);
+		
+		assertThat(this.service.isMutant(stream(MockData.MUTANT_DNA_SEQUENCE, "\n"))).isEqualTo(true);
+		assertThat(this.service.isMutant(stream(MockData.HUMAN_DNA_SEQUENCE, "\r\n"))).isEqualTo(false);
+	}
+	
+	/**
+	 * Rows after the decisive one are not read.
+	 */
+	@Test
+	void stopsReadingWhenMutant() throws InvalidDnaException, IOException {
+		String[] dna = {"AAAAGT", "CCCCGT", "XXXXXX", "A"};
+		assertThat(this.service.isMutant(Arrays.asList(dna).iterator())).isEqualTo(true);
+		
+		InputStream input = new BufferedInputStream(stream(dna, "\n"));
+		assertThat(this.service.isMutant(input)).isEqualTo(true);
+		assertThat(input.available()).isGreaterThan(0);
+	}
+	
+	/**
+	 * Both engines must classify random matrices the same way.
+	 */
+	@Test
+	void sameResultAsSuffixTree() throws InvalidDnaException, IOException {
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			String[] dna = MockData.randomDna(random, 4 + random.nextInt(6));
+			Boolean expected = this.suffixTreeService.isMutant(dna);
+			assertThat(this.service.isMutant(Arrays.asList(dna).iterator())).isEqualTo(expected);
+			assertThat(this.service.isMutant(stream(dna, "\n"))).isEqualTo(expected);
+		}
+	}
+	
+	/**
+	 * Sequences in wide matrices, beyond the initial capacity of the per column state.
+	 */
+	@Test
+	void wideMatrix() throws InvalidDnaException {
+		char[][] dna = MockData.plantSequence(MockData.noSequencesDna(150), 140, 140, 1, 1, 'G');
+		assertThat(this.service.isMutant(Arrays.asList(MockData.toStrings(dna)).iterator())).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 100, 130, 1, 0, 'G');
+		assertThat(this.service.isMutant(Arrays.asList(MockData.toStrings(dna)).iterator())).isEqualTo(true);
+	}
+	
+	@Test
+	void invalidDna() {
+		assertThatThrownBy(() -> this.service.isMutant((InputStream) null)).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> this.service.isMutant(stream(new String[0], "\n"))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test at least 4x4 DNA constraint
+	 */
+	@Test
+	void invalidDnaSizeException() {
+		assertThatThrownBy(() -> service.isMutant(Arrays.asList("AAA", "AAA", "AAA").iterator())).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test NxN constraint
+	 */
+	@Test
+	void invalidDnaSequenceLengthException() {
+		assertThatThrownBy(() -> service.isMutant(Arrays.asList("ACGT", "ACG", "ACGT", "ACGT").iterator())).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> service.isMutant(Arrays.asList("ACGT", "CGTA", "GTAC").iterator())).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> service.isMutant(stream(new String[] {"ACGT", "CGTA", "GTAC", "TACG", "ACGT"}, "\n"))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test allowed characters constraint
+	 */
+	@Test
+	void invalidCharactersException() {
+		assertThatThrownBy(() -> service.isMutant(Arrays.asList("ACGT", "CBTA", "GTAC", "TACG").iterator())).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	private static InputStream stream(String[] dna, String separator) {
+		return new ByteArrayInputStream(String.join(separator, dna).getBytes(StandardCharsets.US_ASCII));
+	}
+}
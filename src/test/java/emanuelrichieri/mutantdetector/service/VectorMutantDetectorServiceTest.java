@@ -0,0 +1,46 @@
+package emanuelrichieri.mutantdetector.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.service.implementation.VectorMutantDetectorService;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class VectorMutantDetectorServiceTest extends MutantDetectorEngineTest {
+
+	@InjectMocks
+	VectorMutantDetectorService service;
+	
+	@Override
+	protected IMutantDetectorService engine() {
+		return service;
+	}
+	
+	/**
+	 * Sequences touching the last columns and rows of the matrix, next to the row padding.
+	 */
+	@Test
+	void sequencesAtMatrixEdges() throws InvalidDnaException {
+		char[][] dna = MockData.noSequencesDna(20);
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 19, 15, 0, 1, 'A');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(false);
+		
+		MockData.plantSequence(dna, 16, 19, 1, 0, 'T');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+		
+		dna = MockData.plantSequence(MockData.noSequencesDna(20), 16, 16, 1, 1, 'C');
+		MockData.plantSequence(dna, 0, 1, 1, 1, 'C');
+		assertThat(this.service.isMutant(MockData.toStrings(dna))).isEqualTo(true);
+	}
+}
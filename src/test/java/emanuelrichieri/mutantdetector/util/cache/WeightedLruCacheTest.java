@@ -0,0 +1,98 @@
+package emanuelrichieri.mutantdetector.util.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class WeightedLruCacheTest {
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		WeightedLruCache<String, Integer> cache = new WeightedLruCache<String, Integer>(2, 1000);
+		cache.put("a", 1, 1);
+		cache.put("b", 2, 1);
+		assertThat(cache.get("a")).isEqualTo(1);
+		cache.put("c", 3, 1);
+		
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("a")).isEqualTo(1);
+		assertThat(cache.get("c")).isEqualTo(3);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.evictions()).isEqualTo(1);
+		assertThat(cache.hits()).isEqualTo(3);
+		assertThat(cache.misses()).isEqualTo(1);
+	}
+	
+	@Test
+	void evictsByWeight() {
+		WeightedLruCache<String, Integer> cache = new WeightedLruCache<String, Integer>(100, 10);
+		cache.put("a", 1, 4);
+		cache.put("b", 2, 4);
+		cache.put("c", 3, 8);
+		
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("c")).isEqualTo(3);
+		assertThat(cache.weight()).isEqualTo(8);
+		assertThat(cache.evictions()).isEqualTo(2);
+	}
+	
+	@Test
+	void replaceKeepsWeight() {
+		WeightedLruCache<String, Integer> cache = new WeightedLruCache<String, Integer>(100, 10);
+		cache.put("a", 1, 4);
+		cache.put("a", 2, 6);
+		
+		assertThat(cache.get("a")).isEqualTo(2);
+		assertThat(cache.weight()).isEqualTo(6);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+	
+	@Test
+	void rejectsTooHeavyEntries() {
+		WeightedLruCache<String, Integer> cache = new WeightedLruCache<String, Integer>(100, 10);
+		cache.put("a", 1, 4);
+		
+		assertThat(cache.put("b", 2, 11)).isFalse();
+		assertThat(cache.get("a")).isEqualTo(1);
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.evictions()).isEqualTo(0);
+	}
+	
+	/**
+	 * A cached value rejected by the caller is a miss.
+	 */
+	@Test
+	void invalidValueIsMiss() {
+		WeightedLruCache<String, Integer> cache = new WeightedLruCache<String, Integer>(100, 10);
+		cache.put("a", 1, 1);
+		
+		assertThat(cache.get("a", value -> value == 2)).isNull();
+		assertThat(cache.get("a", value -> value == 1)).isEqualTo(1);
+		assertThat(cache.hits()).isEqualTo(1);
+		assertThat(cache.misses()).isEqualTo(1);
+	}
+	
+	/**
+	 * Each segment keeps its share of both bounds, so the whole cache never exceeds them.
+	 */
+	@Test
+	void segmentsShareBounds() {
+		WeightedLruCache<Integer, Integer> cache = new WeightedLruCache<Integer, Integer>(10, 1000, 4);
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, i, 1);
+		}
+		assertThat(cache.size()).isEqualTo(10);
+		assertThat(cache.evictions()).isEqualTo(90);
+		assertThat(cache.get(99)).isEqualTo(99);
+		
+		WeightedLruCache<Integer, Integer> light = new WeightedLruCache<Integer, Integer>(100, 10, 4);
+		// segments of 3, 3, 2 and 2
+		assertThat(light.put(0, 0, 3)).isTrue();
+		assertThat(light.put(3, 3, 3)).isFalse();
+		for (int i = 0; i < 100; i++) {
+			light.put(i, i, 1);
+		}
+		assertThat(light.weight()).isEqualTo(10);
+	}
+}
@@ -0,0 +1,88 @@
+package emanuelrichieri.mutantdetector.util.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class AhoCorasickMatcherTest {
+
+	@Test
+	void findAll() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher("AAAA", "CCCC", "GGGG", "TTTT");
+		assertThat(matcher.findAll("ACAAAAGT").stream()).containsExactly(0);
+		assertThat(matcher.findAll("TTTTGCCCC").stream()).containsExactly(1, 3);
+		assertThat(matcher.findAll("AAACCCGGGTTT").isEmpty()).isTrue();
+		assertThat(matcher.minLength()).isEqualTo(4);
+	}
+	
+	/**
+	 * Signatures contained in other signatures are found through the failure links.
+	 */
+	@Test
+	void overlappingSignatures() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher("GATTACA", "TTA", "ACA", "CAG", "A");
+		assertThat(matcher.findAll("GATTACA").stream()).containsExactly(0, 1, 2, 4);
+		assertThat(matcher.findAll("TTACAG").stream()).containsExactly(1, 2, 3, 4);
+		assertThat(matcher.minLength()).isEqualTo(1);
+		
+		int state = AhoCorasickMatcher.ROOT;
+		for (char c : "GATTACA".toCharArray()) {
+			state = matcher.next(state, c);
+		}
+		assertThat(matcher.matchCount(state)).isEqualTo(3);
+	}
+	
+	/**
+	 * Compare with a brute force search of every signature.
+	 */
+	@Test
+	void sameResultAsBruteForce() {
+		Random random = new Random(13);
+		for (int round = 0; round < 200; round++) {
+			String[] signatures = new String[1 + random.nextInt(40)];
+			for (int i = 0; i < signatures.length; i++) {
+				signatures[i] = randomWord(random, 1 + random.nextInt(6), 1 + random.nextInt(4));
+			}
+			AhoCorasickMatcher matcher = new AhoCorasickMatcher(signatures);
+			for (int i = 0; i < 20; i++) {
+				String text = randomWord(random, random.nextInt(60), 1 + random.nextInt(4));
+				BitSet expected = new BitSet();
+				for (int k = 0; k < signatures.length; k++) {
+					if (text.contains(signatures[k])) {
+						expected.set(k);
+					}
+				}
+				assertThat(matcher.findAll(text)).as(text).isEqualTo(expected);
+			}
+		}
+	}
+	
+	@Test
+	void outOfAlphabetCharsResetTheMatch() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher("AAAA");
+		assertThat(matcher.findAll("AAXAA").isEmpty()).isTrue();
+		assertThat(matcher.findAll("XAAAA").stream()).containsExactly(0);
+	}
+	
+	@Test
+	void invalidSignatures() {
+		assertThatThrownBy(() -> new AhoCorasickMatcher()).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AhoCorasickMatcher("AAAA", "")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AhoCorasickMatcher("AAXA")).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	/**
+	 * Random word over the first <tt>letters</tt> bases, so that repetitions are frequent.
+	 */
+	private static String randomWord(Random random, int length, int letters) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append("ACGT".charAt(random.nextInt(letters)));
+		}
+		return word.toString();
+	}
+}
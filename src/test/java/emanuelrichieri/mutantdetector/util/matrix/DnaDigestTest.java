@@ -0,0 +1,36 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+public class DnaDigestTest {
+
+	@Test
+	void sameContentSameDigest() throws InvalidDnaException {
+		String[] dna = MockData.randomDna(new Random(7), 300);
+		DnaDigest digest = DnaDigest.of(DnaMatrix.of(dna));
+		
+		assertThat(DnaDigest.of(DnaMatrix.of(dna.clone()))).isEqualTo(digest);
+		assertThat(DnaDigest.of(DnaMatrix.of(dna)).hashCode()).isEqualTo(digest.hashCode());
+		assertThat(digest.toString()).hasSize(2 * DnaDigest.BYTES).matches("[0-9a-f]+");
+	}
+	
+	@Test
+	void differentContentDifferentDigest() throws InvalidDnaException {
+		String[] dna = MockData.randomDna(new Random(7), 300);
+		DnaDigest digest = DnaDigest.of(DnaMatrix.of(dna));
+		char[] row = dna[299].toCharArray();
+		row[299] = row[299] == 'A' ? 'C' : 'A';
+		dna[299] = new String(row);
+		
+		assertThat(DnaDigest.of(DnaMatrix.of(dna))).isNotEqualTo(digest);
+		// same words, different size
+		assertThat(DnaDigest.of(new DnaMatrix(4))).isNotEqualTo(DnaDigest.of(new DnaMatrix(5)));
+	}
+}
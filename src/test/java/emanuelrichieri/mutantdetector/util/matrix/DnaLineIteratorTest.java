@@ -0,0 +1,79 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+
+public class DnaLineIteratorTest {
+
+	@Test
+	void producesEveryLine() {
+		Random random = new Random(42);
+		for (int test = 0; test < 50; test++) {
+			String[] dna = MockData.randomDna(random, 4 + random.nextInt(10));
+			DnaLineIterator lines = new DnaLineIterator(dna);
+			List<String> produced = new ArrayList<String>();
+			while (lines.hasNext()) {
+				produced.add(lines.next());
+			}
+			
+			assertThat(produced).hasSize(lines.lineCount());
+			assertThat(produced).containsExactlyInAnyOrderElementsOf(bruteForceLines(dna));
+		}
+	}
+	
+	@Test
+	void directionByDirection() {
+		String[] dna = {"ACGT", "CGTA", "GTAC", "TACG"};
+		DnaLineIterator lines = new DnaLineIterator(dna);
+		
+		assertThat(lines.lineCount()).isEqualTo(9);
+		for (String row : dna) {
+			assertThat(lines.next()).isEqualTo(row);
+		}
+		assertThat(lines.next()).isEqualTo("ACGT");
+		assertThat(lines.next()).isEqualTo("CGTA");
+		assertThat(lines.next()).isEqualTo("GTAC");
+		assertThat(lines.next()).isEqualTo("TACG");
+		assertThat(lines.next()).isEqualTo("AGAG");
+		assertThat(lines.hasNext()).isFalse();
+		assertThatThrownBy(() -> lines.next()).isInstanceOf(NoSuchElementException.class);
+	}
+	
+	/**
+	 * Rows, columns and left-to-right diagonals of at least 4 bases, one cell at a time.
+	 */
+	private List<String> bruteForceLines(String[] dna) {
+		int n = dna.length;
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < n; i++) {
+			StringBuilder row = new StringBuilder();
+			StringBuilder column = new StringBuilder();
+			for (int j = 0; j < n; j++) {
+				row.append(dna[i].charAt(j));
+				column.append(dna[j].charAt(i));
+			}
+			lines.add(row.toString());
+			lines.add(column.toString());
+		}
+		for (int start = -(n - 4); start <= n - 4; start++) {
+			StringBuilder diagonal = new StringBuilder();
+			for (int r = 0; r < n; r++) {
+				int c = r + start;
+				if (c >= 0 && c < n) {
+					diagonal.append(dna[r].charAt(c));
+				}
+			}
+			lines.add(diagonal.toString());
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,46 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+public class DnaMatrixTest {
+
+	@Test
+	void packAndUnpack() throws InvalidDnaException {
+		String[] dna = MockData.randomDna(new Random(7), 45);
+		DnaMatrix matrix = DnaMatrix.of(dna);
+		
+		assertThat(matrix.size()).isEqualTo(45);
+		assertThat(matrix.wordsPerRow()).isEqualTo(2);
+		assertThat(matrix.toStrings()).isEqualTo(dna);
+		assertThat(DnaMatrix.decode(matrix.get(3, 40))).isEqualTo(dna[3].charAt(40));
+	}
+	
+	@Test
+	void setBase() throws InvalidDnaException {
+		DnaMatrix matrix = DnaMatrix.of(MockData.HUMAN_DNA_SEQUENCE);
+		matrix.set(2, 3, DnaMatrix.encode('G'));
+		assertThat(matrix.getRow(2)).isEqualTo("TTAGTT");
+	}
+	
+	@Test
+	void shiftedWord() throws InvalidDnaException {
+		DnaMatrix matrix = DnaMatrix.of(MockData.toStrings(MockData.noSequencesDna(40)));
+		long shifted = matrix.shiftedWord(0, 0, 3);
+		for (int lane = 0; lane < DnaMatrix.BASES_PER_WORD; lane++) {
+			assertThat((int) ((shifted >>> (lane * 2)) & DnaMatrix.BASE_MASK)).isEqualTo(matrix.get(0, lane + 3));
+		}
+	}
+	
+	@Test
+	void invalidCharacter() {
+		assertThatThrownBy(() -> DnaMatrix.of(new String[] {"ACGT", "ACGT", "ACXT", "ACGT"})).isInstanceOf(InvalidDnaException.class);
+	}
+}
@@ -0,0 +1,47 @@
+package emanuelrichieri.mutantdetector.util.matrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+
+public class PackedDnaCodecTest {
+
+	@Test
+	void pack() throws InvalidDnaException {
+		byte[] result = PackedDnaCodec.pack(DnaMatrix.of(new String[] {"ACGT", "TGCA", "AAAA", "CCCC"}));
+		assertThat(result).containsExactly(0, 0, 0, 4, 0b00011011, 0b11100100, 0b00000000, 0b01010101);
+	}
+	
+	@Test
+	void unpack() throws InvalidDnaException {
+		byte[] packed = PackedDnaCodec.pack(DnaMatrix.of(MockData.HUMAN_DNA_SEQUENCE));
+		assertThat(packed).hasSize(PackedDnaCodec.HEADER_BYTES + 9);
+		assertThat(PackedDnaCodec.unpack(packed)).isEqualTo(MockData.HUMAN_DNA_SEQUENCE);
+	}
+	
+	/**
+	 * Sizes whose bases do not fill the last byte, and matrices too big for the previous text column.
+	 */
+	@Test
+	void roundTrip() throws InvalidDnaException {
+		Random random = new Random(7);
+		for (int size : new int[] {5, 7, 90, 250}) {
+			String[] dna = MockData.randomDna(random, size);
+			byte[] packed = PackedDnaCodec.pack(DnaMatrix.of(dna));
+			assertThat(packed).hasSize(PackedDnaCodec.packedLength(size));
+			assertThat(PackedDnaCodec.unpack(packed)).isEqualTo(dna);
+		}
+	}
+	
+	@Test
+	void invalidValues() {
+		assertThatThrownBy(() -> PackedDnaCodec.unpack(new byte[] {0, 0, 0, 4, 0})).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PackedDnaCodec.unpack(new byte[] {1})).isInstanceOf(IllegalArgumentException.class);
+	}
+}
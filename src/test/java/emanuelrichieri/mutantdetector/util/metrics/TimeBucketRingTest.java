@@ -0,0 +1,68 @@
+package emanuelrichieri.mutantdetector.util.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TimeBucketRingTest {
+
+	@Test
+	void countsByBucket() {
+		TimeBucketRing ring = new TimeBucketRing(1000, 10, 2);
+		ring.increment(5000, 0);
+		ring.increment(5999, 0);
+		ring.increment(6000, 1);
+		ring.increment(8500, 0);
+		
+		long[][] counts = ring.read(8999, 4);
+		assertThat(counts).isEqualTo(new long[][] {{2, 0}, {0, 1}, {0, 0}, {1, 0}});
+		assertThat(ring.bucketStart(8999)).isEqualTo(8000);
+	}
+	
+	/**
+	 * Once the ring wraps around, buckets older than its capacity are reported as zero, and late increments are dropped.
+	 */
+	@Test
+	void expiredBuckets() {
+		TimeBucketRing ring = new TimeBucketRing(1000, 3, 1);
+		ring.increment(1000, 0);
+		ring.increment(2000, 0);
+		
+		assertThat(ring.read(4000, 3)).isEqualTo(new long[][] {{1}, {0}, {0}});
+		ring.increment(4000, 0);
+		ring.increment(1000, 0);
+		assertThat(ring.read(4000, 3)).isEqualTo(new long[][] {{1}, {0}, {1}});
+		assertThat(ring.read(5000, 3)).isEqualTo(new long[][] {{0}, {1}, {0}});
+	}
+	
+	@Test
+	void readMoreThanCapacity() {
+		TimeBucketRing ring = new TimeBucketRing(1000, 3, 1);
+		assertThatThrownBy(() -> ring.read(1000, 4)).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	@Test
+	void concurrentIncrements() throws InterruptedException {
+		TimeBucketRing ring = new TimeBucketRing(1000, 10, 1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					ring.increment(i % 5 * 1000, 0);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		assertThat(ring.read(4000, 5)).isEqualTo(new long[][] {{8000}, {8000}, {8000}, {8000}, {8000}});
+	}
+}
@@ -0,0 +1,102 @@
+package emanuelrichieri.mutantdetector.util.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.MockData;
+import emanuelrichieri.mutantdetector.util.exception.InvalidDnaException;
+import emanuelrichieri.mutantdetector.util.matrix.DnaMatrix;
+
+public class DnaJsonParserTest {
+
+	@Test
+	void parse() throws InvalidDnaException, IOException {
+		DnaMatrix matrix = DnaJsonParser.parse(json("{\"dna\":[\"ATGCGA\",\"CAGTGC\",\"TTATTT\",\"AGACGG\",\"GCGTCA\",\"TCACTG\"]}"));
+		assertThat(matrix.toStrings()).isEqualTo(MockData.HUMAN_DNA_SEQUENCE);
+	}
+	
+	/**
+	 * Rows longer than a packed word, whitespace and other fields.
+	 */
+	@Test
+	void parseLargeWithOtherFields() throws InvalidDnaException, IOException {
+		String[] dna = MockData.randomDna(new Random(3), 70);
+		String body = "{ \"id\" : 5, \"tags\": [\"a\", {\"b\": \"]\\\"}\"}], \n\t\"dna\" : [ \"" 
+				+ String.join("\" ,\n \"", dna) + "\" ], \"ok\": true }";
+		assertThat(DnaJsonParser.parse(json(body)).toStrings()).isEqualTo(dna);
+	}
+	
+	@Test
+	void nullDna() {
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{}"))).hasMessage("Dna cannot be null.");
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": null}"))).hasMessage("Dna cannot be null.");
+	}
+	
+	@Test
+	void malformed() {
+		assertThatThrownBy(() -> DnaJsonParser.parse(json(""))).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACGT\""))).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("[\"ACGT\"]"))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Only a single document, optionally followed by whitespace, is accepted.
+	 * @throws InvalidDnaException
+	 * @throws IOException
+	 */
+	@Test
+	void trailingContent() throws InvalidDnaException, IOException {
+		String body = "{\"dna\":[\"ATGCGA\",\"CAGTGC\",\"TTATTT\",\"AGACGG\",\"GCGTCA\",\"TCACTG\"]}";
+		assertThat(DnaJsonParser.parse(json(body + " \r\n")).toStrings()).isEqualTo(MockData.HUMAN_DNA_SEQUENCE);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json(body + "}"))).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json(body + " " + body))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	@Test
+	void repeatedDnaField() {
+		String body = "{\"dna\": [\"AAAA\", \"CCCC\", \"GGGG\", \"TTTT\"], \"dna\": [\"ACGT\", \"ACGT\", \"ACGT\", \"ACGT\"]}";
+		assertThatThrownBy(() -> DnaJsonParser.parse(json(body))).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": null, \"dna\": null}"))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test at least 4x4 DNA constraint
+	 */
+	@Test
+	void invalidDnaSize() {
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": []}"))).isInstanceOf(InvalidDnaException.class);
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"AAA\", \"AAA\", \"AAA\"]}"))).isInstanceOf(InvalidDnaException.class);
+	}
+	
+	/**
+	 * Test NxN constraint
+	 */
+	@Test
+	void invalidDnaSequenceLength() {
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACG\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid DNA. Sequence matrix must be NxN");
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACGTA\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid DNA. Sequence matrix must be NxN");
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid DNA. Sequence matrix must be NxN");
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACGT\", \"ACGT\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid DNA. Sequence matrix must be NxN");
+	}
+	
+	/**
+	 * Test allowed characters constraint
+	 */
+	@Test
+	void invalidCharacters() {
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"ACGT\", \"ACxT\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid character in the given sequence ");
+		assertThatThrownBy(() -> DnaJsonParser.parse(json("{\"dna\": [\"AC\\u0047T\", \"ACGT\", \"ACGT\", \"ACGT\"]}"))).hasMessage("Invalid character in the given sequence ");
+	}
+	
+	private static InputStream json(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,111 @@
+package emanuelrichieri.mutantdetector.util.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class WriteBehindQueueTest {
+
+	@Test
+	void flushBySize() throws InterruptedException {
+		List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+		CountDownLatch written = new CountDownLatch(2);
+		WriteBehindQueue<Integer> queue = new WriteBehindQueue<Integer>("test", 100, 3, 60000, batch -> {
+			batches.add(batch);
+			written.countDown();
+		});
+		for (int i = 0; i < 6; i++) {
+			assertThat(queue.offer(i)).isTrue();
+		}
+		
+		assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(batches).containsExactly(list(0, 1, 2), list(3, 4, 5));
+		queue.close();
+	}
+	
+	@Test
+	void flushByInterval() throws InterruptedException {
+		CountDownLatch written = new CountDownLatch(1);
+		List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+		WriteBehindQueue<Integer> queue = new WriteBehindQueue<Integer>("test", 100, 1000, 20, batch -> {
+			items.addAll(batch);
+			written.countDown();
+		});
+		queue.offer(1);
+		queue.offer(2);
+		
+		assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(items).containsExactly(1, 2);
+		queue.close();
+	}
+	
+	/**
+	 * Every item queued is written once, and no item is accepted after closing.
+	 */
+	@Test
+	void drainOnClose() throws InterruptedException {
+		List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+		WriteBehindQueue<Integer> queue = new WriteBehindQueue<Integer>("test", 10000, 7, 60000, items::addAll);
+		for (int i = 0; i < 1000; i++) {
+			queue.offer(i);
+		}
+		queue.close();
+		
+		assertThat(items).hasSize(1000);
+		assertThat(queue.size()).isEqualTo(0);
+		assertThat(queue.offer(1000)).isFalse();
+	}
+	
+	@Test
+	void fullQueue() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		WriteBehindQueue<Integer> queue = new WriteBehindQueue<Integer>("test", 2, 1, 60000, batch -> {
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		// the first item is taken by the (blocked) writer, the next two fill the queue
+		queue.offer(0);
+		while (queue.size() > 0) {
+			Thread.sleep(1);
+		}
+		assertThat(queue.offer(1)).isTrue();
+		assertThat(queue.offer(2)).isTrue();
+		assertThat(queue.offer(3)).isFalse();
+		release.countDown();
+		queue.close();
+	}
+	
+	/**
+	 * A failing write does not stop the writer thread.
+	 */
+	@Test
+	void writerException() throws InterruptedException {
+		List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+		WriteBehindQueue<Integer> queue = new WriteBehindQueue<Integer>("test", 100, 1, 60000, batch -> {
+			if (batch.contains(0)) {
+				throw new IllegalStateException("Connection refused");
+			}
+			items.addAll(batch);
+		});
+		queue.offer(0);
+		queue.offer(1);
+		queue.close();
+		
+		assertThat(items).containsExactly(1);
+	}
+	
+	private static List<Integer> list(Integer... items) {
+		List<Integer> list = new ArrayList<Integer>();
+		Collections.addAll(list, items);
+		return list;
+	}
+}
@@ -0,0 +1,116 @@
+package emanuelrichieri.mutantdetector.util.rule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.util.rule.DetectionRule.Direction;
+
+public class DetectionRuleCompilerTest {
+
+	@Test
+	void unrolledRun() throws Throwable {
+		String[] dna = {"AAAAC", "CAGTC", "CTATC", "CTCAC", "CTCTA"};
+		
+		assertThat((boolean) DetectionRuleCompiler.unrollRun(4, 0, 1).invokeExact(dna, 0, 0, 'A')).isTrue();
+		assertThat((boolean) DetectionRuleCompiler.unrollRun(4, 0, 1).invokeExact(dna, 0, 1, 'A')).isFalse();
+		assertThat((boolean) DetectionRuleCompiler.unrollRun(4, 1, 0).invokeExact(dna, 0, 4, 'C')).isTrue();
+		assertThat((boolean) DetectionRuleCompiler.unrollRun(5, 1, 1).invokeExact(dna, 0, 0, 'A')).isTrue();
+		assertThat((boolean) DetectionRuleCompiler.unrollRun(1, 1, -1).invokeExact(dna, 0, 4, 'C')).isTrue();
+	}
+	
+	/**
+	 * Each scanner adds the matches of its own direction to the ones already found, and stops once they are enough.
+	 */
+	@Test
+	void scanner() throws Throwable {
+		String[] dna = {"AAAAC", "CAGTC", "CTATC", "CTCAC", "CTCTA"};
+		
+		assertThat((int) DetectionRuleCompiler.scanner(Direction.ROW, 4, 5).invokeExact(dna, 0)).isEqualTo(1);
+		assertThat((int) DetectionRuleCompiler.scanner(Direction.COLUMN, 4, 5).invokeExact(dna, 1)).isEqualTo(3);
+		assertThat((int) DetectionRuleCompiler.scanner(Direction.DIAGONAL, 5, 5).invokeExact(dna, 0)).isEqualTo(1);
+		assertThat((int) DetectionRuleCompiler.scanner(Direction.ANTI_DIAGONAL, 4, 5).invokeExact(dna, 0)).isEqualTo(0);
+		assertThat((int) DetectionRuleCompiler.scanner(Direction.COLUMN, 4, 2).invokeExact(dna, 1)).isEqualTo(2);
+	}
+	
+	/**
+	 * Compiles random rules and compares them with a brute force count of the runs of each line.
+	 */
+	@Test
+	void sameResultAsBruteForce() {
+		Random random = new Random(14);
+		Direction[] all = Direction.values();
+		for (int round = 0; round < 12; round++) {
+			Set<Direction> directions = EnumSet.noneOf(Direction.class);
+			while (directions.isEmpty()) {
+				for (Direction direction : all) {
+					if (random.nextBoolean()) {
+						directions.add(direction);
+					}
+				}
+			}
+			String alphabet = "ACGT".substring(0, 2 + random.nextInt(3));
+			DetectionRule rule = new DetectionRule(alphabet, 1 + random.nextInt(5), 1 + random.nextInt(4), directions);
+			Predicate<String[]> compiled = DetectionRuleCompiler.compile(rule);
+			
+			for (int i = 0; i < 100; i++) {
+				String[] dna = randomDna(random, rule.getRunLength() + random.nextInt(6), alphabet);
+				assertThat(compiled.test(dna)).as(rule + " " + Arrays.toString(dna)).isEqualTo(bruteForce(rule, dna));
+			}
+		}
+	}
+	
+	@Test
+	void invalidRule() {
+		assertThatThrownBy(() -> new DetectionRule("", 4, 2, EnumSet.of(Direction.ROW))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new DetectionRule("ACGA", 4, 2, EnumSet.of(Direction.ROW))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new DetectionRule("ACGT", 0, 2, EnumSet.of(Direction.ROW))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new DetectionRule("ACGT", 4, 2, EnumSet.noneOf(Direction.class))).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	private static boolean bruteForce(DetectionRule rule, String[] dna) {
+		int n = dna.length;
+		int[][] steps = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+		Set<String> found = new HashSet<String>();
+		for (Direction direction : rule.getDirections()) {
+			int rowStep = steps[direction.ordinal()][0];
+			int colStep = steps[direction.ordinal()][1];
+			for (int r = 0; r < n; r++) {
+				for (int c = 0; c < n; c++) {
+					boolean run = true;
+					for (int k = 1; k < rule.getRunLength() && run; k++) {
+						int row = r + k * rowStep;
+						int col = c + k * colStep;
+						run = row < n && col >= 0 && col < n && dna[row].charAt(col) == dna[r].charAt(c);
+					}
+					if (run) {
+						// identify the line by the cell where it enters the matrix
+						int back = Math.min(rowStep == 1 ? r : n, colStep == 1 ? c : colStep == -1 ? n - 1 - c : n);
+						found.add(direction + ":" + (r - back * rowStep) + ":" + (c - back * colStep) + ":" + dna[r].charAt(c));
+					}
+				}
+			}
+		}
+		return found.size() >= rule.getMatchesNeeded();
+	}
+	
+	private static String[] randomDna(Random random, int size, String alphabet) {
+		String[] dna = new String[size];
+		for (int row = 0; row < size; row++) {
+			StringBuilder sequence = new StringBuilder(size);
+			for (int column = 0; column < size; column++) {
+				sequence.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			dna[row] = sequence.toString();
+		}
+		return dna;
+	}
+}
@@ -0,0 +1,105 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import emanuelrichieri.mutantdetector.util.suffixtree.GeneralizedSuffixTree.ResultInfo;
+
+public class CompactGeneralizedSuffixTreeTest {
+
+	@Test
+	void search() {
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		tree.insert("ACGTACGT", 0);
+		tree.insert("AAAA", 1);
+		tree.insert("CCCCAAAAA", 2);
+		tree.insert("GTA", 3);
+		
+		assertThat(tree.search("AAAA")).containsExactlyInAnyOrder(1, 2);
+		assertThat(tree.search("GTA")).containsExactlyInAnyOrder(0, 3);
+		assertThat(tree.search("CCCC", 2)).containsExactly(2);
+		assertThat(tree.search("A", 2)).hasSize(2);
+		assertThat(tree.search("TTTT")).isEmpty();
+		assertThat(tree.search("ACGTACGTA")).isEmpty();
+		assertThat(tree.search("AXA")).isEmpty();
+	}
+	
+	@Test
+	void searchWithCount() {
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		tree.insert("GATTACA", 0);
+		tree.insert("TACA", 0);
+		tree.insert("ATTAC", 4);
+		tree.insert("CATTAC", 5);
+		
+		ResultInfo result = tree.searchWithCount("TTAC", 2);
+		assertThat(result.totalResults).isEqualTo(3);
+		assertThat(result.results).hasSize(2);
+		assertThat(tree.computeCount()).isEqualTo(3);
+	}
+	
+	/**
+	 * Compare every search against a brute force scan of the inserted keys and against {@link GeneralizedSuffixTree}.
+	 */
+	@Test
+	void sameResultAsBruteForce() {
+		Random random = new Random(11);
+		for (int round = 0; round < 50; round++) {
+			CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+			GeneralizedSuffixTree reference = new GeneralizedSuffixTree();
+			List<String> keys = new ArrayList<String>();
+			int keyCount = 1 + random.nextInt(30);
+			for (int i = 0; i < keyCount; i++) {
+				String key = randomWord(random, random.nextInt(40), 1 + random.nextInt(4));
+				keys.add(key);
+				tree.insert(key, i);
+				reference.insert(key, i);
+			}
+			for (int i = 0; i < 200; i++) {
+				String word = randomWord(random, 1 + random.nextInt(6), 1 + random.nextInt(4));
+				List<Integer> expected = new ArrayList<Integer>();
+				for (int k = 0; k < keys.size(); k++) {
+					if (keys.get(k).contains(word)) {
+						expected.add(k);
+					}
+				}
+				assertThat(tree.search(word)).as(word + " in " + keys).containsExactlyInAnyOrderElementsOf(expected);
+				assertThat(tree.search(word)).containsExactlyInAnyOrderElementsOf(reference.search(word));
+				assertThat(tree.searchWithCount(word, 1).totalResults).isEqualTo(expected.size());
+				assertThat(tree.searchIndexes(word).stream().boxed()).containsExactlyElementsOf(expected);
+				assertThat(tree.count(word, -1)).isEqualTo(expected.size());
+				assertThat(tree.count(word, 2)).isEqualTo(Math.min(2, expected.size()));
+			}
+		}
+	}
+	
+	@Test
+	void indexOrder() {
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		tree.insert("ACGT", 3);
+		assertThatThrownBy(() -> tree.insert("ACGT", 2)).isInstanceOf(IllegalStateException.class);
+	}
+	
+	@Test
+	void illegalCharacter() {
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		assertThatThrownBy(() -> tree.insert("ACXT", 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	/**
+	 * Random word over the first <tt>letters</tt> bases, so that repetitions are frequent.
+	 */
+	private static String randomWord(Random random, int length, int letters) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append("ACGT".charAt(random.nextInt(letters)));
+		}
+		return word.toString();
+	}
+}
@@ -0,0 +1,146 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class GeneralizedSuffixTreeTest {
+
+	@Test
+	void search() {
+		GeneralizedSuffixTree tree = new GeneralizedSuffixTree();
+		tree.insert("ACGTACGT", 0);
+		tree.insert("AAAA", 1);
+		tree.insert("CCCCAAAAA", 2);
+		tree.insert("GTA", 3);
+		
+		assertThat(tree.search("AAAA")).containsExactlyInAnyOrder(1, 2);
+		assertThat(tree.search("GTA")).containsExactlyInAnyOrder(0, 3);
+		assertThat(tree.search("CCCC", 2)).containsExactly(2);
+		assertThat(tree.search("TTTT")).isEmpty();
+		assertThat(tree.search("ACGTACGTA")).isEmpty();
+	}
+	
+	@Test
+	void sameResultAsBruteForce() {
+		Random random = new Random(8);
+		for (int round = 0; round < 50; round++) {
+			GeneralizedSuffixTree tree = new GeneralizedSuffixTree();
+			List<String> keys = new ArrayList<String>();
+			int keyCount = 1 + random.nextInt(30);
+			for (int i = 0; i < keyCount; i++) {
+				String key = randomWord(random, random.nextInt(40), 1 + random.nextInt(4));
+				keys.add(key);
+				tree.insert(key, i);
+			}
+			for (int i = 0; i < 200; i++) {
+				String word = randomWord(random, 1 + random.nextInt(6), 1 + random.nextInt(4));
+				List<Integer> expected = new ArrayList<Integer>();
+				for (int k = 0; k < keys.size(); k++) {
+					if (keys.get(k).contains(word)) {
+						expected.add(k);
+					}
+				}
+				assertThat(tree.search(word)).as(word + " in " + keys).containsExactlyInAnyOrderElementsOf(expected);
+				assertThat(tree.searchIndexes(word).stream().boxed()).containsExactlyElementsOf(expected);
+				assertThat(tree.count(word, -1)).isEqualTo(expected.size());
+				assertThat(tree.count(word, 2)).isEqualTo(Math.min(2, expected.size()));
+			}
+		}
+	}
+	
+	@Test
+	void countsAreUpdatedOnInsert() {
+		GeneralizedSuffixTree tree = new GeneralizedSuffixTree();
+		tree.insert("GATTACA", 0);
+		tree.insert("ATTAC", 1);
+		assertThat(tree.searchWithCount("TTAC", 1).totalResults).isEqualTo(2);
+		assertThat(tree.computeCount()).isEqualTo(2);
+		
+		tree.insert("CATTAC", 2);
+		assertThat(tree.searchWithCount("TTAC", 1).totalResults).isEqualTo(3);
+		assertThat(tree.searchWithCount("CATT", 1).totalResults).isEqualTo(1);
+		assertThat(tree.computeCount()).isEqualTo(3);
+	}
+	
+	/**
+	 * A key made of a long run has a path as deep as the key: walking it must not depend on the thread stack size.
+	 */
+	@Test
+	void longKeysWithSmallStack() throws InterruptedException {
+		StringBuilder run = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			run.append('A');
+		}
+		String key = run.append('C').toString();
+		AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		Thread thread = new Thread(null, () -> {
+			try {
+				GeneralizedSuffixTree tree = new GeneralizedSuffixTree();
+				tree.insert("GATTACA", 0);
+				tree.insert(key, 1);
+				tree.insert("CCCC", 2);
+				assertThat(tree.computeCount()).isEqualTo(3);
+				assertThat(tree.searchWithCount("AAAA", -1).totalResults).isEqualTo(1);
+				assertThat(tree.search("AC")).containsExactlyInAnyOrder(0, 1);
+				assertThat(tree.count("C", -1)).isEqualTo(3);
+			} catch (Throwable ex) {
+				error.set(ex);
+			}
+		}, "small-stack", 256 * 1024);
+		thread.start();
+		thread.join();
+		assertThat(error.get()).isNull();
+	}
+	
+	/**
+	 * Allocation benchmark: inserting a key must allocate memory proportional to the nodes it creates, 
+	 * not to the square of its length (as building every active string with concatenation and substring did).
+	 * Four times longer keys must take less than eight times the bytes (quadratic growth would take sixteen).
+	 */
+	@Test
+	void insertAllocatesLinearMemory() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		
+		Random random = new Random(8);
+		String shortKey = randomWord(random, 2000, 4);
+		String longKey = randomWord(random, 8000, 4);
+		for (int i = 0; i < 20; i++) {
+			// warm up, so that the measure does not include class loading and the interpreter
+			allocatedBytes(threads, shortKey);
+		}
+		
+		long shortBytes = allocatedBytes(threads, shortKey);
+		long longBytes = allocatedBytes(threads, longKey);
+		assertThat(longBytes).isLessThan(8 * shortBytes);
+	}
+	
+	private static long allocatedBytes(com.sun.management.ThreadMXBean threads, String key) {
+		long threadId = Thread.currentThread().getId();
+		GeneralizedSuffixTree tree = new GeneralizedSuffixTree();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		tree.insert(key, 0);
+		return threads.getThreadAllocatedBytes(threadId) - before;
+	}
+	
+	/**
+	 * Random word over the first <tt>letters</tt> bases, so that repetitions are frequent.
+	 */
+	private static String randomWord(Random random, int length, int letters) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append("ACGT".charAt(random.nextInt(letters)));
+		}
+		return word.toString();
+	}
+}
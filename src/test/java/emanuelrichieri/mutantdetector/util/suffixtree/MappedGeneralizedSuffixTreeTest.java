@@ -0,0 +1,108 @@
+package emanuelrichieri.mutantdetector.util.suffixtree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import emanuelrichieri.mutantdetector.util.suffixtree.GeneralizedSuffixTree.ResultInfo;
+
+public class MappedGeneralizedSuffixTreeTest {
+
+	@TempDir
+	Path directory;
+	
+	@Test
+	void search() throws IOException {
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		tree.insert("GATTACA", 0);
+		tree.insert("TACA", 0);
+		tree.insert("ATTAC", 4);
+		tree.insert("CATTAC", 5);
+		Path file = directory.resolve("tree.gst");
+		tree.writeSnapshot(file);
+		
+		MappedGeneralizedSuffixTree mapped = MappedGeneralizedSuffixTree.open(file);
+		assertThat(mapped.search("TTAC")).containsExactly(0, 4, 5);
+		assertThat(mapped.search("TTAC", 2)).hasSize(2);
+		assertThat(mapped.search("CATT")).containsExactly(5);
+		assertThat(mapped.search("GGG")).isEmpty();
+		ResultInfo result = mapped.searchWithCount("TTAC", 2);
+		assertThat(result.totalResults).isEqualTo(3);
+		assertThat(result.results).containsExactly(0, 4);
+		assertThat(mapped.count("A", 2)).isEqualTo(2);
+		assertThat(mapped.computeCount()).isEqualTo(3);
+		assertThat(mapped.getLastIndex()).isEqualTo(5);
+	}
+	
+	/**
+	 * Every search on the snapshot must give the same result as on the tree it was written from.
+	 */
+	@Test
+	void sameResultAsWrittenTree() throws IOException {
+		Random random = new Random(12);
+		for (int round = 0; round < 20; round++) {
+			CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+			int keyCount = 1 + random.nextInt(30);
+			for (int i = 0; i < keyCount; i++) {
+				tree.insert(randomWord(random, random.nextInt(40), 1 + random.nextInt(4)), i);
+			}
+			Path file = directory.resolve("tree" + round + ".gst");
+			tree.writeSnapshot(file);
+			MappedGeneralizedSuffixTree mapped = MappedGeneralizedSuffixTree.open(file);
+			
+			for (int i = 0; i < 200; i++) {
+				String word = randomWord(random, 1 + random.nextInt(6), 1 + random.nextInt(4));
+				List<Integer> expected = new ArrayList<Integer>(tree.search(word));
+				assertThat(mapped.search(word)).containsExactlyInAnyOrderElementsOf(expected);
+				assertThat(mapped.searchIndexes(word)).isEqualTo(tree.searchIndexes(word));
+				assertThat(mapped.count(word, -1)).isEqualTo(expected.size());
+			}
+		}
+	}
+	
+	@Test
+	void empty() throws IOException {
+		Path file = directory.resolve("empty.gst");
+		new CompactGeneralizedSuffixTree().writeSnapshot(file);
+		MappedGeneralizedSuffixTree mapped = MappedGeneralizedSuffixTree.open(file);
+		
+		assertThat(mapped.search("A")).isEmpty();
+		assertThat(mapped.computeCount()).isEqualTo(0);
+	}
+	
+	@Test
+	void invalidSnapshot() throws IOException {
+		Path file = directory.resolve("invalid.gst");
+		Files.write(file, "ACGT,ACGT,ACGT,ACGT".getBytes());
+		assertThatThrownBy(() -> MappedGeneralizedSuffixTree.open(file)).isInstanceOf(IOException.class);
+		
+		CompactGeneralizedSuffixTree tree = new CompactGeneralizedSuffixTree();
+		tree.insert("GATTACA", 0);
+		Path truncated = directory.resolve("truncated.gst");
+		tree.writeSnapshot(truncated);
+		byte[] bytes = Files.readAllBytes(truncated);
+		Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+		assertThatThrownBy(() -> MappedGeneralizedSuffixTree.open(truncated)).isInstanceOf(IOException.class);
+	}
+	
+	/**
+	 * Random word over the first <tt>letters</tt> bases, so that repetitions are frequent.
+	 */
+	private static String randomWord(Random random, int length, int letters) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append("ACGT".charAt(random.nextInt(letters)));
+		}
+		return word.toString();
+	}
+}